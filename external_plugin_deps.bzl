@@ -161,6 +161,68 @@ def external_plugin_deps():
         sha1 = "3864a1320d97d7b045f729a326e1e077661f31b7",
     )
 
+    NETTY_VER = "4.1.126.Final"
+
+    maven_jar(
+        name = "netty-buffer",
+        artifact = "io.netty:netty-buffer:" + NETTY_VER,
+        sha1 = "6141cd8f9b7def2d29b2ae6b433a751d6f20120e",
+    )
+
+    maven_jar(
+        name = "netty-codec",
+        artifact = "io.netty:netty-codec:" + NETTY_VER,
+        sha1 = "b265a097073120638ef468eda9e5a1e04a2e09e9",
+    )
+
+    maven_jar(
+        name = "netty-codec-http",
+        artifact = "io.netty:netty-codec-http:" + NETTY_VER,
+        sha1 = "e8a7293c3f4891e7f6b0ede23bc808559dff0abd",
+    )
+
+    maven_jar(
+        name = "netty-codec-http2",
+        artifact = "io.netty:netty-codec-http2:" + NETTY_VER,
+        sha1 = "0652d70562d88d4de20071e3e2f4963e02e68c74",
+    )
+
+    maven_jar(
+        name = "netty-common",
+        artifact = "io.netty:netty-common:" + NETTY_VER,
+        sha1 = "e600bd7cef9b2b151606529166534b99220ea149",
+    )
+
+    maven_jar(
+        name = "netty-handler",
+        artifact = "io.netty:netty-handler:" + NETTY_VER,
+        sha1 = "9bd071585b16a9aa28caec956fd77a4375ff3193",
+    )
+
+    maven_jar(
+        name = "netty-resolver",
+        artifact = "io.netty:netty-resolver:" + NETTY_VER,
+        sha1 = "9e46079201a3f050670924d8b3326b3d4453763d",
+    )
+
+    maven_jar(
+        name = "netty-transport",
+        artifact = "io.netty:netty-transport:" + NETTY_VER,
+        sha1 = "3078db67315cb25a87938da7e868b734413be15d",
+    )
+
+    maven_jar(
+        name = "netty-transport-classes-epoll",
+        artifact = "io.netty:netty-transport-classes-epoll:" + NETTY_VER,
+        sha1 = "c518513a1c7bdaf67462a1062b873a04fbf2b157",
+    )
+
+    maven_jar(
+        name = "netty-transport-native-unix-common",
+        artifact = "io.netty:netty-transport-native-unix-common:" + NETTY_VER,
+        sha1 = "fd579d0e8f9f6509d201920a35f51aa49e638f5e",
+    )
+
     JACKSON_VER = "2.20.0"
 
     maven_jar(
@@ -245,3 +307,29 @@ def external_plugin_deps():
         artifact = "net.java.dev.jna:jna:5.18.1",
         sha1 = "b27ba04287cc4abe769642fe8318d39fc89bf937",
     )
+
+    JMH_VER = "1.37"
+
+    maven_jar(
+        name = "jmh-core",
+        artifact = "org.openjdk.jmh:jmh-core:" + JMH_VER,
+        sha1 = "896f27e49105b35ea1964319c83d12082e7a79ef",
+    )
+
+    maven_jar(
+        name = "jmh-generator-annprocess",
+        artifact = "org.openjdk.jmh:jmh-generator-annprocess:" + JMH_VER,
+        sha1 = "da93888682df163144edf9b13d2b78e54166063a",
+    )
+
+    maven_jar(
+        name = "jopt-simple",
+        artifact = "net.sf.jopt-simple:jopt-simple:5.0.4",
+        sha1 = "4fdac2fbe92dfad86aa6e9301736f6b4342a3f5c",
+    )
+
+    maven_jar(
+        name = "commons-math3",
+        artifact = "org.apache.commons:commons-math3:3.6.1",
+        sha1 = "e4ba98f1d4b3c80ec46392f25e094a6a2e58fcbf",
+    )
@@ -0,0 +1,446 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
+
+import com.google.common.base.Splitter;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValuesOnConditionCheckFailure;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+import software.amazon.awssdk.services.dynamodb.model.Update;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+
+/**
+ * In-process stand-in for the subset of DynamoDB used by the refdb and by the lock client.
+ *
+ * <p>Items are kept in memory, one map per table. Condition and update expressions are evaluated
+ * for the simple forms issued by this plugin and by the lock client: conjunctions and disjunctions
+ * of {@code attribute_exists}, {@code attribute_not_exists} and equality, and {@code SET} / {@code
+ * REMOVE} updates. Queries are limited to an equality on the hash key. Every request is delayed by
+ * the configured latency, to mimic the network round trip to DynamoDB.
+ */
+class InMemoryDynamoDb {
+  private static final Splitter OR = Splitter.on(" OR ").trimResults();
+  private static final Splitter AND = Splitter.on(" AND ").trimResults();
+  private static final Splitter COMMA = Splitter.on(',').trimResults().omitEmptyStrings();
+  private static final Splitter EQUALS = Splitter.on('=').trimResults().limit(2);
+
+  private final Map<String, List<String>> keyAttributesByTable;
+  private final Map<String, Map<Map<String, AttributeValue>, Map<String, AttributeValue>>> tables =
+      new ConcurrentHashMap<>();
+  private final Map<String, List<List<Term>>> conditions = new ConcurrentHashMap<>();
+  private final Map<String, List<Term>> updates = new ConcurrentHashMap<>();
+  private final ReadWriteLock transactionLock = new ReentrantReadWriteLock();
+  private final Duration latency;
+
+  /**
+   * @param keyAttributesByTable the names of the key attributes of each table.
+   * @param latency the delay added to every request.
+   */
+  InMemoryDynamoDb(Map<String, List<String>> keyAttributesByTable, Duration latency) {
+    this.keyAttributesByTable = keyAttributesByTable;
+    this.latency = latency;
+    keyAttributesByTable.keySet().forEach(table -> tables.put(table, new ConcurrentHashMap<>()));
+  }
+
+  Duration latency() {
+    return latency;
+  }
+
+  /** Returns the value of {@code attribute} of the item stored under {@code key}, if any. */
+  AttributeValue peek(String tableName, Map<String, AttributeValue> key, String attribute) {
+    Map<String, AttributeValue> item = table(tableName).get(key);
+    return item != null ? item.get(attribute) : null;
+  }
+
+  GetItemResponse getItem(GetItemRequest request) {
+    return withReadLock(
+        () -> {
+          Map<String, AttributeValue> item = table(request.tableName()).get(request.key());
+          return item == null
+              ? GetItemResponse.builder().build()
+              : GetItemResponse.builder().item(item).build();
+        });
+  }
+
+  BatchGetItemResponse batchGetItem(BatchGetItemRequest request) {
+    return withReadLock(
+        () -> {
+          Map<String, List<Map<String, AttributeValue>>> responses = new HashMap<>();
+          for (Map.Entry<String, KeysAndAttributes> entry : request.requestItems().entrySet()) {
+            List<Map<String, AttributeValue>> items = new ArrayList<>();
+            for (Map<String, AttributeValue> key : entry.getValue().keys()) {
+              Map<String, AttributeValue> item = table(entry.getKey()).get(key);
+              if (item != null) {
+                items.add(item);
+              }
+            }
+            responses.put(entry.getKey(), items);
+          }
+          return BatchGetItemResponse.builder().responses(responses).build();
+        });
+  }
+
+  QueryResponse query(QueryRequest request) {
+    List<String> keyAttributes = keyAttributesByTable.get(request.tableName());
+    Comparator<Map<String, AttributeValue>> bySortKey =
+        Comparator.comparing(item -> item.get(keyAttributes.get(keyAttributes.size() - 1)).s());
+    return withReadLock(
+        () -> {
+          List<Map<String, AttributeValue>> items = new ArrayList<>();
+          for (Map<String, AttributeValue> item : table(request.tableName()).values()) {
+            if (matches(
+                request.keyConditionExpression(),
+                request.expressionAttributeNames(),
+                request.expressionAttributeValues(),
+                item)) {
+              items.add(item);
+            }
+          }
+          items.sort(bySortKey);
+          int from = 0;
+          if (request.hasExclusiveStartKey()) {
+            while (from < items.size()
+                && bySortKey.compare(items.get(from), request.exclusiveStartKey()) <= 0) {
+              from++;
+            }
+          }
+          int to =
+              request.limit() != null
+                  ? Math.min(items.size(), from + request.limit())
+                  : items.size();
+          QueryResponse.Builder response =
+              QueryResponse.builder().items(items.subList(from, to)).count(to - from);
+          if (to < items.size()) {
+            response.lastEvaluatedKey(keyOf(request.tableName(), items.get(to - 1)));
+          }
+          return response.build();
+        });
+  }
+
+  PutItemResponse putItem(PutItemRequest request) {
+    Map<String, AttributeValue> key = keyOf(request.tableName(), request.item());
+    return withReadLock(
+        () -> {
+          table(request.tableName())
+              .compute(
+                  key,
+                  (k, current) -> {
+                    checkCondition(
+                        request.conditionExpression(),
+                        request.expressionAttributeNames(),
+                        request.expressionAttributeValues(),
+                        request.returnValuesOnConditionCheckFailure(),
+                        current);
+                    return Map.copyOf(request.item());
+                  });
+          return PutItemResponse.builder().build();
+        });
+  }
+
+  UpdateItemResponse updateItem(UpdateItemRequest request) {
+    return withReadLock(
+        () -> {
+          table(request.tableName())
+              .compute(
+                  request.key(),
+                  (k, current) -> {
+                    checkCondition(
+                        request.conditionExpression(),
+                        request.expressionAttributeNames(),
+                        request.expressionAttributeValues(),
+                        request.returnValuesOnConditionCheckFailure(),
+                        current);
+                    return update(
+                        k,
+                        current,
+                        request.updateExpression(),
+                        request.expressionAttributeNames(),
+                        request.expressionAttributeValues());
+                  });
+          return UpdateItemResponse.builder().build();
+        });
+  }
+
+  DeleteItemResponse deleteItem(DeleteItemRequest request) {
+    return withReadLock(
+        () -> {
+          table(request.tableName())
+              .compute(
+                  request.key(),
+                  (k, current) -> {
+                    checkCondition(
+                        request.conditionExpression(),
+                        request.expressionAttributeNames(),
+                        request.expressionAttributeValues(),
+                        request.returnValuesOnConditionCheckFailure(),
+                        current);
+                    return null;
+                  });
+          return DeleteItemResponse.builder().build();
+        });
+  }
+
+  TransactWriteItemsResponse transactWriteItems(TransactWriteItemsRequest request) {
+    transactionLock.writeLock().lock();
+    try {
+      List<CancellationReason> reasons = new ArrayList<>();
+      boolean cancelled = false;
+      for (TransactWriteItem item : request.transactItems()) {
+        Update update = transactUpdate(item);
+        boolean matches =
+            matches(
+                update.conditionExpression(),
+                update.expressionAttributeNames(),
+                update.expressionAttributeValues(),
+                table(update.tableName()).get(update.key()));
+        cancelled |= !matches;
+        reasons.add(
+            CancellationReason.builder().code(matches ? "None" : "ConditionalCheckFailed").build());
+      }
+      if (cancelled) {
+        throw TransactionCanceledException.builder()
+            .message("Transaction cancelled")
+            .cancellationReasons(reasons)
+            .build();
+      }
+      for (TransactWriteItem item : request.transactItems()) {
+        Update update = transactUpdate(item);
+        table(update.tableName())
+            .compute(
+                update.key(),
+                (k, current) ->
+                    update(
+                        k,
+                        current,
+                        update.updateExpression(),
+                        update.expressionAttributeNames(),
+                        update.expressionAttributeValues()));
+      }
+      return TransactWriteItemsResponse.builder().build();
+    } finally {
+      transactionLock.writeLock().unlock();
+    }
+  }
+
+  private static Update transactUpdate(TransactWriteItem item) {
+    if (item.update() == null) {
+      throw new UnsupportedOperationException("Only updates are supported in transactions");
+    }
+    return item.update();
+  }
+
+  private <T> T withReadLock(Supplier<T> operation) {
+    transactionLock.readLock().lock();
+    try {
+      return operation.get();
+    } finally {
+      transactionLock.readLock().unlock();
+    }
+  }
+
+  private Map<Map<String, AttributeValue>, Map<String, AttributeValue>> table(String tableName) {
+    Map<Map<String, AttributeValue>, Map<String, AttributeValue>> table = tables.get(tableName);
+    if (table == null) {
+      throw new IllegalArgumentException("Unknown table " + tableName);
+    }
+    return table;
+  }
+
+  private Map<String, AttributeValue> keyOf(String tableName, Map<String, AttributeValue> item) {
+    Map<String, AttributeValue> key = new HashMap<>();
+    for (String attribute : keyAttributesByTable.get(tableName)) {
+      key.put(attribute, item.get(attribute));
+    }
+    return key;
+  }
+
+  private void checkCondition(
+      String expression,
+      Map<String, String> names,
+      Map<String, AttributeValue> values,
+      ReturnValuesOnConditionCheckFailure returnValues,
+      Map<String, AttributeValue> item) {
+    if (!matches(expression, names, values, item)) {
+      throw ConditionalCheckFailedException.builder()
+          .message("The conditional request failed")
+          .item(returnValues == ReturnValuesOnConditionCheckFailure.ALL_OLD ? item : null)
+          .build();
+    }
+  }
+
+  private boolean matches(
+      String expression,
+      Map<String, String> names,
+      Map<String, AttributeValue> values,
+      Map<String, AttributeValue> item) {
+    if (expression == null) {
+      return true;
+    }
+    // Expressions are parsed once, so that the benchmarks do not measure the stand-in.
+    List<List<Term>> disjuncts = conditions.computeIfAbsent(expression, InMemoryDynamoDb::parse);
+    for (List<Term> conjuncts : disjuncts) {
+      boolean allMatch = true;
+      for (Term term : conjuncts) {
+        allMatch &= term.matches(names, values, item);
+      }
+      if (allMatch) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private Map<String, AttributeValue> update(
+      Map<String, AttributeValue> key,
+      Map<String, AttributeValue> current,
+      String expression,
+      Map<String, String> names,
+      Map<String, AttributeValue> values) {
+    Map<String, AttributeValue> item = new HashMap<>(current != null ? current : key);
+    for (Term action : updates.computeIfAbsent(expression, InMemoryDynamoDb::parseUpdate)) {
+      if (action.value != null) {
+        item.put(name(action.attribute, names), values.get(action.value));
+      } else {
+        item.remove(name(action.attribute, names));
+      }
+    }
+    return Map.copyOf(item);
+  }
+
+  private static List<List<Term>> parse(String condition) {
+    List<List<Term>> disjuncts = new ArrayList<>();
+    for (String disjunct : OR.split(condition)) {
+      List<Term> conjuncts = new ArrayList<>();
+      for (String term : AND.split(disjunct)) {
+        conjuncts.add(Term.parse(stripParentheses(term)));
+      }
+      disjuncts.add(conjuncts);
+    }
+    return disjuncts;
+  }
+
+  /** Parses an update expression into assignments, with a value, and removals, without. */
+  private static List<Term> parseUpdate(String expression) {
+    List<Term> actions = new ArrayList<>();
+    int remove = expression.indexOf("REMOVE ");
+    String set = (remove < 0 ? expression : expression.substring(0, remove)).trim();
+    if (set.startsWith("SET ")) {
+      for (String assignment : COMMA.split(set.substring("SET ".length()))) {
+        List<String> operands = EQUALS.splitToList(assignment);
+        actions.add(new Term(Term.Kind.EQUALS, operands.get(0), operands.get(1)));
+      }
+    }
+    if (remove >= 0) {
+      for (String attribute : COMMA.split(expression.substring(remove + "REMOVE ".length()))) {
+        actions.add(new Term(Term.Kind.EQUALS, attribute, null));
+      }
+    }
+    return actions;
+  }
+
+  private static String name(String token, Map<String, String> names) {
+    return token.startsWith("#") ? names.get(token) : token;
+  }
+
+  private static String stripParentheses(String term) {
+    String stripped = term.startsWith("(") ? term.substring(1) : term;
+    long unbalanced =
+        stripped.chars().filter(c -> c == ')').count()
+            - stripped.chars().filter(c -> c == '(').count();
+    for (; unbalanced > 0 && stripped.endsWith(")"); unbalanced--) {
+      stripped = stripped.substring(0, stripped.length() - 1);
+    }
+    return stripped.trim();
+  }
+
+  private static class Term {
+    enum Kind {
+      EXISTS,
+      NOT_EXISTS,
+      EQUALS
+    }
+
+    final Kind kind;
+    final String attribute;
+    final String value;
+
+    Term(Kind kind, String attribute, String value) {
+      this.kind = kind;
+      this.attribute = attribute;
+      this.value = value;
+    }
+
+    static Term parse(String term) {
+      if (term.startsWith("attribute_not_exists(")) {
+        return new Term(Kind.NOT_EXISTS, functionArgument(term), null);
+      }
+      if (term.startsWith("attribute_exists(")) {
+        return new Term(Kind.EXISTS, functionArgument(term), null);
+      }
+      List<String> operands = EQUALS.splitToList(term);
+      if (operands.size() != 2) {
+        throw new UnsupportedOperationException("Unsupported condition " + term);
+      }
+      return new Term(Kind.EQUALS, operands.get(0), operands.get(1));
+    }
+
+    boolean matches(
+        Map<String, String> names,
+        Map<String, AttributeValue> values,
+        Map<String, AttributeValue> item) {
+      switch (kind) {
+        case NOT_EXISTS:
+          return item == null || !item.containsKey(name(attribute, names));
+        case EXISTS:
+          return item != null && item.containsKey(name(attribute, names));
+        default:
+          return item != null
+              && Objects.equals(item.get(name(attribute, names)), values.get(value));
+      }
+    }
+
+    private static String functionArgument(String function) {
+      return function.substring(function.indexOf('(') + 1, function.lastIndexOf(')')).trim();
+    }
+  }
+}
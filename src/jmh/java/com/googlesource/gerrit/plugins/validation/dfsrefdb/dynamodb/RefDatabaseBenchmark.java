@@ -0,0 +1,239 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
+
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.DynamoDBRefDatabase.LOCK_DB_PRIMARY_KEY;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.DynamoDBRefDatabase.LOCK_DB_SORT_KEY;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.DynamoDBRefDatabase.REF_DB_VALUE_KEY;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBLockClient;
+import com.google.common.cache.CacheBuilder;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.metrics.DisabledMetricMaker;
+import com.google.gerrit.server.config.PluginConfig;
+import com.google.gerrit.server.config.PluginConfigFactory;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.apache.log4j.LogManager;
+import org.eclipse.jgit.lib.Config;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectIdRef;
+import org.eclipse.jgit.lib.Ref;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+/**
+ * Benchmarks of the refdb hot paths against an {@link InMemoryDynamoDb}.
+ *
+ * <p>The latency of DynamoDB is simulated with {@link #latencyMicros}, while the contention is
+ * controlled by the number of benchmark threads ({@code -t}) and the number of {@link #refs} they
+ * spread their operations over.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RefDatabaseBenchmark {
+  private static final String PLUGIN_NAME = "aws-dynamodb-refdb";
+  private static final Project.NameKey PROJECT = Project.nameKey("benchmark");
+
+  /** Latency added to every DynamoDB request, in microseconds. */
+  @Param({"0", "1000"})
+  public long latencyMicros;
+
+  /** Number of refs updated by the benchmark threads: the fewer refs, the higher the contention. */
+  @Param({"1", "1024"})
+  public int refs;
+
+  @Param({"false", "true"})
+  public boolean refValueCacheEnabled;
+
+  @Param({"STRING", "BINARY"})
+  public RefValueFormat refValueFormat;
+
+  @Param({"FLAT", "PARTITIONED"})
+  public RefsDbTableLayout refsDbTableLayout;
+
+  private InMemoryDynamoDb dynamoDb;
+  private AmazonDynamoDBLockClient lockClient;
+  private DynamoDBRefDatabase refDb;
+  private String refsDbTableName;
+  private String[] refNames;
+  private Map<String, AttributeValue>[] keys;
+  private Ref[] storedRefs;
+
+  @State(Scope.Thread)
+  public static class ThreadState {
+    private final SplittableRandom random = new SplittableRandom();
+    private final ObjectId[] ids = new ObjectId[64];
+    private int next;
+
+    @Setup
+    public void setUp() {
+      for (int i = 0; i < ids.length; i++) {
+        ids[i] = randomId(random);
+      }
+    }
+
+    int nextRef(int refs) {
+      return random.nextInt(refs);
+    }
+
+    ObjectId nextId() {
+      next = (next + 1) % ids.length;
+      return ids[next];
+    }
+  }
+
+  @Setup(Level.Trial)
+  @SuppressWarnings("unchecked")
+  public void setUp() {
+    // Log4j logs everything when it is not configured: use the level of a Gerrit server, so that
+    // the disabled fine logs are not formatted.
+    LogManager.getRootLogger().setLevel(org.apache.log4j.Level.INFO);
+
+    PluginConfig.Update pluginConfig = PluginConfig.Update.forTest(PLUGIN_NAME, new Config());
+    pluginConfig.setBoolean("refValueCacheEnabled", refValueCacheEnabled);
+    pluginConfig.setEnum("refValueFormat", refValueFormat);
+    pluginConfig.setEnum("refsDbTableLayout", refsDbTableLayout);
+    PluginConfigFactory pluginConfigFactory = mock(PluginConfigFactory.class);
+    when(pluginConfigFactory.getFromGerritConfig(PLUGIN_NAME))
+        .thenReturn(pluginConfig.asPluginConfig());
+    Configuration configuration = new Configuration(pluginConfigFactory, PLUGIN_NAME);
+
+    refsDbTableName = configuration.getRefsDbTableName();
+    dynamoDb =
+        new InMemoryDynamoDb(
+            Map.of(
+                refsDbTableName,
+                refsDbTableLayout.keyAttributes(),
+                configuration.getLocksTableName(),
+                List.of(LOCK_DB_PRIMARY_KEY, LOCK_DB_SORT_KEY)),
+            Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(latencyMicros)));
+    lockClient =
+        new DynamoDBLockClientProvider(configuration, new InMemoryDynamoDbClient(dynamoDb)).get();
+    DynamoDBMetrics metrics = new DynamoDBMetrics(new DisabledMetricMaker());
+    HotRefs hotRefs = new HotRefs(configuration, metrics);
+    DynamoDBRefDatabase.ProjectVersionCacheLoader projectVersionCacheLoader =
+        new DynamoDBRefDatabase.ProjectVersionCacheLoader(() -> refDb, metrics, configuration);
+    refDb =
+        new DynamoDBRefDatabase(
+            lockClient,
+            new InMemoryDynamoDbAsyncClient(dynamoDb),
+            configuration,
+            CacheBuilder.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(60))
+                .refreshAfterWrite(Duration.ofSeconds(30))
+                .build(projectVersionCacheLoader),
+            projectVersionCacheLoader,
+            new RefValueCache(
+                configuration,
+                CacheBuilder.newBuilder()
+                    .expireAfterWrite(Duration.ofSeconds(60))
+                    .maximumSize(10_000)
+                    .build()),
+            new LocalRefLocks(),
+            new LocalRefWrites(),
+            new HedgedReads(configuration, metrics),
+            new CircuitBreaker(configuration, metrics),
+            new CapacityLimiter(configuration),
+            new ProjectUsageTracker(configuration, new DisabledMetricMaker()),
+            hotRefs,
+            new KnownRefs(configuration, () -> refDb, metrics),
+            metrics);
+
+    SplittableRandom random = new SplittableRandom(0);
+    refNames = new String[refs];
+    keys = new Map[refs];
+    storedRefs = new Ref[refs];
+    for (int i = 0; i < refs; i++) {
+      refNames[i] = "refs/heads/branch-" + i;
+      keys[i] = refDb.getKey(refDb.keyFor(PROJECT, refNames[i]));
+      storedRefs[i] = refOf(refNames[i], randomId(random));
+      refDb.put(PROJECT, refNames[i], storedRefs[i].getObjectId().getName());
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    lockClient.close();
+  }
+
+  @Benchmark
+  public boolean compareAndPut(ThreadState thread) {
+    int ref = thread.nextRef(refs);
+    // The current value is read straight from the stand-in: under contention the update fails
+    // when another thread changed the ref in the meantime, like it would against DynamoDB.
+    ObjectId current =
+        RefValueFormat.decodeObjectId(dynamoDb.peek(refsDbTableName, keys[ref], REF_DB_VALUE_KEY));
+    return refDb.compareAndPut(PROJECT, refOf(refNames[ref], current), thread.nextId());
+  }
+
+  @Benchmark
+  public boolean isUpToDate(ThreadState thread) throws Exception {
+    return refDb.isUpToDate(PROJECT, storedRefs[thread.nextRef(refs)]);
+  }
+
+  @Benchmark
+  public Object get(ThreadState thread) {
+    return refDb.get(PROJECT, refNames[thread.nextRef(refs)], String.class);
+  }
+
+  @Benchmark
+  public void lockRef(ThreadState thread) throws Exception {
+    try (AutoCloseable lock = refDb.lockRef(PROJECT, refNames[thread.nextRef(refs)])) {
+      // Only the acquisition and the release of the lock are measured.
+    }
+  }
+
+  @Benchmark
+  public String pathFor(ThreadState thread) {
+    return refDb.pathFor(PROJECT, refNames[thread.nextRef(refs)]);
+  }
+
+  @Benchmark
+  public Integer getCurrentVersion() {
+    return refDb.getCurrentVersion(PROJECT);
+  }
+
+  private static Ref refOf(String refName, ObjectId id) {
+    return new ObjectIdRef.Unpeeled(Ref.Storage.NETWORK, refName, id);
+  }
+
+  private static ObjectId randomId(SplittableRandom random) {
+    byte[] raw = new byte[20];
+    random.nextBytes(raw);
+    return ObjectId.fromRaw(raw);
+  }
+}
@@ -0,0 +1,278 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
+
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.DynamoDBMetrics.THROTTLED;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.gerrit.common.Nullable;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import software.amazon.awssdk.services.dynamodb.model.ConsumedCapacity;
+
+/**
+ * Keeps the requests of this node to the refsDb table within the read and write capacity units
+ * allotted to it, so that they are delayed on the node rather than throttled by DynamoDB and
+ * retried by the SDK.
+ *
+ * <p>Each capacity is a token bucket refilled at the allotted rate, holding at most one second of
+ * capacity. A request takes an estimate of its cost before being sent, corrected by the capacity
+ * that DynamoDB reports as consumed once it completes. Whenever a request is throttled, the rate of
+ * its bucket is halved; it then recovers by a tenth of the allotted rate every second without
+ * throttling.
+ *
+ * <p>{@link Priority#FOREGROUND} requests book their tokens ahead and are only delayed by the
+ * requests booked before them. {@link Priority#BACKGROUND} requests only go through when half of
+ * the bucket is left unused by the foreground ones, or once the bucket is full when they need more
+ * than the other half: they then take the missing tokens ahead, like foreground requests.
+ */
+@Singleton
+class CapacityLimiter {
+  private static final double MIN_RATE_FACTOR = 0.1;
+  private static final double RATE_RECOVERY_PER_SECOND = 0.1;
+  private static final double BACKGROUND_RESERVE = 0.5;
+  private static final long SECOND_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  enum Capacity {
+    READ,
+    WRITE
+  }
+
+  enum Priority {
+    FOREGROUND,
+    BACKGROUND
+  }
+
+  private final boolean enabled;
+  private final Bucket readBucket;
+  private final Bucket writeBucket;
+
+  @Inject
+  CapacityLimiter(Configuration configuration) {
+    this(configuration, Ticker.systemTicker());
+  }
+
+  @VisibleForTesting
+  CapacityLimiter(Configuration configuration, Ticker ticker) {
+    this.enabled = configuration.isCapacityLimiterEnabled();
+    this.readBucket = new Bucket(configuration.getCapacityLimiterReadUnits(), ticker);
+    this.writeBucket = new Bucket(configuration.getCapacityLimiterWriteUnits(), ticker);
+  }
+
+  /**
+   * Sends {@code request} once {@code capacity} allows for {@code estimatedUnits}, without blocking
+   * the caller.
+   *
+   * @param consumedUnits extracts the capacity units reported as consumed from the response, or
+   *     zero when not reported, in which case the estimate is kept.
+   */
+  <T> CompletableFuture<T> call(
+      Capacity capacity,
+      Priority priority,
+      double estimatedUnits,
+      Supplier<CompletableFuture<T>> request,
+      ToDoubleFunction<T> consumedUnits) {
+    if (!enabled) {
+      return request.get();
+    }
+    Bucket bucket = capacity == Capacity.READ ? readBucket : writeBucket;
+    CompletableFuture<Void> admitted = new CompletableFuture<>();
+    admit(bucket, priority, estimatedUnits, admitted);
+    return admitted
+        .thenCompose(v -> request.get())
+        .whenComplete(
+            (response, error) ->
+                recordOutcome(bucket, estimatedUnits, response, error, consumedUnits));
+  }
+
+  /**
+   * Sends the synchronous {@code request} on the calling thread once {@code capacity} allows for
+   * {@code estimatedUnits}, blocking until then. Meant for the background tasks that use the
+   * synchronous DynamoDB client, like the ref sweeper.
+   *
+   * @param consumedUnits extracts the capacity units reported as consumed from the response, or
+   *     zero when not reported, in which case the estimate is kept.
+   */
+  <T> T callBlocking(
+      Capacity capacity,
+      Priority priority,
+      double estimatedUnits,
+      Supplier<T> request,
+      ToDoubleFunction<T> consumedUnits)
+      throws InterruptedException {
+    if (!enabled) {
+      return request.get();
+    }
+    Bucket bucket = capacity == Capacity.READ ? readBucket : writeBucket;
+    CompletableFuture<Void> admitted = new CompletableFuture<>();
+    admit(bucket, priority, estimatedUnits, admitted);
+    try {
+      admitted.get();
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Admission of a request failed", e.getCause());
+    }
+    T response;
+    try {
+      response = request.get();
+    } catch (RuntimeException e) {
+      recordOutcome(bucket, estimatedUnits, null, e, consumedUnits);
+      throw e;
+    }
+    recordOutcome(bucket, estimatedUnits, response, null, consumedUnits);
+    return response;
+  }
+
+  /**
+   * Takes {@code units} of {@code capacity} for a request sent right away, e.g. a hedged read, only
+   * if they are spare as for a {@link Priority#BACKGROUND} request.
+   *
+   * @return whether the request may be sent.
+   */
+  boolean tryTake(Capacity capacity, double units) {
+    if (!enabled) {
+      return true;
+    }
+    return (capacity == Capacity.READ ? readBucket : writeBucket).tryTakeSpare(units) <= 0;
+  }
+
+  /** Returns the capacity units reported as consumed by a request, or zero when not reported. */
+  static double units(@Nullable ConsumedCapacity consumedCapacity) {
+    return consumedCapacity != null && consumedCapacity.capacityUnits() != null
+        ? consumedCapacity.capacityUnits()
+        : 0;
+  }
+
+  /** Returns the capacity units reported as consumed by a multi-table request. */
+  static double units(@Nullable List<ConsumedCapacity> consumedCapacity) {
+    return consumedCapacity == null
+        ? 0
+        : consumedCapacity.stream().mapToDouble(CapacityLimiter::units).sum();
+  }
+
+  @VisibleForTesting
+  double tokens(Capacity capacity) {
+    return (capacity == Capacity.READ ? readBucket : writeBucket).tokens();
+  }
+
+  @VisibleForTesting
+  double rate(Capacity capacity) {
+    return (capacity == Capacity.READ ? readBucket : writeBucket).rate();
+  }
+
+  private static <T> void recordOutcome(
+      Bucket bucket,
+      double estimatedUnits,
+      @Nullable T response,
+      @Nullable Throwable error,
+      ToDoubleFunction<T> consumedUnits) {
+    if (error == null) {
+      double consumed = consumedUnits.applyAsDouble(response);
+      if (consumed > 0) {
+        bucket.take(consumed - estimatedUnits);
+      }
+    } else if (THROTTLED.equals(DynamoDBMetrics.outcomeOf(error))) {
+      bucket.throttled();
+    }
+  }
+
+  private static void admit(
+      Bucket bucket, Priority priority, double units, CompletableFuture<Void> admitted) {
+    long waitNanos =
+        priority == Priority.FOREGROUND ? bucket.reserve(units) : bucket.tryTakeSpare(units);
+    if (waitNanos <= 0) {
+      admitted.complete(null);
+    } else if (priority == Priority.FOREGROUND) {
+      CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS)
+          .execute(() -> admitted.complete(null));
+    } else {
+      CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS)
+          .execute(() -> admit(bucket, priority, units, admitted));
+    }
+  }
+
+  private static class Bucket {
+    private final double maxRate;
+    private final Ticker ticker;
+    private double rateFactor = 1;
+    private double tokens;
+    private long refilledAtNanos;
+
+    Bucket(int unitsPerSecond, Ticker ticker) {
+      this.maxRate = unitsPerSecond;
+      this.ticker = ticker;
+      this.tokens = maxRate;
+      this.refilledAtNanos = ticker.read();
+    }
+
+    /** Takes {@code units}, possibly ahead, and returns how long to wait before using them. */
+    synchronized long reserve(double units) {
+      refill();
+      tokens -= units;
+      return tokens < 0 ? nanosFor(-tokens) : 0;
+    }
+
+    /**
+     * Takes {@code units} if they leave the background reserve of the bucket untouched, or if the
+     * bucket is full, or returns how long to wait before trying again.
+     */
+    synchronized long tryTakeSpare(double units) {
+      refill();
+      double missing = Math.min(units + BACKGROUND_RESERVE * rate(), rate()) - tokens;
+      if (missing > 0) {
+        return Math.max(1, nanosFor(missing));
+      }
+      tokens -= units;
+      return 0;
+    }
+
+    synchronized void take(double units) {
+      tokens -= units;
+    }
+
+    synchronized void throttled() {
+      refill();
+      rateFactor = Math.max(MIN_RATE_FACTOR, rateFactor / 2);
+      tokens = Math.min(tokens, 0);
+    }
+
+    synchronized double tokens() {
+      refill();
+      return tokens;
+    }
+
+    synchronized double rate() {
+      return maxRate * rateFactor;
+    }
+
+    private void refill() {
+      long nowNanos = ticker.read();
+      double elapsedSeconds = (double) (nowNanos - refilledAtNanos) / SECOND_NANOS;
+      refilledAtNanos = nowNanos;
+      tokens = Math.min(rate(), tokens + elapsedSeconds * rate());
+      rateFactor = Math.min(1, rateFactor + elapsedSeconds * RATE_RECOVERY_PER_SECOND);
+    }
+
+    private long nanosFor(double units) {
+      return (long) Math.ceil(units / rate() * SECOND_NANOS);
+    }
+  }
+}
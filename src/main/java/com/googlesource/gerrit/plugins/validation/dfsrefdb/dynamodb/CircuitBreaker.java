@@ -0,0 +1,242 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
+
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.DynamoDBMetrics.ERROR;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.DynamoDBMetrics.THROTTLED;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.flogger.FluentLogger;
+import com.google.gerrit.common.Nullable;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Stops sending requests to DynamoDB once too many of the recent ones failed or were slow, so that
+ * callers fail fast during an outage instead of waiting for requests bound to fail, and so that a
+ * throttled table is not sent more load.
+ *
+ * <p>The breaker opens when, over the last {@code circuitBreakerWindowSize} requests, the share of
+ * failed or slow requests reaches its threshold. Failures are the throttled requests and the ones
+ * that failed for any other reason than a failed condition. Once open, requests are rejected with
+ * {@link CircuitBreakerOpenException} for {@code circuitBreakerOpenDuration}. The breaker is then
+ * half-open: up to {@code circuitBreakerProbeCalls} requests are let through, and the breaker
+ * closes if they all succeed in time, or opens again otherwise.
+ *
+ * <p>Admitting and recording requests only uses atomic operations on the current {@link Phase}: the
+ * breaker is only locked to transition from a phase to the next one.
+ */
+@Singleton
+class CircuitBreaker {
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+  private static final int MIN_CALLS = 10;
+  private static final int FAILED = 1;
+  private static final int SLOW = 2;
+
+  enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  /** Thrown instead of sending a request to DynamoDB while the circuit breaker is open. */
+  static class CircuitBreakerOpenException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    CircuitBreakerOpenException() {
+      super("Requests to DynamoDB are suspended after too many recent failures");
+    }
+  }
+
+  private final boolean enabled;
+  private final int failureRate;
+  private final long slowCallNanos;
+  private final int slowCallRate;
+  private final long openNanos;
+  private final int probeCalls;
+  private final int windowSize;
+  private final Ticker ticker;
+  private final DynamoDBMetrics metrics;
+  // Replaced at each transition, so that outcomes of requests let through in a previous phase are
+  // ignored. Only replaced while holding the lock of this breaker.
+  private volatile Phase phase;
+
+  @Inject
+  CircuitBreaker(Configuration configuration, DynamoDBMetrics metrics) {
+    this(configuration, metrics, Ticker.systemTicker());
+  }
+
+  @VisibleForTesting
+  CircuitBreaker(Configuration configuration, DynamoDBMetrics metrics, Ticker ticker) {
+    this.enabled = configuration.isCircuitBreakerEnabled();
+    this.failureRate = configuration.getCircuitBreakerFailureRate();
+    this.slowCallNanos = configuration.getCircuitBreakerSlowCallDuration().toNanos();
+    this.slowCallRate = configuration.getCircuitBreakerSlowCallRate();
+    this.openNanos = configuration.getCircuitBreakerOpenDuration().toNanos();
+    this.probeCalls = configuration.getCircuitBreakerProbeCalls();
+    this.windowSize = configuration.getCircuitBreakerWindowSize();
+    this.ticker = ticker;
+    this.metrics = metrics;
+    this.phase = new Phase(State.CLOSED, ticker.read(), windowSize);
+  }
+
+  /**
+   * Sends the DynamoDB {@code request} unless the breaker is open, and records its outcome.
+   *
+   * @return the future of the request, or a future failed with {@link CircuitBreakerOpenException}
+   *     when the request was not sent.
+   */
+  <T> CompletableFuture<T> call(Supplier<CompletableFuture<T>> request) {
+    if (!enabled) {
+      return request.get();
+    }
+    Phase admittedPhase = tryAdmit();
+    if (admittedPhase == null) {
+      metrics.recordCircuitBreakerRejection();
+      return CompletableFuture.failedFuture(new CircuitBreakerOpenException());
+    }
+    long startNanos = ticker.read();
+    CompletableFuture<T> response;
+    try {
+      response = request.get();
+    } catch (RuntimeException e) {
+      record(admittedPhase, true, 0);
+      throw e;
+    }
+    return response.whenComplete(
+        (r, error) -> record(admittedPhase, isFailure(error), ticker.read() - startNanos));
+  }
+
+  /**
+   * Checks whether requests are currently rejected, without using up a probe of the half-open
+   * breaker. Meant for operations that do not go through {@link #call}, like ref locking.
+   */
+  boolean isOpen() {
+    if (!enabled) {
+      return false;
+    }
+    Phase current = phase;
+    return current.state == State.OPEN && ticker.read() - current.startNanos < openNanos;
+  }
+
+  @VisibleForTesting
+  State state() {
+    return phase.state;
+  }
+
+  /** Returns the phase the request is admitted in, or {@code null} if it is rejected. */
+  @Nullable
+  private Phase tryAdmit() {
+    Phase current = phase;
+    if (current.state == State.OPEN) {
+      if (ticker.read() - current.startNanos < openNanos) {
+        return null;
+      }
+      transition(current, State.HALF_OPEN);
+      current = phase;
+    }
+    if (current.state == State.HALF_OPEN
+        && current.admittedProbes.getAndIncrement() >= probeCalls) {
+      return null;
+    }
+    return current;
+  }
+
+  private void record(Phase admittedPhase, boolean failed, long latencyNanos) {
+    if (admittedPhase != phase) {
+      return;
+    }
+    boolean slow = latencyNanos >= slowCallNanos;
+    if (admittedPhase.state == State.HALF_OPEN) {
+      if (failed || slow) {
+        transition(admittedPhase, State.OPEN);
+      } else if (admittedPhase.succeededProbes.incrementAndGet() >= probeCalls) {
+        transition(admittedPhase, State.CLOSED);
+      }
+      return;
+    }
+
+    long call = admittedPhase.calls.getAndIncrement();
+    int outcome = (failed ? FAILED : 0) | (slow ? SLOW : 0);
+    int previousOutcome = admittedPhase.outcomes.getAndSet((int) (call % windowSize), outcome);
+    int failures =
+        admittedPhase.failures.addAndGet(count(outcome, FAILED) - count(previousOutcome, FAILED));
+    int slows = admittedPhase.slows.addAndGet(count(outcome, SLOW) - count(previousOutcome, SLOW));
+
+    int recorded = (int) Math.min(call + 1, windowSize);
+    if (recorded >= Math.min(MIN_CALLS, windowSize)
+        && (failures * 100 >= failureRate * recorded || slows * 100 >= slowCallRate * recorded)
+        && transition(admittedPhase, State.OPEN)) {
+      logger.atWarning().log(
+          "Suspending requests to DynamoDB for %s: %d failed and %d slow out of the last %d",
+          Duration.ofNanos(openNanos), failures, slows, recorded);
+    }
+  }
+
+  /**
+   * Moves from the {@code from} phase to a new phase in {@code newState}, unless a concurrent
+   * request already moved from it.
+   *
+   * @return whether this call moved from the {@code from} phase.
+   */
+  private synchronized boolean transition(Phase from, State newState) {
+    if (phase != from) {
+      return false;
+    }
+    if (newState == State.CLOSED) {
+      logger.atInfo().log("Resuming requests to DynamoDB");
+    }
+    phase = new Phase(newState, ticker.read(), windowSize);
+    metrics.recordCircuitBreakerTransition(newState.name().toLowerCase());
+    return true;
+  }
+
+  private static int count(int outcome, int flag) {
+    return (outcome & flag) != 0 ? 1 : 0;
+  }
+
+  private static boolean isFailure(Throwable error) {
+    String outcome = DynamoDBMetrics.outcomeOf(error);
+    return THROTTLED.equals(outcome) || ERROR.equals(outcome);
+  }
+
+  /**
+   * A state of the breaker, along with the outcomes of the requests admitted in it: the sliding
+   * window of the last outcomes while closed, and the probes while half-open.
+   */
+  private static class Phase {
+    final State state;
+    final long startNanos;
+    final AtomicLong calls = new AtomicLong();
+    final AtomicIntegerArray outcomes;
+    final AtomicInteger failures = new AtomicInteger();
+    final AtomicInteger slows = new AtomicInteger();
+    final AtomicInteger admittedProbes = new AtomicInteger();
+    final AtomicInteger succeededProbes = new AtomicInteger();
+
+    Phase(State state, long startNanos, int windowSize) {
+      this.state = state;
+      this.startNanos = startNanos;
+      this.outcomes = new AtomicIntegerArray(state == State.CLOSED ? windowSize : 0);
+    }
+  }
+}
@@ -0,0 +1,72 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
+
+import static java.util.Objects.requireNonNull;
+
+import com.google.common.base.MoreObjects;
+import java.util.Optional;
+
+/**
+ * Outcome of a compare-and-put operation.
+ *
+ * <p>When the conditional update is rejected, the value stored in DynamoDB at the time of the
+ * rejection is returned along with the failure, so that callers do not need to read the ref again
+ * to find out what it has been updated to.
+ */
+public final class CompareAndPutResult {
+  private static final CompareAndPutResult SUCCEEDED =
+      new CompareAndPutResult(true, Optional.empty());
+
+  private final boolean successful;
+  private final Optional<String> currentValue;
+
+  static CompareAndPutResult succeeded() {
+    return SUCCEEDED;
+  }
+
+  static CompareAndPutResult failed(Optional<String> currentValue) {
+    return new CompareAndPutResult(false, requireNonNull(currentValue));
+  }
+
+  private CompareAndPutResult(boolean successful, Optional<String> currentValue) {
+    this.successful = successful;
+    this.currentValue = currentValue;
+  }
+
+  /** Whether the ref has been updated. */
+  public boolean isSuccessful() {
+    return successful;
+  }
+
+  /**
+   * The value of the ref that made the update fail, in the same format as {@link
+   * DynamoDBRefDatabase#get}.
+   *
+   * @return the current value of the ref, or empty when the update succeeded or DynamoDB did not
+   *     return the stored value.
+   */
+  public Optional<String> currentValue() {
+    return currentValue;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("successful", successful)
+        .add("currentValue", currentValue.orElse(null))
+        .toString();
+  }
+}
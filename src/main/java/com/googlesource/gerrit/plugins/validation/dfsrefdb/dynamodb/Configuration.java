@@ -17,12 +17,18 @@ package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
 import com.google.common.base.Strings;
 import com.google.common.flogger.FluentLogger;
 import com.google.gerrit.extensions.annotations.PluginName;
+import com.google.gerrit.server.config.ConfigUtil;
 import com.google.gerrit.server.config.PluginConfig;
 import com.google.gerrit.server.config.PluginConfigFactory;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import java.net.URI;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import software.amazon.awssdk.core.retry.RetryMode;
 import software.amazon.awssdk.regions.Region;
 
 @Singleton
@@ -30,11 +36,107 @@ class Configuration {
   private static final FluentLogger logger = FluentLogger.forEnclosingClass();
   protected static final String DEFAULT_REFS_DB_TABLE_NAME = "refsDb";
   protected static final String DEFAULT_LOCKS_TABLE_NAME = "lockTable";
+  protected static final Duration DEFAULT_LOCK_LEASE_DURATION = Duration.ofSeconds(10);
+  protected static final Duration DEFAULT_LOCK_HEARTBEAT_PERIOD = Duration.ofSeconds(3);
+  protected static final Duration DEFAULT_LOCK_REFRESH_PERIOD = Duration.ofSeconds(1);
+  protected static final Duration DEFAULT_LOCK_MAX_WAIT = Duration.ofSeconds(1);
+  protected static final int DEFAULT_LOCK_MAX_ATTEMPTS = 1;
+  protected static final Duration DEFAULT_LOCK_BACKOFF_BASE = Duration.ofMillis(100);
+  protected static final Duration DEFAULT_LOCK_BACKOFF_MAX = Duration.ofSeconds(2);
+  protected static final int DEFAULT_MAX_CONNECTIONS = 50;
+  protected static final Duration DEFAULT_CONNECTION_ACQUISITION_TIMEOUT = Duration.ofSeconds(10);
+  protected static final Duration DEFAULT_CONNECTION_TIMEOUT = Duration.ofSeconds(2);
+  protected static final Duration DEFAULT_CONNECTION_MAX_IDLE_TIME = Duration.ofSeconds(60);
+  protected static final Duration DEFAULT_CHANGE_FEED_POLL_INTERVAL = Duration.ofMillis(500);
+  protected static final int DEFAULT_PROJECT_VERSION_WARM_UP_SEGMENTS = 4;
+  protected static final int DEFAULT_PROJECT_VERSION_WARM_UP_READ_CAPACITY = 100;
+  protected static final Duration DEFAULT_PROJECT_VERSION_WARM_UP_TIMEOUT = Duration.ofMinutes(2);
+  protected static final Duration DEFAULT_SWEEPER_INTERVAL = Duration.ofDays(1);
+  protected static final int DEFAULT_SWEEPER_SEGMENTS = 4;
+  protected static final int DEFAULT_SWEEPER_CAPACITY = 100;
+  protected static final int DEFAULT_HEDGED_READS_PERCENTILE = 95;
+  protected static final Duration DEFAULT_HEDGED_READS_MIN_DELAY = Duration.ofMillis(10);
+  protected static final int DEFAULT_HEDGED_READS_BUDGET = 5;
+  protected static final Duration DEFAULT_RETRY_BACKOFF_MAX = Duration.ofSeconds(20);
+  protected static final int DEFAULT_CIRCUIT_BREAKER_FAILURE_RATE = 50;
+  protected static final Duration DEFAULT_CIRCUIT_BREAKER_SLOW_CALL_DURATION =
+      Duration.ofSeconds(2);
+  protected static final int DEFAULT_CIRCUIT_BREAKER_SLOW_CALL_RATE = 80;
+  protected static final int DEFAULT_CIRCUIT_BREAKER_WINDOW_SIZE = 100;
+  protected static final Duration DEFAULT_CIRCUIT_BREAKER_OPEN_DURATION = Duration.ofSeconds(30);
+  protected static final int DEFAULT_CIRCUIT_BREAKER_PROBE_CALLS = 5;
+  protected static final int DEFAULT_CAPACITY_LIMITER_READ_UNITS = 10;
+  protected static final int DEFAULT_CAPACITY_LIMITER_WRITE_UNITS = 10;
+  protected static final int DEFAULT_PROJECT_USAGE_PROJECTS = 100;
+  protected static final int DEFAULT_HOT_REFS_THRESHOLD = 100;
+  protected static final int DEFAULT_HOT_REFS_WINDOW = 10_000;
+  protected static final Duration DEFAULT_HOT_REFS_CACHE_TTL = Duration.ofSeconds(1);
+  protected static final int DEFAULT_KNOWN_REFS_FALSE_POSITIVE_RATE = 1;
+  protected static final int DEFAULT_KNOWN_REFS_PROJECTS = 1000;
   private final Optional<Region> region;
   private final Optional<URI> endpoint;
   private final String refsDbTableName;
   private final String locksTableName;
+  private final RefsDbTableLayout refsDbTableLayout;
   private final Optional<String> awsConfigurationProfileName;
+  private final boolean refValueCacheEnabled;
+  private final RefValueFormat refValueFormat;
+  private final boolean eventuallyConsistentReads;
+  private final boolean hedgedReadsEnabled;
+  private final int hedgedReadsPercentile;
+  private final Duration hedgedReadsMinDelay;
+  private final int hedgedReadsBudget;
+  private final Optional<RetryMode> retryMode;
+  private final int retryMaxAttempts;
+  private final Duration retryBackoffBase;
+  private final Duration retryThrottlingBackoffBase;
+  private final Duration retryBackoffMax;
+  private final boolean circuitBreakerEnabled;
+  private final int circuitBreakerFailureRate;
+  private final Duration circuitBreakerSlowCallDuration;
+  private final int circuitBreakerSlowCallRate;
+  private final int circuitBreakerWindowSize;
+  private final Duration circuitBreakerOpenDuration;
+  private final int circuitBreakerProbeCalls;
+  private final boolean capacityLimiterEnabled;
+  private final int capacityLimiterReadUnits;
+  private final int capacityLimiterWriteUnits;
+  private final boolean projectUsageEnabled;
+  private final int projectUsageProjects;
+  private final boolean hotRefsEnabled;
+  private final int hotRefsThreshold;
+  private final int hotRefsWindow;
+  private final Duration hotRefsCacheTtl;
+  private final boolean knownRefsEnabled;
+  private final int knownRefsFalsePositiveRate;
+  private final int knownRefsProjects;
+  private final Duration lockLeaseDuration;
+  private final Duration lockHeartbeatPeriod;
+  private final Duration lockRefreshPeriod;
+  private final Duration lockMaxWait;
+  private final int lockMaxAttempts;
+  private final Duration lockBackoffBase;
+  private final Duration lockBackoffMax;
+  private final boolean lockFailFast;
+  private final int maxConnections;
+  private final Duration connectionAcquisitionTimeout;
+  private final Duration connectionTimeout;
+  private final Duration connectionTimeToLive;
+  private final Duration connectionMaxIdleTime;
+  private final boolean tcpKeepAlive;
+  private final Duration apiCallTimeout;
+  private final Duration apiCallAttemptTimeout;
+  private final boolean changeFeedEnabled;
+  private final Duration changeFeedPollInterval;
+  private final boolean projectVersionWarmUpEnabled;
+  private final int projectVersionWarmUpSegments;
+  private final int projectVersionWarmUpReadCapacity;
+  private final Duration projectVersionWarmUpTimeout;
+  private final boolean sweeperEnabled;
+  private final Duration sweeperInterval;
+  private final int sweeperSegments;
+  private final int sweeperCapacity;
+  private final Duration sweeperExpiry;
 
   @Inject
   Configuration(PluginConfigFactory configFactory, @PluginName String pluginName) {
@@ -45,11 +147,145 @@ class Configuration {
     // TODO: add prefix
     this.refsDbTableName = pluginConfig.getString("refsDbTableName", DEFAULT_REFS_DB_TABLE_NAME);
     this.locksTableName = pluginConfig.getString("locksTableName", DEFAULT_LOCKS_TABLE_NAME);
+    this.refsDbTableLayout = pluginConfig.getEnum("refsDbTableLayout", RefsDbTableLayout.FLAT);
     this.awsConfigurationProfileName = Optional.ofNullable(pluginConfig.getString("profileName"));
+    this.refValueCacheEnabled = pluginConfig.getBoolean("refValueCacheEnabled", false);
+    this.refValueFormat = pluginConfig.getEnum("refValueFormat", RefValueFormat.STRING);
+    this.eventuallyConsistentReads = pluginConfig.getBoolean("eventuallyConsistentReads", false);
+    this.hedgedReadsEnabled = pluginConfig.getBoolean("hedgedReadsEnabled", false);
+    this.hedgedReadsPercentile =
+        Math.min(
+            99,
+            Math.max(
+                1, pluginConfig.getInt("hedgedReadsPercentile", DEFAULT_HEDGED_READS_PERCENTILE)));
+    this.hedgedReadsMinDelay =
+        getDuration(pluginConfig, "hedgedReadsMinDelay", DEFAULT_HEDGED_READS_MIN_DELAY);
+    this.hedgedReadsBudget =
+        Math.min(
+            100,
+            Math.max(0, pluginConfig.getInt("hedgedReadsBudget", DEFAULT_HEDGED_READS_BUDGET)));
+    this.retryMode =
+        Optional.ofNullable(pluginConfig.getEnum(RetryMode.values(), "retryMode", null));
+    this.retryMaxAttempts = Math.max(0, pluginConfig.getInt("retryMaxAttempts", 0));
+    this.retryBackoffBase = getDuration(pluginConfig, "retryBackoffBase", Duration.ZERO);
+    this.retryThrottlingBackoffBase =
+        getDuration(pluginConfig, "retryThrottlingBackoffBase", Duration.ZERO);
+    this.retryBackoffMax = getDuration(pluginConfig, "retryBackoffMax", DEFAULT_RETRY_BACKOFF_MAX);
+    this.circuitBreakerEnabled = pluginConfig.getBoolean("circuitBreakerEnabled", false);
+    this.circuitBreakerFailureRate =
+        percentage(pluginConfig, "circuitBreakerFailureRate", DEFAULT_CIRCUIT_BREAKER_FAILURE_RATE);
+    this.circuitBreakerSlowCallDuration =
+        getDuration(
+            pluginConfig,
+            "circuitBreakerSlowCallDuration",
+            DEFAULT_CIRCUIT_BREAKER_SLOW_CALL_DURATION);
+    this.circuitBreakerSlowCallRate =
+        percentage(
+            pluginConfig, "circuitBreakerSlowCallRate", DEFAULT_CIRCUIT_BREAKER_SLOW_CALL_RATE);
+    this.circuitBreakerWindowSize =
+        Math.max(
+            1,
+            pluginConfig.getInt("circuitBreakerWindowSize", DEFAULT_CIRCUIT_BREAKER_WINDOW_SIZE));
+    this.circuitBreakerOpenDuration =
+        getDuration(
+            pluginConfig, "circuitBreakerOpenDuration", DEFAULT_CIRCUIT_BREAKER_OPEN_DURATION);
+    this.circuitBreakerProbeCalls =
+        Math.max(
+            1,
+            pluginConfig.getInt("circuitBreakerProbeCalls", DEFAULT_CIRCUIT_BREAKER_PROBE_CALLS));
+    this.capacityLimiterEnabled = pluginConfig.getBoolean("capacityLimiterEnabled", false);
+    this.capacityLimiterReadUnits =
+        Math.max(
+            1,
+            pluginConfig.getInt("capacityLimiterReadUnits", DEFAULT_CAPACITY_LIMITER_READ_UNITS));
+    this.capacityLimiterWriteUnits =
+        Math.max(
+            1,
+            pluginConfig.getInt("capacityLimiterWriteUnits", DEFAULT_CAPACITY_LIMITER_WRITE_UNITS));
+    this.projectUsageEnabled = pluginConfig.getBoolean("projectUsageEnabled", false);
+    this.projectUsageProjects =
+        Math.max(1, pluginConfig.getInt("projectUsageProjects", DEFAULT_PROJECT_USAGE_PROJECTS));
+    this.hotRefsEnabled = pluginConfig.getBoolean("hotRefsEnabled", false);
+    this.hotRefsThreshold =
+        Math.max(1, pluginConfig.getInt("hotRefsThreshold", DEFAULT_HOT_REFS_THRESHOLD));
+    this.hotRefsWindow = Math.max(1, pluginConfig.getInt("hotRefsWindow", DEFAULT_HOT_REFS_WINDOW));
+    this.hotRefsCacheTtl = getDuration(pluginConfig, "hotRefsCacheTtl", DEFAULT_HOT_REFS_CACHE_TTL);
+    this.knownRefsEnabled = pluginConfig.getBoolean("knownRefsEnabled", false);
+    this.knownRefsFalsePositiveRate =
+        Math.min(
+            50,
+            Math.max(
+                1,
+                pluginConfig.getInt(
+                    "knownRefsFalsePositiveRate", DEFAULT_KNOWN_REFS_FALSE_POSITIVE_RATE)));
+    this.knownRefsProjects =
+        Math.max(1, pluginConfig.getInt("knownRefsProjects", DEFAULT_KNOWN_REFS_PROJECTS));
+    this.lockLeaseDuration =
+        getDuration(pluginConfig, "lockLeaseDuration", DEFAULT_LOCK_LEASE_DURATION);
+    this.lockHeartbeatPeriod =
+        getDuration(pluginConfig, "lockHeartbeatPeriod", DEFAULT_LOCK_HEARTBEAT_PERIOD);
+    this.lockRefreshPeriod =
+        getDuration(pluginConfig, "lockRefreshPeriod", DEFAULT_LOCK_REFRESH_PERIOD);
+    this.lockMaxWait = getDuration(pluginConfig, "lockMaxWait", DEFAULT_LOCK_MAX_WAIT);
+    this.lockMaxAttempts =
+        Math.max(1, pluginConfig.getInt("lockMaxAttempts", DEFAULT_LOCK_MAX_ATTEMPTS));
+    this.lockBackoffBase = getDuration(pluginConfig, "lockBackoffBase", DEFAULT_LOCK_BACKOFF_BASE);
+    this.lockBackoffMax = getDuration(pluginConfig, "lockBackoffMax", DEFAULT_LOCK_BACKOFF_MAX);
+    this.lockFailFast = pluginConfig.getBoolean("lockFailFast", false);
+    this.maxConnections =
+        Math.max(1, pluginConfig.getInt("maxConnections", DEFAULT_MAX_CONNECTIONS));
+    this.connectionAcquisitionTimeout =
+        getDuration(
+            pluginConfig, "connectionAcquisitionTimeout", DEFAULT_CONNECTION_ACQUISITION_TIMEOUT);
+    this.connectionTimeout =
+        getDuration(pluginConfig, "connectionTimeout", DEFAULT_CONNECTION_TIMEOUT);
+    this.connectionTimeToLive = getDuration(pluginConfig, "connectionTimeToLive", Duration.ZERO);
+    this.connectionMaxIdleTime =
+        getDuration(pluginConfig, "connectionMaxIdleTime", DEFAULT_CONNECTION_MAX_IDLE_TIME);
+    this.tcpKeepAlive = pluginConfig.getBoolean("tcpKeepAlive", false);
+    this.apiCallTimeout = getDuration(pluginConfig, "apiCallTimeout", Duration.ZERO);
+    this.apiCallAttemptTimeout = getDuration(pluginConfig, "apiCallAttemptTimeout", Duration.ZERO);
+    this.changeFeedEnabled = pluginConfig.getBoolean("changeFeedEnabled", false);
+    this.changeFeedPollInterval =
+        Collections.max(
+            List.of(
+                Duration.ofMillis(1),
+                getDuration(
+                    pluginConfig, "changeFeedPollInterval", DEFAULT_CHANGE_FEED_POLL_INTERVAL)));
+    this.projectVersionWarmUpEnabled =
+        pluginConfig.getBoolean("projectVersionWarmUpEnabled", false);
+    this.projectVersionWarmUpSegments =
+        Math.max(
+            1,
+            pluginConfig.getInt(
+                "projectVersionWarmUpSegments", DEFAULT_PROJECT_VERSION_WARM_UP_SEGMENTS));
+    this.projectVersionWarmUpReadCapacity =
+        Math.max(
+            1,
+            pluginConfig.getInt(
+                "projectVersionWarmUpReadCapacity", DEFAULT_PROJECT_VERSION_WARM_UP_READ_CAPACITY));
+    this.projectVersionWarmUpTimeout =
+        getDuration(
+            pluginConfig, "projectVersionWarmUpTimeout", DEFAULT_PROJECT_VERSION_WARM_UP_TIMEOUT);
+    this.sweeperEnabled = pluginConfig.getBoolean("sweeperEnabled", false);
+    this.sweeperInterval =
+        Collections.max(
+            List.of(
+                Duration.ofMinutes(1),
+                getDuration(pluginConfig, "sweeperInterval", DEFAULT_SWEEPER_INTERVAL)));
+    this.sweeperSegments =
+        Math.max(1, pluginConfig.getInt("sweeperSegments", DEFAULT_SWEEPER_SEGMENTS));
+    this.sweeperCapacity =
+        Math.max(1, pluginConfig.getInt("sweeperCapacity", DEFAULT_SWEEPER_CAPACITY));
+    this.sweeperExpiry = getDuration(pluginConfig, "sweeperExpiry", Duration.ZERO);
     logger.atInfo().log(
-        "dynamodb-refdb configuration: refsDbTableName: %s|locksTableName:%s%s%s%s",
+        "dynamodb-refdb configuration: refsDbTableName: %s|refsDbTableLayout: %s|locksTableName:%s"
+            + "|refValueCacheEnabled: %s|refValueFormat: %s%s%s%s",
         refsDbTableName,
+        refsDbTableLayout,
         locksTableName,
+        refValueCacheEnabled,
+        refValueFormat,
         region.map(r -> String.format("|region: %s", r.id())).orElse(""),
         endpoint.map(e -> String.format("|endpoint: %s", e.toASCIIString())).orElse(""),
         awsConfigurationProfileName.map(p -> String.format("|profile: %s", p)).orElse(""));
@@ -63,6 +299,20 @@ class Configuration {
     return endpoint;
   }
 
+  private static Duration getDuration(
+      PluginConfig pluginConfig, String name, Duration defaultValue) {
+    String value = pluginConfig.getString(name);
+    if (Strings.isNullOrEmpty(value)) {
+      return defaultValue;
+    }
+    return Duration.ofMillis(
+        ConfigUtil.getTimeUnit(value, defaultValue.toMillis(), TimeUnit.MILLISECONDS));
+  }
+
+  private static int percentage(PluginConfig pluginConfig, String name, int defaultValue) {
+    return Math.min(100, Math.max(1, pluginConfig.getInt(name, defaultValue)));
+  }
+
   private static String getStringParam(PluginConfig pluginConfig, String name) {
     return Strings.isNullOrEmpty(System.getProperty(name))
         ? pluginConfig.getString(name)
@@ -73,6 +323,10 @@ class Configuration {
     return refsDbTableName;
   }
 
+  RefsDbTableLayout getRefsDbTableLayout() {
+    return refsDbTableLayout;
+  }
+
   String getLocksTableName() {
     return locksTableName;
   }
@@ -80,4 +334,240 @@ class Configuration {
   Optional<String> getAwsConfigurationProfileName() {
     return awsConfigurationProfileName;
   }
+
+  boolean isRefValueCacheEnabled() {
+    return refValueCacheEnabled;
+  }
+
+  RefValueFormat getRefValueFormat() {
+    return refValueFormat;
+  }
+
+  boolean isEventuallyConsistentReads() {
+    return eventuallyConsistentReads;
+  }
+
+  boolean isHedgedReadsEnabled() {
+    return hedgedReadsEnabled;
+  }
+
+  int getHedgedReadsPercentile() {
+    return hedgedReadsPercentile;
+  }
+
+  Duration getHedgedReadsMinDelay() {
+    return hedgedReadsMinDelay;
+  }
+
+  int getHedgedReadsBudget() {
+    return hedgedReadsBudget;
+  }
+
+  Optional<RetryMode> getRetryMode() {
+    return retryMode;
+  }
+
+  Optional<Integer> getRetryMaxAttempts() {
+    return retryMaxAttempts > 0 ? Optional.of(retryMaxAttempts) : Optional.empty();
+  }
+
+  Optional<Duration> getRetryBackoffBase() {
+    return positive(retryBackoffBase);
+  }
+
+  Optional<Duration> getRetryThrottlingBackoffBase() {
+    return positive(retryThrottlingBackoffBase);
+  }
+
+  Duration getRetryBackoffMax() {
+    return retryBackoffMax;
+  }
+
+  boolean isCircuitBreakerEnabled() {
+    return circuitBreakerEnabled;
+  }
+
+  int getCircuitBreakerFailureRate() {
+    return circuitBreakerFailureRate;
+  }
+
+  Duration getCircuitBreakerSlowCallDuration() {
+    return circuitBreakerSlowCallDuration;
+  }
+
+  int getCircuitBreakerSlowCallRate() {
+    return circuitBreakerSlowCallRate;
+  }
+
+  int getCircuitBreakerWindowSize() {
+    return circuitBreakerWindowSize;
+  }
+
+  Duration getCircuitBreakerOpenDuration() {
+    return circuitBreakerOpenDuration;
+  }
+
+  int getCircuitBreakerProbeCalls() {
+    return circuitBreakerProbeCalls;
+  }
+
+  boolean isCapacityLimiterEnabled() {
+    return capacityLimiterEnabled;
+  }
+
+  int getCapacityLimiterReadUnits() {
+    return capacityLimiterReadUnits;
+  }
+
+  int getCapacityLimiterWriteUnits() {
+    return capacityLimiterWriteUnits;
+  }
+
+  boolean isProjectUsageEnabled() {
+    return projectUsageEnabled;
+  }
+
+  int getProjectUsageProjects() {
+    return projectUsageProjects;
+  }
+
+  boolean isHotRefsEnabled() {
+    return hotRefsEnabled;
+  }
+
+  int getHotRefsThreshold() {
+    return hotRefsThreshold;
+  }
+
+  int getHotRefsWindow() {
+    return hotRefsWindow;
+  }
+
+  Duration getHotRefsCacheTtl() {
+    return hotRefsCacheTtl;
+  }
+
+  boolean isKnownRefsEnabled() {
+    return knownRefsEnabled;
+  }
+
+  int getKnownRefsFalsePositiveRate() {
+    return knownRefsFalsePositiveRate;
+  }
+
+  int getKnownRefsProjects() {
+    return knownRefsProjects;
+  }
+
+  Duration getLockLeaseDuration() {
+    return lockLeaseDuration;
+  }
+
+  Duration getLockHeartbeatPeriod() {
+    return lockHeartbeatPeriod;
+  }
+
+  Duration getLockRefreshPeriod() {
+    return lockRefreshPeriod;
+  }
+
+  Duration getLockMaxWait() {
+    return lockMaxWait;
+  }
+
+  int getLockMaxAttempts() {
+    return lockMaxAttempts;
+  }
+
+  Duration getLockBackoffBase() {
+    return lockBackoffBase;
+  }
+
+  Duration getLockBackoffMax() {
+    return lockBackoffMax;
+  }
+
+  boolean isLockFailFast() {
+    return lockFailFast;
+  }
+
+  int getMaxConnections() {
+    return maxConnections;
+  }
+
+  Duration getConnectionAcquisitionTimeout() {
+    return connectionAcquisitionTimeout;
+  }
+
+  Duration getConnectionTimeout() {
+    return connectionTimeout;
+  }
+
+  Duration getConnectionTimeToLive() {
+    return connectionTimeToLive;
+  }
+
+  Duration getConnectionMaxIdleTime() {
+    return connectionMaxIdleTime;
+  }
+
+  boolean isTcpKeepAlive() {
+    return tcpKeepAlive;
+  }
+
+  Optional<Duration> getApiCallTimeout() {
+    return positive(apiCallTimeout);
+  }
+
+  Optional<Duration> getApiCallAttemptTimeout() {
+    return positive(apiCallAttemptTimeout);
+  }
+
+  boolean isChangeFeedEnabled() {
+    return changeFeedEnabled;
+  }
+
+  Duration getChangeFeedPollInterval() {
+    return changeFeedPollInterval;
+  }
+
+  boolean isProjectVersionWarmUpEnabled() {
+    return projectVersionWarmUpEnabled;
+  }
+
+  int getProjectVersionWarmUpSegments() {
+    return projectVersionWarmUpSegments;
+  }
+
+  int getProjectVersionWarmUpReadCapacity() {
+    return projectVersionWarmUpReadCapacity;
+  }
+
+  Duration getProjectVersionWarmUpTimeout() {
+    return projectVersionWarmUpTimeout;
+  }
+
+  boolean isSweeperEnabled() {
+    return sweeperEnabled;
+  }
+
+  Duration getSweeperInterval() {
+    return sweeperInterval;
+  }
+
+  int getSweeperSegments() {
+    return sweeperSegments;
+  }
+
+  int getSweeperCapacity() {
+    return sweeperCapacity;
+  }
+
+  Optional<Duration> getSweeperExpiry() {
+    return positive(sweeperExpiry);
+  }
+
+  private static Optional<Duration> positive(Duration duration) {
+    return duration.isZero() || duration.isNegative() ? Optional.empty() : Optional.of(duration);
+  }
 }
@@ -2,13 +2,15 @@ package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
 
 import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.DynamoDBRefDatabase.LOCK_DB_PRIMARY_KEY;
 import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.DynamoDBRefDatabase.LOCK_DB_SORT_KEY;
-import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.DynamoDBRefDatabase.REF_DB_PRIMARY_KEY;
+import static java.util.stream.Collectors.toList;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.flogger.FluentLogger;
 import com.google.gerrit.extensions.events.LifecycleListener;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import java.util.List;
+import java.util.Optional;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.AttributeDefinition;
 import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
@@ -18,18 +20,36 @@ import software.amazon.awssdk.services.dynamodb.model.KeyType;
 import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughput;
 import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
 import software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType;
+import software.amazon.awssdk.services.dynamodb.model.StreamSpecification;
+import software.amazon.awssdk.services.dynamodb.model.StreamViewType;
+import software.amazon.awssdk.services.dynamodb.model.TableDescription;
+import software.amazon.awssdk.services.dynamodb.model.UpdateTableRequest;
 import software.amazon.awssdk.services.dynamodb.waiters.DynamoDbWaiter;
 
 @Singleton
 class DynamoDBLifeCycleManager implements LifecycleListener {
   private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+  // The change feed only needs the keys of the changed items.
+  private static final StreamSpecification STREAM_SPECIFICATION =
+      StreamSpecification.builder()
+          .streamEnabled(true)
+          .streamViewType(StreamViewType.KEYS_ONLY)
+          .build();
   private final Configuration configuration;
   private final DynamoDbClient dynamoDbClient;
+  private final ProjectVersionCacheWarmer projectVersionCacheWarmer;
+  private final ProjectVersionCacheValidator projectVersionCacheValidator;
 
   @Inject
-  DynamoDBLifeCycleManager(Configuration configuration, DynamoDbClient dynamoDbClient) {
+  DynamoDBLifeCycleManager(
+      Configuration configuration,
+      DynamoDbClient dynamoDbClient,
+      ProjectVersionCacheWarmer projectVersionCacheWarmer,
+      ProjectVersionCacheValidator projectVersionCacheValidator) {
     this.configuration = configuration;
     this.dynamoDbClient = dynamoDbClient;
+    this.projectVersionCacheWarmer = projectVersionCacheWarmer;
+    this.projectVersionCacheValidator = projectVersionCacheValidator;
   }
 
   // TODO: it is useful to create these at start up during development
@@ -40,6 +60,17 @@ class DynamoDBLifeCycleManager implements LifecycleListener {
   public void start() {
     createLockTableIfDoesntExist();
     createRefsDbTableIfDoesntExist();
+    // With the change feed, the ProjectVersionCacheInvalidator checks the persisted versions, or
+    // warms the cache up, once it follows the feed, so that the versions changed meanwhile are
+    // not missed.
+    if (configuration.isChangeFeedEnabled()) {
+      return;
+    }
+    if (configuration.isProjectVersionWarmUpEnabled()) {
+      projectVersionCacheWarmer.warmUp();
+    } else {
+      projectVersionCacheValidator.validateInBackground();
+    }
   }
 
   @Override
@@ -100,26 +131,40 @@ class DynamoDBLifeCycleManager implements LifecycleListener {
 
   private void createRefsDbTableIfDoesntExist() {
     String tableName = configuration.getRefsDbTableName();
-    if (tableExists(dynamoDbClient, tableName)) {
+    RefsDbTableLayout layout = configuration.getRefsDbTableLayout();
+    Optional<TableDescription> existingTable = describeTable(dynamoDbClient, tableName);
+    if (existingTable.isPresent()) {
+      List<KeySchemaElement> keySchema = existingTable.get().keySchema();
+      if (!keySchema.equals(layout.keySchema())) {
+        throw new IllegalStateException(
+            String.format(
+                "RefsDb table '%s' has key schema %s, which does not match the %s layout %s",
+                tableName, keySchema, layout, layout.keySchema()));
+      }
       logger.atFine().log("RefsDb table '%s' already exists, nothing to do.", tableName);
+      if (configuration.isChangeFeedEnabled() && !hasStream(existingTable.get())) {
+        enableStream(tableName);
+      }
       return;
     }
 
-    logger.atInfo().log("Attempting to create refsDb table '%s'", tableName);
+    logger.atInfo().log("Attempting to create refsDb table '%s' with %s layout", tableName, layout);
     try {
       CreateTableRequest request =
           CreateTableRequest.builder()
               .tableName(tableName)
               .attributeDefinitions(
-                  AttributeDefinition.builder()
-                      .attributeName(REF_DB_PRIMARY_KEY)
-                      .attributeType(ScalarAttributeType.S)
-                      .build())
-              .keySchema(
-                  KeySchemaElement.builder()
-                      .attributeName(REF_DB_PRIMARY_KEY)
-                      .keyType(KeyType.HASH)
-                      .build())
+                  layout.keyAttributes().stream()
+                      .map(
+                          attributeName ->
+                              AttributeDefinition.builder()
+                                  .attributeName(attributeName)
+                                  .attributeType(ScalarAttributeType.S)
+                                  .build())
+                      .collect(toList()))
+              .keySchema(layout.keySchema())
+              .streamSpecification(
+                  configuration.isChangeFeedEnabled() ? STREAM_SPECIFICATION : null)
               .provisionedThroughput(
                   ProvisionedThroughput.builder()
                       .readCapacityUnits(10L)
@@ -140,13 +185,39 @@ class DynamoDBLifeCycleManager implements LifecycleListener {
     }
   }
 
+  private void enableStream(String tableName) {
+    logger.atInfo().log("Enabling the stream of refsDb table '%s'", tableName);
+    try {
+      dynamoDbClient.updateTable(
+          UpdateTableRequest.builder()
+              .tableName(tableName)
+              .streamSpecification(STREAM_SPECIFICATION)
+              .build());
+    } catch (Exception e) {
+      logger.atSevere().withCause(e).log(
+          "Failed to enable the stream of refsDb table '%s'", tableName);
+    }
+  }
+
+  private static boolean hasStream(TableDescription table) {
+    return table.streamSpecification() != null
+        && Boolean.TRUE.equals(table.streamSpecification().streamEnabled());
+  }
+
   @VisibleForTesting
   static boolean tableExists(DynamoDbClient dynamoDbClient, String tableName) {
+    return describeTable(dynamoDbClient, tableName).isPresent();
+  }
+
+  private static Optional<TableDescription> describeTable(
+      DynamoDbClient dynamoDbClient, String tableName) {
     try {
-      dynamoDbClient.describeTable(DescribeTableRequest.builder().tableName(tableName).build());
-      return true;
+      return Optional.of(
+          dynamoDbClient
+              .describeTable(DescribeTableRequest.builder().tableName(tableName).build())
+              .table());
     } catch (ResourceNotFoundException e) {
-      return false;
+      return Optional.empty();
     }
   }
 }
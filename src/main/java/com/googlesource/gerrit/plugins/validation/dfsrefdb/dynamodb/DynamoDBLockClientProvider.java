@@ -44,9 +44,9 @@ class DynamoDBLockClientProvider implements Provider<AmazonDynamoDBLockClient> {
         AmazonDynamoDBLockClientOptions.builder(dynamoDbClient, configuration.getLocksTableName())
             .withPartitionKeyName(LOCK_DB_PRIMARY_KEY)
             .withSortKeyName(LOCK_DB_SORT_KEY)
-            .withTimeUnit(TimeUnit.SECONDS)
-            .withLeaseDuration(10L)
-            .withHeartbeatPeriod(3L)
+            .withTimeUnit(TimeUnit.MILLISECONDS)
+            .withLeaseDuration(configuration.getLockLeaseDuration().toMillis())
+            .withHeartbeatPeriod(configuration.getLockHeartbeatPeriod().toMillis())
             .withCreateHeartbeatBackgroundThread(createHeartbeatBackgroundThread)
             .build());
   }
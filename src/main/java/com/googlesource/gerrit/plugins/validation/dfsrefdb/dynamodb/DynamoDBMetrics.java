@@ -0,0 +1,303 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.gerrit.metrics.Counter0;
+import com.google.gerrit.metrics.Counter1;
+import com.google.gerrit.metrics.Counter2;
+import com.google.gerrit.metrics.Description;
+import com.google.gerrit.metrics.Field;
+import com.google.gerrit.metrics.MetricMaker;
+import com.google.gerrit.metrics.Timer0;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+
+@Singleton
+class DynamoDBMetrics {
+  static final String GET_ITEM = "get_item";
+  static final String BATCH_GET_ITEM = "batch_get_item";
+  static final String COMPARE_AND_PUT = "compare_and_put";
+  static final String TRANSACT_COMPARE_AND_PUT = "transact_compare_and_put";
+  static final String PUT = "put";
+  static final String QUERY = "query";
+  static final String LOCK = "lock";
+
+  static final String SUCCESS = "success";
+  static final String CONDITIONAL_CHECK_FAILED = "conditional_check_failed";
+  static final String THROTTLED = "throttled";
+  static final String ERROR = "error";
+
+  private final ImmutableMap<String, Timer0> operationLatency;
+  private final Counter2<String, String> operationCount;
+  private final Counter1<String> sdkRetries;
+  private final Counter1<String> sdkThrottledAttempts;
+  private final Timer0 lockWaitTime;
+  private final Timer0 lockHoldTime;
+  private final Counter1<String> projectVersionCacheLookups;
+  private final Counter1<String> projectVersionCacheRefreshes;
+  private final Counter0 sweptRefs;
+  private final Counter1<String> eventuallyConsistentReads;
+  private final Counter1<String> hedgedReads;
+  private final Counter1<String> circuitBreakerTransitions;
+  private final Counter0 circuitBreakerRejections;
+  private final Counter0 coalescedReads;
+  private final Counter0 absentRefs;
+
+  @Inject
+  DynamoDBMetrics(MetricMaker metricMaker) {
+    Field<String> operationField =
+        Field.ofString("operation", Field.ignoreMetadata())
+            .description("The refdb operation performed against DynamoDB")
+            .build();
+    Field<String> apiField =
+        Field.ofString("api", Field.ignoreMetadata())
+            .description("The DynamoDB API called by the AWS SDK")
+            .build();
+
+    // One timer per operation rather than a timer with an operation field: recording a timer
+    // with fields builds its logging metadata at every call, on the hottest paths of the refdb.
+    ImmutableMap.Builder<String, Timer0> operationLatency = ImmutableMap.builder();
+    for (String operation :
+        List.of(GET_ITEM, BATCH_GET_ITEM, COMPARE_AND_PUT, TRANSACT_COMPARE_AND_PUT, PUT, QUERY)) {
+      operationLatency.put(
+          operation,
+          metricMaker.newTimer(
+              "operation_latency/" + operation,
+              new Description(
+                      "Latency of the " + operation + " operations performed against DynamoDB")
+                  .setCumulative()
+                  .setUnit(Description.Units.MILLISECONDS)));
+    }
+    this.operationLatency = operationLatency.build();
+    this.operationCount =
+        metricMaker.newCounter(
+            "operation_count",
+            new Description("Number of refdb operations performed against DynamoDB, by outcome")
+                .setRate()
+                .setUnit("operations"),
+            operationField,
+            Field.ofString("outcome", Field.ignoreMetadata())
+                .description(
+                    "success, conditional_check_failed, throttled or error for any other failure")
+                .build());
+    this.sdkRetries =
+        metricMaker.newCounter(
+            "sdk_retries",
+            new Description("Number of requests retried by the AWS SDK")
+                .setRate()
+                .setUnit("retries"),
+            apiField);
+    this.sdkThrottledAttempts =
+        metricMaker.newCounter(
+            "sdk_throttled_attempts",
+            new Description("Number of request attempts throttled by DynamoDB")
+                .setRate()
+                .setUnit("attempts"),
+            apiField);
+    this.lockWaitTime =
+        metricMaker.newTimer(
+            "lock_wait_time",
+            new Description("Time spent waiting to acquire a ref lock")
+                .setCumulative()
+                .setUnit(Description.Units.MILLISECONDS));
+    this.lockHoldTime =
+        metricMaker.newTimer(
+            "lock_hold_time",
+            new Description("Time a ref lock was held before being released")
+                .setCumulative()
+                .setUnit(Description.Units.MILLISECONDS));
+    this.projectVersionCacheLookups =
+        metricMaker.newCounter(
+            "project_version_cache_lookups",
+            new Description("Number of project version lookups, by cache hit or miss")
+                .setRate()
+                .setUnit("lookups"),
+            Field.ofString("result", Field.ignoreMetadata()).description("hit or miss").build());
+    this.projectVersionCacheRefreshes =
+        metricMaker.newCounter(
+            "project_version_cache_refreshes",
+            new Description("Number of background refreshes of cached project versions, by outcome")
+                .setRate()
+                .setUnit("refreshes"),
+            Field.ofString("result", Field.ignoreMetadata())
+                .description("success or failure, when the stale version is kept")
+                .build());
+    this.sweptRefs =
+        metricMaker.newCounter(
+            "swept_refs",
+            new Description("Number of superseded refs deleted or set to expire by the sweeper")
+                .setRate()
+                .setUnit("refs"));
+    this.eventuallyConsistentReads =
+        metricMaker.newCounter(
+            "eventually_consistent_reads",
+            new Description("Number of refs read with an eventually consistent read, by result")
+                .setRate()
+                .setUnit("refs"),
+            Field.ofString("result", Field.ignoreMetadata())
+                .description("confirmed, or fallback when read again with a consistent read")
+                .build());
+    this.hedgedReads =
+        metricMaker.newCounter(
+            "hedged_reads",
+            new Description("Number of hedged GetItem requests sent, by result")
+                .setRate()
+                .setUnit("requests"),
+            Field.ofString("result", Field.ignoreMetadata())
+                .description("won when answering before the original request, lost otherwise")
+                .build());
+    this.circuitBreakerTransitions =
+        metricMaker.newCounter(
+            "circuit_breaker_transitions",
+            new Description("Number of transitions of the DynamoDB circuit breaker, by new state")
+                .setRate()
+                .setUnit("transitions"),
+            Field.ofString("state", Field.ignoreMetadata())
+                .description("open, half_open or closed")
+                .build());
+    this.circuitBreakerRejections =
+        metricMaker.newCounter(
+            "circuit_breaker_rejections",
+            new Description("Number of DynamoDB requests rejected by the open circuit breaker")
+                .setRate()
+                .setUnit("requests"));
+    this.coalescedReads =
+        metricMaker.newCounter(
+            "coalesced_reads",
+            new Description("Number of reads of hot refs answered by a read already in flight")
+                .setRate()
+                .setUnit("reads"));
+    this.absentRefs =
+        metricMaker.newCounter(
+            "known_refs_absent",
+            new Description("Number of refs found absent by the known refs filters, without a read")
+                .setRate()
+                .setUnit("refs"));
+  }
+
+  /**
+   * Runs the asynchronous DynamoDB {@code operation}, recording its latency and outcome once the
+   * returned future completes.
+   */
+  <T> CompletableFuture<T> time(String operation, Supplier<CompletableFuture<T>> request) {
+    long startNanos = System.nanoTime();
+    return request
+        .get()
+        .whenComplete(
+            (response, error) -> {
+              operationLatency
+                  .get(operation)
+                  .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+              operationCount.increment(operation, outcomeOf(error));
+            });
+  }
+
+  void recordLockAcquired(long waitNanos) {
+    lockWaitTime.record(waitNanos, TimeUnit.NANOSECONDS);
+    operationCount.increment(LOCK, SUCCESS);
+  }
+
+  void recordLockFailed(long waitNanos) {
+    lockWaitTime.record(waitNanos, TimeUnit.NANOSECONDS);
+    operationCount.increment(LOCK, ERROR);
+  }
+
+  void recordLockReleased(long holdNanos) {
+    lockHoldTime.record(holdNanos, TimeUnit.NANOSECONDS);
+  }
+
+  void recordSdkRetries(String api, int retries) {
+    sdkRetries.incrementBy(api, retries);
+  }
+
+  void recordSdkThrottledAttempt(String api) {
+    sdkThrottledAttempts.increment(api);
+  }
+
+  void recordProjectVersionCacheLookup(boolean hit) {
+    projectVersionCacheLookups.increment(hit ? "hit" : "miss");
+  }
+
+  void recordProjectVersionCacheRefresh(boolean succeeded) {
+    projectVersionCacheRefreshes.increment(succeeded ? "success" : "failure");
+  }
+
+  void recordSweptRefs(int refs) {
+    sweptRefs.incrementBy(refs);
+  }
+
+  void recordEventuallyConsistentReads(int confirmed, int fallbacks) {
+    if (confirmed > 0) {
+      eventuallyConsistentReads.incrementBy("confirmed", confirmed);
+    }
+    if (fallbacks > 0) {
+      eventuallyConsistentReads.incrementBy("fallback", fallbacks);
+    }
+  }
+
+  void recordHedgedRead(boolean won) {
+    hedgedReads.increment(won ? "won" : "lost");
+  }
+
+  void recordCircuitBreakerTransition(String state) {
+    circuitBreakerTransitions.increment(state);
+  }
+
+  void recordCircuitBreakerRejection() {
+    circuitBreakerRejections.increment();
+  }
+
+  void recordCoalescedRead() {
+    coalescedReads.increment();
+  }
+
+  void recordAbsentRef() {
+    absentRefs.increment();
+  }
+
+  static String outcomeOf(Throwable error) {
+    if (error == null) {
+      return SUCCESS;
+    }
+    Throwable cause =
+        error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    if (cause instanceof ConditionalCheckFailedException) {
+      return CONDITIONAL_CHECK_FAILED;
+    }
+    if (cause instanceof TransactionCanceledException) {
+      for (CancellationReason reason :
+          ((TransactionCanceledException) cause).cancellationReasons()) {
+        if ("ConditionalCheckFailed".equals(reason.code())) {
+          return CONDITIONAL_CHECK_FAILED;
+        }
+      }
+    }
+    if (cause instanceof AwsServiceException
+        && ((AwsServiceException) cause).isThrottlingException()) {
+      return THROTTLED;
+    }
+    return ERROR;
+  }
+}
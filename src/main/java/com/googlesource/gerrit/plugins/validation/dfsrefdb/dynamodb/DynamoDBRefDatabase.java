@@ -14,317 +14,1628 @@
 
 package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.DynamoDBMetrics.BATCH_GET_ITEM;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.DynamoDBMetrics.COMPARE_AND_PUT;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.DynamoDBMetrics.GET_ITEM;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.DynamoDBMetrics.PUT;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.DynamoDBMetrics.QUERY;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.DynamoDBMetrics.TRANSACT_COMPARE_AND_PUT;
 import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.ProjectVersionCacheModule.PROJECT_VERSION_CACHE;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
 
 import com.amazonaws.services.dynamodbv2.AcquireLockOptions;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDBLockClient;
 import com.amazonaws.services.dynamodbv2.LockItem;
+import com.amazonaws.services.dynamodbv2.model.LockCurrentlyUnavailableException;
 import com.amazonaws.services.dynamodbv2.model.LockNotGrantedException;
 import com.gerritforge.gerrit.globalrefdb.ExtendedGlobalRefDatabase;
 import com.gerritforge.gerrit.globalrefdb.GlobalRefDbLockException;
 import com.gerritforge.gerrit.globalrefdb.GlobalRefDbSystemError;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Iterables;
 import com.google.common.flogger.FluentLogger;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import com.google.gerrit.common.Nullable;
 import com.google.gerrit.entities.Project;
 import com.google.gerrit.entities.Project.NameKey;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.google.inject.name.Named;
+import com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.CapacityLimiter.Capacity;
+import com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.CapacityLimiter.Priority;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ExecutionException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
 import javax.inject.Singleton;
+import org.eclipse.jgit.lib.AnyObjectId;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.transport.ReceiveCommand;
+import software.amazon.awssdk.core.exception.SdkClientException;
 import software.amazon.awssdk.core.exception.SdkException;
-import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
 import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
 import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
 import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValuesOnConditionCheckFailure;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+import software.amazon.awssdk.services.dynamodb.model.Update;
 import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
 
 @Singleton
 public class DynamoDBRefDatabase implements ExtendedGlobalRefDatabase {
 
   public static final String REF_DB_PRIMARY_KEY = "refPath";
+  public static final String REF_DB_PARTITION_KEY = "projectPath";
+  public static final String REF_DB_SORT_KEY = "refName";
   public static final String REF_DB_VALUE_KEY = "refValue";
 
   public static final String LOCK_DB_PRIMARY_KEY = "lockKey";
   public static final String LOCK_DB_SORT_KEY = "lockValue";
 
+  /** Maximum number of keys DynamoDB accepts in a single {@code BatchGetItem} request. */
+  static final int BATCH_GET_MAX_KEYS = 100;
+
+  /** Maximum number of items DynamoDB accepts in a single {@code TransactWriteItems} request. */
+  static final int TRANSACT_WRITE_MAX_ITEMS = 100;
+
+  private static final String OLD_VALUE = ":old_value";
+  private static final String OLD_BINARY_VALUE = ":old_binary_value";
+  private static final String NEW_VALUE = ":new_value";
+  private static final String PARTITION = ":partition";
+  private static final String PARTITION_KEY_CONDITION_EXPRESSION =
+      REF_DB_PARTITION_KEY + " = " + PARTITION;
+  private static final String SET_REF_VALUE_EXPRESSION =
+      "SET " + REF_DB_VALUE_KEY + " = " + NEW_VALUE;
+  private static final String COMPARE_AND_PUT_CONDITION_EXPRESSION =
+      "attribute_not_exists(" + REF_DB_VALUE_KEY + ") OR " + REF_DB_VALUE_KEY + " = " + OLD_VALUE;
+  // ObjectIds may have been stored in either RefValueFormat, the expected one matches both.
+  private static final String COMPARE_AND_PUT_OBJECT_ID_CONDITION_EXPRESSION =
+      COMPARE_AND_PUT_CONDITION_EXPRESSION + " OR " + REF_DB_VALUE_KEY + " = " + OLD_BINARY_VALUE;
+  private static final String CONDITIONAL_CHECK_FAILED = "ConditionalCheckFailed";
+  private static final String NO_CANCELLATION = "None";
+
+  private static final int BATCH_GET_MAX_ATTEMPTS = 8;
+  private static final ExponentialBackoff BATCH_GET_BACKOFF =
+      new ExponentialBackoff(Duration.ofMillis(50), Duration.ofSeconds(2));
+
   private static final FluentLogger logger = FluentLogger.forEnclosingClass();
   private final AmazonDynamoDBLockClient lockClient;
-  private final DynamoDbClient dynamoDBClient;
+  private final DynamoDbAsyncClient dynamoDBClient;
   private final Configuration configuration;
   private final LoadingCache<String, Optional<Integer>> projectVersionCache;
+  private final ProjectVersionCacheLoader projectVersionCacheLoader;
+  private final RefValueCache refValueCache;
+  private final LocalRefLocks localRefLocks;
+  private final LocalRefWrites localRefWrites;
+  private final HedgedReads hedgedReads;
+  private final CircuitBreaker circuitBreaker;
+  private final CapacityLimiter capacityLimiter;
+  private final ProjectUsageTracker projectUsageTracker;
+  private final HotRefs hotRefs;
+  private final KnownRefs knownRefs;
+  private final DynamoDBMetrics metrics;
+  private final Duration localLockTimeout;
+  private final ExponentialBackoff lockBackoff;
+  private final String refsDbTableName;
+  private final RefValueFormat refValueFormat;
+  private final RefsDbTableLayout refsDbTableLayout;
+  private final boolean eventuallyConsistentReads;
 
   @Inject
   DynamoDBRefDatabase(
       AmazonDynamoDBLockClient lockClient,
-      DynamoDbClient dynamoDBClient,
+      DynamoDbAsyncClient dynamoDBClient,
       Configuration configuration,
-      @Named(PROJECT_VERSION_CACHE) LoadingCache<String, Optional<Integer>> projectVersionCache) {
+      @Named(PROJECT_VERSION_CACHE) LoadingCache<String, Optional<Integer>> projectVersionCache,
+      ProjectVersionCacheLoader projectVersionCacheLoader,
+      RefValueCache refValueCache,
+      LocalRefLocks localRefLocks,
+      LocalRefWrites localRefWrites,
+      HedgedReads hedgedReads,
+      CircuitBreaker circuitBreaker,
+      CapacityLimiter capacityLimiter,
+      ProjectUsageTracker projectUsageTracker,
+      HotRefs hotRefs,
+      KnownRefs knownRefs,
+      DynamoDBMetrics metrics) {
     this.lockClient = lockClient;
     this.dynamoDBClient = dynamoDBClient;
     this.configuration = configuration;
     this.projectVersionCache = projectVersionCache;
+    this.projectVersionCacheLoader = projectVersionCacheLoader;
+    this.refValueCache = refValueCache;
+    this.localRefLocks = localRefLocks;
+    this.localRefWrites = localRefWrites;
+    this.hedgedReads = hedgedReads;
+    this.circuitBreaker = circuitBreaker;
+    this.capacityLimiter = capacityLimiter;
+    this.projectUsageTracker = projectUsageTracker;
+    this.hotRefs = hotRefs;
+    this.knownRefs = knownRefs;
+    this.metrics = metrics;
+    this.localLockTimeout =
+        configuration.getLockLeaseDuration().plus(configuration.getLockMaxWait());
+    this.lockBackoff =
+        new ExponentialBackoff(
+            configuration.getLockBackoffBase(), configuration.getLockBackoffMax());
+
+    this.refsDbTableName = configuration.getRefsDbTableName();
+    this.refValueFormat = configuration.getRefValueFormat();
+    this.refsDbTableLayout = configuration.getRefsDbTableLayout();
+    this.eventuallyConsistentReads = configuration.isEventuallyConsistentReads();
   }
 
-  String pathFor(Project.NameKey projectName, String refName) {
-    return versionPrefix(getCurrentVersion(projectName)) + "/" + projectName + "/" + refName;
+  /** Returns the name of {@code projectName} qualified by its current version, if any. */
+  String partitionFor(Project.NameKey projectName) {
+    return join(partitionForAsync(projectName));
   }
 
-  static String currentVersionKey(Project.NameKey projectName) {
-    return "|" + projectName;
+  /**
+   * Non-blocking variant of {@link #partitionFor(Project.NameKey)}, which only reads the project
+   * version from DynamoDB when it is not cached.
+   */
+  CompletableFuture<String> partitionForAsync(Project.NameKey projectName) {
+    return getCurrentVersionAsync(projectName)
+        .thenApply(
+            version -> version != null ? "|" + version + "/" + projectName : "/" + projectName);
+  }
+
+  RefsDbKey keyFor(Project.NameKey projectName, String refName) {
+    return join(keyForAsync(projectName, refName));
+  }
+
+  CompletableFuture<RefsDbKey> keyForAsync(Project.NameKey projectName, String refName) {
+    return partitionForAsync(projectName).thenApply(partition -> RefsDbKey.ref(partition, refName));
+  }
+
+  String pathFor(Project.NameKey projectName, String refName) {
+    return keyFor(projectName, refName).path();
   }
 
-  static String versionPrefix(Integer version) {
-    return version != null ? "|" + version : "";
+  static RefsDbKey currentVersionKey(Project.NameKey projectName) {
+    return RefsDbKey.version(projectName);
   }
 
   @Override
   public boolean isUpToDate(Project.NameKey project, Ref ref) throws GlobalRefDbLockException {
     try {
-      GetItemResponse response = getItemFromDynamoDB(pathFor(project, ref.getName()));
-      if (!response.hasItem()) {
-        return true;
-      }
+      return isUpToDateAsync(project, ref).join();
+    } catch (Exception e) {
+      throw new GlobalRefDbLockException(project.get(), ref.getName(), unwrap(e));
+    }
+  }
 
-      String valueInDynamoDB = response.item().get(REF_DB_VALUE_KEY).s();
-      ObjectId objectIdInSharedRefDb = ObjectId.fromString(valueInDynamoDB);
-      boolean isUpToDate = objectIdInSharedRefDb.equals(ref.getObjectId());
+  /**
+   * Non-blocking variant of {@link #isUpToDate(Project.NameKey, Ref)}.
+   *
+   * @return a future that completes with {@code true} when the ref is missing from DynamoDB or
+   *     points to the same object as {@code ref}.
+   */
+  public CompletableFuture<Boolean> isUpToDateAsync(Project.NameKey project, Ref ref) {
+    return keyForAsync(project, ref.getName())
+        .thenCompose(
+            key -> {
+              hotRefs.recordAccess(key.path());
+              if (isCachedUpToDate(key, ref) || isKnownAbsent(project, key, ref)) {
+                return CompletableFuture.completedFuture(true);
+              }
+              return getRefValueAsync(project, key, v -> pointsTo(ref, v))
+                  .thenApply(value -> value.map(v -> isUpToDate(project, ref, v)).orElse(true));
+            });
+  }
 
-      if (!isUpToDate) {
-        logger.atWarning().log(
-            "%s:%s is out of sync: local=%s dynamodb=%s",
-            project, ref.getName(), ref.getObjectId(), objectIdInSharedRefDb);
-      }
-      return isUpToDate;
+  /**
+   * Checks whether each of {@code refs} is up-to-date with the shared ref-db, reading them with
+   * {@code BatchGetItem} in chunks of at most {@value #BATCH_GET_MAX_KEYS} keys.
+   *
+   * @return the outcome of {@link #isUpToDate(Project.NameKey, Ref)} keyed by ref name.
+   */
+  public Map<String, Boolean> isUpToDate(Project.NameKey project, Collection<Ref> refs)
+      throws GlobalRefDbLockException {
+    try {
+      return isUpToDateAsync(project, refs).join();
     } catch (Exception e) {
-      throw new GlobalRefDbLockException(project.get(), ref.getName(), e);
+      throw new GlobalRefDbLockException(
+          project.get(), refs.stream().map(Ref::getName).collect(joining(",")), unwrap(e));
     }
   }
 
+  /** Non-blocking variant of {@link #isUpToDate(Project.NameKey, Collection)}. */
+  public CompletableFuture<Map<String, Boolean>> isUpToDateAsync(
+      Project.NameKey project, Collection<Ref> refs) {
+    return partitionForAsync(project)
+        .thenCompose(
+            partition -> {
+              Map<String, Boolean> upToDate = new HashMap<>();
+              Map<RefsDbKey, Ref> refsByKey = new HashMap<>();
+              for (Ref ref : refs) {
+                RefsDbKey key = RefsDbKey.ref(partition, ref.getName());
+                hotRefs.recordAccess(key.path());
+                if (isCachedUpToDate(key, ref) || isKnownAbsent(project, key, ref)) {
+                  upToDate.put(ref.getName(), true);
+                } else {
+                  refsByKey.put(key, ref);
+                }
+              }
+              return batchGetRefItemsAsync(project, refsByKey)
+                  .thenApply(
+                      items -> {
+                        refsByKey.forEach(
+                            (key, ref) -> {
+                              Map<String, AttributeValue> item = items.get(key.path());
+                              upToDate.put(
+                                  ref.getName(),
+                                  item == null
+                                      || isUpToDate(
+                                          project,
+                                          ref,
+                                          RefValueFormat.decode(item.get(REF_DB_VALUE_KEY))));
+                            });
+                        return upToDate;
+                      });
+            });
+  }
+
+  private boolean isCachedUpToDate(RefsDbKey key, Ref ref) {
+    ObjectId objectId = ref.getObjectId();
+    return objectId != null
+        && cachedValue(key.path()).filter(objectId.getName()::equals).isPresent();
+  }
+
+  /**
+   * Returns whether {@code ref}, missing locally, is known to be missing from DynamoDB too. The
+   * {@link KnownRefs} filters only learn the refs created by other nodes from the change feed, so
+   * refs with a local value are always read: they may have been created elsewhere meanwhile.
+   */
+  private boolean isKnownAbsent(Project.NameKey project, RefsDbKey key, Ref ref) {
+    ObjectId objectId = ref.getObjectId();
+    return (objectId == null || objectId.equals(ObjectId.zeroId()))
+        && knownRefs.isAbsent(project, key);
+  }
+
+  private static boolean isUpToDate(Project.NameKey project, Ref ref, String valueInDynamoDB) {
+    boolean isUpToDate = pointsTo(ref, valueInDynamoDB);
+
+    if (!isUpToDate) {
+      logger.atWarning().log(
+          "%s:%s is out of sync: local=%s dynamodb=%s",
+          project, ref.getName(), ref.getObjectId(), valueInDynamoDB);
+    }
+    return isUpToDate;
+  }
+
+  private static boolean pointsTo(Ref ref, String valueInDynamoDB) {
+    return ObjectId.fromString(valueInDynamoDB).equals(ref.getObjectId());
+  }
+
+  /**
+   * Reads the items of {@code refsByKey} with {@code BatchGetItem}. With {@code
+   * eventuallyConsistentReads}, the items are first read with an eventually consistent read, and
+   * the ones that are missing or do not point to the local ref are read again with a consistent
+   * read.
+   *
+   * @return the stored items keyed by ref path. Refs that are not stored are omitted.
+   */
+  private CompletableFuture<Map<String, Map<String, AttributeValue>>> batchGetRefItemsAsync(
+      Project.NameKey project, Map<RefsDbKey, Ref> refsByKey) {
+    if (!eventuallyConsistentReads) {
+      return batchGetItemsFromDynamoDBAsync(project, refsByKey.keySet(), true);
+    }
+    return batchGetItemsFromDynamoDBAsync(project, refsByKey.keySet(), false)
+        .thenCompose(
+            items -> {
+              List<RefsDbKey> unconfirmed = new ArrayList<>();
+              refsByKey.forEach(
+                  (key, ref) -> {
+                    Map<String, AttributeValue> item = items.get(key.path());
+                    String refValue =
+                        item != null ? RefValueFormat.decode(item.get(REF_DB_VALUE_KEY)) : null;
+                    if (refValue == null || !pointsTo(ref, refValue)) {
+                      unconfirmed.add(key);
+                    }
+                  });
+              metrics.recordEventuallyConsistentReads(
+                  refsByKey.size() - unconfirmed.size(), unconfirmed.size());
+              if (unconfirmed.isEmpty()) {
+                return CompletableFuture.completedFuture(items);
+              }
+              return batchGetItemsFromDynamoDBAsync(project, unconfirmed, true)
+                  .thenApply(
+                      consistentItems -> {
+                        for (RefsDbKey key : unconfirmed) {
+                          Map<String, AttributeValue> item = consistentItems.get(key.path());
+                          if (item != null) {
+                            items.put(key.path(), item);
+                          } else {
+                            items.remove(key.path());
+                          }
+                        }
+                        return items;
+                      });
+            });
+  }
+
   @Override
   public boolean compareAndPut(Project.NameKey project, Ref currRef, ObjectId newRefValue)
       throws GlobalRefDbSystemError {
+    return join(compareAndPutAsync(project, currRef, newRefValue));
+  }
+
+  /**
+   * Non-blocking variant of {@link #compareAndPut(Project.NameKey, Ref, ObjectId)}.
+   *
+   * @return a future that completes with {@code false} when the conditional update was rejected, or
+   *     exceptionally with {@link GlobalRefDbSystemError} when DynamoDB could not be updated.
+   */
+  public CompletableFuture<Boolean> compareAndPutAsync(
+      Project.NameKey project, Ref currRef, ObjectId newRefValue) {
+    return tryCompareAndPutAsync(project, currRef, newRefValue)
+        .thenApply(CompareAndPutResult::isSuccessful);
+  }
+
+  /**
+   * Like {@link #compareAndPut(Project.NameKey, Ref, ObjectId)}, but also returns the value stored
+   * in DynamoDB when the conditional update is rejected.
+   */
+  public CompareAndPutResult tryCompareAndPut(
+      Project.NameKey project, Ref currRef, ObjectId newRefValue) throws GlobalRefDbSystemError {
+    return join(tryCompareAndPutAsync(project, currRef, newRefValue));
+  }
+
+  /**
+   * Non-blocking variant of {@link #tryCompareAndPut(Project.NameKey, Ref, ObjectId)}.
+   *
+   * @return a future that completes with the outcome of the conditional update, or exceptionally
+   *     with {@link GlobalRefDbSystemError} when DynamoDB could not be updated.
+   */
+  public CompletableFuture<CompareAndPutResult> tryCompareAndPutAsync(
+      Project.NameKey project, Ref currRef, ObjectId newRefValue) {
     ObjectId newValue = Optional.ofNullable(newRefValue).orElse(ObjectId.zeroId());
     ObjectId currValue = Optional.ofNullable(currRef.getObjectId()).orElse(ObjectId.zeroId());
 
-    return doCompareAndPut(
-        project, pathFor(project, currRef.getName()), currValue.getName(), newValue.getName());
+    return keyForAsync(project, currRef.getName())
+        .thenCompose(
+            key ->
+                doCompareAndPut(
+                    project,
+                    key,
+                    currValue.getName(),
+                    newValue.getName(),
+                    COMPARE_AND_PUT_OBJECT_ID_CONDITION_EXPRESSION,
+                    compareAndPutValues(currValue, newValue)));
   }
 
   @Override
   public <T> boolean compareAndPut(Project.NameKey project, String refName, T currValue, T newValue)
       throws GlobalRefDbSystemError {
-    String refPath = pathFor(project, refName);
+    return join(compareAndPutAsync(project, refName, currValue, newValue));
+  }
+
+  /**
+   * Non-blocking variant of {@link #compareAndPut(Project.NameKey, String, Object, Object)}.
+   *
+   * @return a future that completes with {@code false} when the conditional update was rejected, or
+   *     exceptionally with {@link GlobalRefDbSystemError} when DynamoDB could not be updated.
+   */
+  public <T> CompletableFuture<Boolean> compareAndPutAsync(
+      Project.NameKey project, String refName, T currValue, T newValue) {
+    return tryCompareAndPutAsync(project, refName, currValue, newValue)
+        .thenApply(CompareAndPutResult::isSuccessful);
+  }
+
+  /**
+   * Like {@link #compareAndPut(Project.NameKey, String, Object, Object)}, but also returns the
+   * value stored in DynamoDB when the conditional update is rejected.
+   */
+  public <T> CompareAndPutResult tryCompareAndPut(
+      Project.NameKey project, String refName, T currValue, T newValue)
+      throws GlobalRefDbSystemError {
+    return join(tryCompareAndPutAsync(project, refName, currValue, newValue));
+  }
 
+  /**
+   * Non-blocking variant of {@link #tryCompareAndPut(Project.NameKey, String, Object, Object)}.
+   *
+   * @return a future that completes with the outcome of the conditional update, or exceptionally
+   *     with {@link GlobalRefDbSystemError} when DynamoDB could not be updated.
+   */
+  public <T> CompletableFuture<CompareAndPutResult> tryCompareAndPutAsync(
+      Project.NameKey project, String refName, T currValue, T newValue) {
     String newRefValue =
         Optional.ofNullable(newValue).map(Object::toString).orElse(ObjectId.zeroId().getName());
     String curRefValue =
         Optional.ofNullable(currValue).map(Object::toString).orElse(ObjectId.zeroId().getName());
 
-    return doCompareAndPut(project, refPath, curRefValue, newRefValue);
+    return keyForAsync(project, refName)
+        .thenCompose(
+            key ->
+                doCompareAndPut(
+                    project,
+                    key,
+                    curRefValue,
+                    newRefValue,
+                    COMPARE_AND_PUT_CONDITION_EXPRESSION,
+                    compareAndPutValues(curRefValue, newRefValue)));
   }
 
-  private boolean doCompareAndPut(
-      Project.NameKey project, String refPath, String currValueForPath, String newValueForPath)
-      throws GlobalRefDbSystemError {
-    Map<String, AttributeValue> key = getKey(refPath);
-    Map<String, AttributeValue> expressionAttributeValues =
-        Map.of(
-            ":old_value", AttributeValue.builder().s(currValueForPath).build(),
-            ":new_value", AttributeValue.builder().s(newValueForPath).build());
+  private CompletableFuture<CompareAndPutResult> doCompareAndPut(
+      Project.NameKey project,
+      RefsDbKey key,
+      String currValueForPath,
+      String newValueForPath,
+      String conditionExpression,
+      Map<String, AttributeValue> expressionAttributeValues) {
+    hotRefs.recordAccess(key.path());
+    knownRefs.add(key);
     UpdateItemRequest updateItemRequest =
         UpdateItemRequest.builder()
-            .tableName(configuration.getRefsDbTableName())
-            .key(key)
+            .tableName(refsDbTableName)
+            .key(getKey(key))
             .expressionAttributeValues(expressionAttributeValues)
-            .updateExpression(String.format("SET %s = :new_value", REF_DB_VALUE_KEY))
-            .conditionExpression(
-                String.format(
-                    "attribute_not_exists(%s) OR %s = :old_value",
-                    REF_DB_PRIMARY_KEY, REF_DB_VALUE_KEY))
+            .updateExpression(SET_REF_VALUE_EXPRESSION)
+            .conditionExpression(conditionExpression)
+            .returnValuesOnConditionCheckFailure(ReturnValuesOnConditionCheckFailure.ALL_OLD)
+            .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL)
             .build();
-    try {
-      dynamoDBClient.updateItem(updateItemRequest);
-      logger.atFine().log(
-          "Updated path for project %s. Current: %s New: %s",
-          project.get(), currValueForPath, newValueForPath);
-      return true;
-    } catch (ConditionalCheckFailedException e) {
-      logger.atWarning().withCause(e).log(
-          "Conditional Check Failure when updating refPath %s. expected: %s New: %s",
-          refPath, currValueForPath, newValueForPath);
-      return false;
-    } catch (SdkException e) {
-      throw new GlobalRefDbSystemError(
-          String.format(
-              "Error updating refPath %s. expected: %s new: %s",
-              project.get(), currValueForPath, newValueForPath),
-          e);
+    return call(
+            project,
+            COMPARE_AND_PUT,
+            Capacity.WRITE,
+            Priority.FOREGROUND,
+            1,
+            () -> dynamoDBClient.updateItem(updateItemRequest),
+            response -> CapacityLimiter.units(response.consumedCapacity()))
+        .handle(
+            (response, error) -> {
+              if (error == null) {
+                cacheWritten(key.path(), newValueForPath);
+                logger.atFine().log(
+                    "Updated path for project %s. Current: %s New: %s",
+                    project.get(), currValueForPath, newValueForPath);
+                return CompareAndPutResult.succeeded();
+              }
+
+              Exception cause = unwrap(error);
+              if (cause instanceof ConditionalCheckFailedException) {
+                // The item returned with the failure is the one the condition was evaluated
+                // against, hence as fresh as a strongly consistent read.
+                Optional<String> currentValue =
+                    currentValue((ConditionalCheckFailedException) cause);
+                currentValue.ifPresentOrElse(
+                    value -> cacheWritten(key.path(), value), () -> evict(key.path()));
+                logger.atWarning().withCause(cause).log(
+                    "Conditional Check Failure when updating refPath %s. expected: %s New: %s"
+                        + " Current: %s",
+                    key, currValueForPath, newValueForPath, currentValue.orElse(null));
+                return CompareAndPutResult.failed(currentValue);
+              }
+              // The update may still have been applied, e.g. when the request timed out.
+              evict(key.path());
+              throw new GlobalRefDbSystemError(
+                  String.format(
+                      "Error updating refPath %s. expected: %s new: %s",
+                      key, currValueForPath, newValueForPath),
+                  cause);
+            });
+  }
+
+  private static Optional<String> currentValue(ConditionalCheckFailedException e) {
+    if (!e.hasItem() || !e.item().containsKey(REF_DB_VALUE_KEY)) {
+      return Optional.empty();
+    }
+    return Optional.of(RefValueFormat.decode(e.item().get(REF_DB_VALUE_KEY)));
+  }
+
+  private static Map<String, AttributeValue> compareAndPutValues(
+      String currValueForPath, String newValueForPath) {
+    return Map.of(
+        OLD_VALUE, AttributeValue.fromS(currValueForPath),
+        NEW_VALUE, AttributeValue.fromS(newValueForPath));
+  }
+
+  private Map<String, AttributeValue> compareAndPutValues(
+      AnyObjectId currValue, AnyObjectId newValue) {
+    return Map.of(
+        OLD_VALUE, RefValueFormat.STRING.encode(currValue),
+        OLD_BINARY_VALUE, RefValueFormat.BINARY.encode(currValue),
+        NEW_VALUE, refValueFormat.encode(newValue));
+  }
+
+  /**
+   * Atomically compares and updates all the refs of {@code commands} with a single {@code
+   * TransactWriteItems} request: either every ref is updated or none is.
+   *
+   * <p>Each command is applied like {@link #compareAndPut(Project.NameKey, Ref, ObjectId)}, with
+   * {@link ReceiveCommand#getOldId()} as expected value and {@link ReceiveCommand#getNewId()} as
+   * new value.
+   *
+   * @return the names of the refs whose stored value did not match the expected one. An empty set
+   *     means that all the refs have been updated.
+   * @throws IllegalArgumentException if there are more than {@value #TRANSACT_WRITE_MAX_ITEMS}
+   *     commands, or more than one command for the same ref.
+   */
+  public Set<String> compareAndPut(Project.NameKey project, Collection<ReceiveCommand> commands)
+      throws GlobalRefDbSystemError {
+    return join(compareAndPutAsync(project, commands));
+  }
+
+  /** Non-blocking variant of {@link #compareAndPut(Project.NameKey, Collection)}. */
+  public CompletableFuture<Set<String>> compareAndPutAsync(
+      Project.NameKey project, Collection<ReceiveCommand> commands) {
+    checkArgument(
+        commands.size() <= TRANSACT_WRITE_MAX_ITEMS,
+        "Cannot atomically update %s refs, the maximum is %s",
+        commands.size(),
+        TRANSACT_WRITE_MAX_ITEMS);
+    if (commands.isEmpty()) {
+      return CompletableFuture.completedFuture(Set.of());
+    }
+
+    return partitionForAsync(project)
+        .thenCompose(
+            partition -> {
+              List<String> refNames = new ArrayList<>(commands.size());
+              List<RefsDbKey> keys = new ArrayList<>(commands.size());
+              List<String> newValues = new ArrayList<>(commands.size());
+              List<TransactWriteItem> items = new ArrayList<>(commands.size());
+              for (ReceiveCommand command : commands) {
+                checkArgument(
+                    !refNames.contains(command.getRefName()),
+                    "Duplicate update for ref %s",
+                    command.getRefName());
+                RefsDbKey key = RefsDbKey.ref(partition, command.getRefName());
+                hotRefs.recordAccess(key.path());
+                knownRefs.add(key);
+                refNames.add(command.getRefName());
+                keys.add(key);
+                newValues.add(command.getNewId().getName());
+                items.add(
+                    TransactWriteItem.builder()
+                        .update(
+                            Update.builder()
+                                .tableName(refsDbTableName)
+                                .key(getKey(key))
+                                .expressionAttributeValues(
+                                    compareAndPutValues(command.getOldId(), command.getNewId()))
+                                .updateExpression(SET_REF_VALUE_EXPRESSION)
+                                .conditionExpression(COMPARE_AND_PUT_OBJECT_ID_CONDITION_EXPRESSION)
+                                .build())
+                        .build());
+              }
+
+              TransactWriteItemsRequest request =
+                  TransactWriteItemsRequest.builder()
+                      .transactItems(items)
+                      .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL)
+                      .build();
+              // Transactional writes consume twice the capacity of plain writes.
+              return call(
+                      project,
+                      TRANSACT_COMPARE_AND_PUT,
+                      Capacity.WRITE,
+                      Priority.FOREGROUND,
+                      2 * items.size(),
+                      () -> dynamoDBClient.transactWriteItems(request),
+                      response -> CapacityLimiter.units(response.consumedCapacity()))
+                  .handle(
+                      (response, error) -> {
+                        if (error == null) {
+                          for (int i = 0; i < keys.size(); i++) {
+                            cacheWritten(keys.get(i).path(), newValues.get(i));
+                          }
+                          logger.atFine().log(
+                              "Updated %d refs for project %s", refNames.size(), project.get());
+                          return Set.<String>of();
+                        }
+
+                        Exception cause = unwrap(error);
+                        if (cause instanceof TransactionCanceledException) {
+                          Optional<Set<String>> failedRefs =
+                              conditionalCheckFailures(
+                                  refNames,
+                                  ((TransactionCanceledException) cause).cancellationReasons());
+                          if (failedRefs.isPresent()) {
+                            for (int i = 0; i < refNames.size(); i++) {
+                              if (failedRefs.get().contains(refNames.get(i))) {
+                                evict(keys.get(i).path());
+                              }
+                            }
+                            logger.atWarning().withCause(cause).log(
+                                "Conditional Check Failure when updating refs %s of project %s",
+                                failedRefs.get(), project.get());
+                            return failedRefs.get();
+                          }
+                        }
+                        // The refs may still have been updated, e.g. when the request timed out.
+                        keys.forEach(key -> evict(key.path()));
+                        throw new GlobalRefDbSystemError(
+                            String.format(
+                                "Error updating %d refs for project %s",
+                                refNames.size(), project.get()),
+                            cause);
+                      });
+            });
+  }
+
+  /**
+   * Maps the cancellation reasons of a transaction to the refs that caused it.
+   *
+   * @return the refs whose condition failed, or empty if the transaction was cancelled for any
+   *     other reason, e.g. throttling or a conflicting transaction.
+   */
+  private static Optional<Set<String>> conditionalCheckFailures(
+      List<String> refNames, List<CancellationReason> reasons) {
+    if (reasons.size() != refNames.size()) {
+      return Optional.empty();
+    }
+
+    Set<String> failedRefs = new HashSet<>();
+    for (int i = 0; i < reasons.size(); i++) {
+      String code = reasons.get(i).code();
+      if (CONDITIONAL_CHECK_FAILED.equals(code)) {
+        failedRefs.add(refNames.get(i));
+      } else if (code != null && !NO_CANCELLATION.equals(code)) {
+        return Optional.empty();
+      }
     }
+    return failedRefs.isEmpty() ? Optional.empty() : Optional.of(failedRefs);
   }
 
   @Override
   public <T> void put(NameKey project, String refName, T value) throws GlobalRefDbSystemError {
-    doPut(project, pathFor(project, refName), value);
+    join(putAsync(project, refName, value));
+  }
+
+  /**
+   * Non-blocking variant of {@link #put(NameKey, String, Object)}.
+   *
+   * @return a future that completes exceptionally with {@link GlobalRefDbSystemError} when DynamoDB
+   *     could not be updated.
+   */
+  public <T> CompletableFuture<Void> putAsync(NameKey project, String refName, T value) {
+    return keyForAsync(project, refName).thenCompose(key -> doPutAsync(project, key, value));
   }
 
+  /**
+   * Stores {@code value} in the item with version-qualified {@code refPath}, e.g. {@code
+   * |1/project/refs/heads/master}, as parsed by {@link RefsDbKey#fromPath(String)}.
+   */
   public <T> void doPut(NameKey project, String refPath, T value) throws GlobalRefDbSystemError {
+    doPut(project, RefsDbKey.fromPath(refPath), value);
+  }
+
+  <T> void doPut(NameKey project, RefsDbKey key, T value) throws GlobalRefDbSystemError {
+    join(doPutAsync(project, key, value));
+  }
+
+  private <T> CompletableFuture<Void> doPutAsync(NameKey project, RefsDbKey key, T value) {
     String refValue =
         Optional.ofNullable(value).map(Object::toString).orElse(ObjectId.zeroId().getName());
-    Map<String, AttributeValue> key = getKey(refPath);
-    Map<String, AttributeValue> expressionAttributeValues =
-        Map.of(":val", AttributeValue.builder().s(refValue).build());
+    knownRefs.add(key);
     UpdateItemRequest request =
         UpdateItemRequest.builder()
-            .tableName(configuration.getRefsDbTableName())
-            .key(key)
-            .updateExpression(String.format("SET %s = :val", REF_DB_VALUE_KEY))
-            .expressionAttributeValues(expressionAttributeValues)
+            .tableName(refsDbTableName)
+            .key(getKey(key))
+            .updateExpression(SET_REF_VALUE_EXPRESSION)
+            .expressionAttributeValues(Map.of(NEW_VALUE, AttributeValue.fromS(refValue)))
+            .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL)
             .build();
-    try {
-      dynamoDBClient.updateItem(request);
-      logger.atFine().log(
-          "Updated path for project %s, path %s, value: %s", project.get(), refPath, refValue);
-    } catch (SdkException e) {
-      throw new GlobalRefDbSystemError(
-          String.format(
-              "Error updating path for project %s, path %s. value: %s",
-              project.get(), refPath, refValue),
-          e);
-    }
+    return call(
+            project,
+            PUT,
+            Capacity.WRITE,
+            Priority.FOREGROUND,
+            1,
+            () -> dynamoDBClient.updateItem(request),
+            response -> CapacityLimiter.units(response.consumedCapacity()))
+        .handle(
+            (response, error) -> {
+              if (error != null) {
+                // The value may still have been stored, e.g. when the request timed out.
+                evict(key.path());
+                throw new GlobalRefDbSystemError(
+                    String.format(
+                        "Error updating path for project %s, path %s. value: %s",
+                        project.get(), key, refValue),
+                    unwrap(error));
+              }
+              cacheWritten(key.path(), refValue);
+              logger.atFine().log(
+                  "Updated path for project %s, path %s, value: %s", project.get(), key, refValue);
+              return null;
+            });
   }
 
   @Override
   public AutoCloseable lockRef(Project.NameKey project, String refName)
       throws GlobalRefDbLockException {
     String refPath = pathFor(project, refName);
+    if (circuitBreaker.isOpen()) {
+      metrics.recordLockFailed(0);
+      throw new GlobalRefDbLockException(
+          project.get(), refName, new CircuitBreaker.CircuitBreakerOpenException());
+    }
+    LocalRefLocks.LocalLock localLock = null;
+    long startNanos = System.nanoTime();
     try {
-      // Attempts to acquire a lock until it either acquires the lock, or a specified
-      // additionalTimeToWaitForLock is reached.
-      // TODO: 'additionalTimeToWaitForLock' should be configurable
-      // Hydrate with instanceId and ServerId and CurrentUser and Thread
-      LockItem lockItem =
-          lockClient.acquireLock(AcquireLockOptions.builder(refPath).withSortKey(refPath).build());
+      // Threads of this node queue up locally, so that only one of them at a time competes
+      // for the DynamoDB lock of the ref.
+      localLock = localRefLocks.lock(refPath, localLockTimeout);
+
+      // TODO: Hydrate with instanceId and ServerId and CurrentUser and Thread
+      LockItem lockItem = acquireDynamoDBLock(refPath);
       logger.atFine().log("Acquired lock for %s", refPath);
-      return lockItem;
+      long acquiredNanos = System.nanoTime();
+      metrics.recordLockAcquired(acquiredNanos - startNanos);
+      return releasing(lockItem, localLock, acquiredNanos);
     } catch (InterruptedException e) {
+      metrics.recordLockFailed(System.nanoTime() - startNanos);
+      releaseIfHeld(localLock);
       logger.atSevere().withCause(e).log(
           "Received interrupted signal when trying to acquire lock for %s", refPath);
       throw new GlobalRefDbLockException(project.get(), refName, e);
-    } catch (LockNotGrantedException e) {
+    } catch (TimeoutException | LockNotGrantedException | LockCurrentlyUnavailableException e) {
+      metrics.recordLockFailed(System.nanoTime() - startNanos);
+      releaseIfHeld(localLock);
       logger.atSevere().withCause(e).log("Failed to acquire lock for %s", refPath);
       throw new GlobalRefDbLockException(project.get(), refName, e);
+    } catch (RuntimeException e) {
+      metrics.recordLockFailed(System.nanoTime() - startNanos);
+      releaseIfHeld(localLock);
+      throw e;
     }
   }
 
-  @Override
-  public boolean exists(Project.NameKey project, String refName) {
-    try {
-      if (!exists(getItemFromDynamoDB(pathFor(project, refName)))) {
-        logger.atFine().log("ref '%s' does not exist in dynamodb", pathFor(project, refName));
-        return false;
+  /**
+   * Attempts to acquire the DynamoDB lock of {@code refPath} up to {@code lockMaxAttempts} times,
+   * backing off exponentially with jitter between attempts.
+   *
+   * <p>Each attempt waits for the lease of the current owner to expire plus {@code lockMaxWait}, or
+   * gives up immediately when {@code lockFailFast} is set.
+   */
+  private LockItem acquireDynamoDBLock(String refPath) throws InterruptedException {
+    AcquireLockOptions options =
+        AcquireLockOptions.builder(refPath)
+            .withSortKey(refPath)
+            .withTimeUnit(TimeUnit.MILLISECONDS)
+            .withRefreshPeriod(configuration.getLockRefreshPeriod().toMillis())
+            .withAdditionalTimeToWaitForLock(configuration.getLockMaxWait().toMillis())
+            .withShouldSkipBlockingWait(configuration.isLockFailFast())
+            .build();
+    for (int attempt = 1; ; attempt++) {
+      try {
+        return lockClient.acquireLock(options);
+      } catch (LockNotGrantedException | LockCurrentlyUnavailableException e) {
+        if (attempt >= configuration.getLockMaxAttempts()) {
+          throw e;
+        }
+        Duration backoff = lockBackoff.delay(attempt);
+        logger.atFine().log(
+            "Lock for %s not granted at attempt %d, retrying in %s", refPath, attempt, backoff);
+        Thread.sleep(backoff.toMillis());
+      }
+    }
+  }
+
+  private AutoCloseable releasing(
+      LockItem lockItem, LocalRefLocks.LocalLock localLock, long acquiredNanos) {
+    return () -> {
+      try {
+        lockItem.close();
+      } finally {
+        localLock.close();
+        metrics.recordLockReleased(System.nanoTime() - acquiredNanos);
       }
-      return true;
+    };
+  }
+
+  private static void releaseIfHeld(@Nullable LocalRefLocks.LocalLock localLock) {
+    if (localLock != null) {
+      localLock.close();
+    }
+  }
 
+  @Override
+  public boolean exists(Project.NameKey project, String refName) throws GlobalRefDbSystemError {
+    try {
+      return existsAsync(project, refName).join();
     } catch (Exception e) {
-      logger.atSevere().withCause(e).log(
-          "Could not check for '%s' existence", pathFor(project, refName));
+      throw new GlobalRefDbSystemError(
+          String.format("Could not check for '%s' existence in project %s", refName, project),
+          unwrap(e));
     }
+  }
 
-    return false;
+  /**
+   * Non-blocking variant of {@link #exists(Project.NameKey, String)}.
+   *
+   * @return a future that completes with {@code true} when the ref is stored in DynamoDB.
+   */
+  public CompletableFuture<Boolean> existsAsync(Project.NameKey project, String refName) {
+    return keyForAsync(project, refName)
+        .thenCompose(
+            key -> {
+              hotRefs.recordAccess(key.path());
+              if (cachedValue(key.path()).isPresent()) {
+                return CompletableFuture.completedFuture(true);
+              }
+              return readRefValueAsync(project, key, true)
+                  .thenApply(
+                      value -> {
+                        if (value.isEmpty()) {
+                          logger.atFine().log("ref '%s' does not exist in dynamodb", key);
+                          return false;
+                        }
+                        return true;
+                      });
+            });
   }
 
   @Nullable
   public Integer getCurrentVersion(Project.NameKey project) throws GlobalRefDbSystemError {
-    try {
-      return projectVersionCache.get(project.get()).orElse(null);
-    } catch (ExecutionException e) {
-      throw new GlobalRefDbSystemError("Could not check project version", e);
+    return join(getCurrentVersionAsync(project));
+  }
+
+  /**
+   * Non-blocking variant of {@link #getCurrentVersion(Project.NameKey)}: a version that is not
+   * cached is read from DynamoDB without blocking the caller, and cached once read.
+   *
+   * @return a future that completes with the current version, or {@code null} if the project was
+   *     never removed, or exceptionally with {@link GlobalRefDbSystemError} when the version could
+   *     not be read.
+   */
+  CompletableFuture<Integer> getCurrentVersionAsync(Project.NameKey project) {
+    Optional<Integer> cachedVersion = projectVersionCache.getIfPresent(project.get());
+    metrics.recordProjectVersionCacheLookup(cachedVersion != null);
+    if (cachedVersion != null) {
+      return CompletableFuture.completedFuture(cachedVersion.orElse(null));
     }
+    return projectVersionCacheLoader
+        .loadAsync(project.get(), projectVersionCache)
+        .handle(
+            (version, error) -> {
+              if (error != null) {
+                throw new GlobalRefDbSystemError("Could not check project version", unwrap(error));
+              }
+              return version.orElse(null);
+            });
   }
 
   @Override
   public void remove(Project.NameKey project) throws GlobalRefDbSystemError {
-    Integer currentVersion = getCurrentVersion(project);
-    int nextVersion = (currentVersion != null ? currentVersion : 0) + 1;
+    join(removeAsync(project));
+  }
+
+  /**
+   * Non-blocking variant of {@link #remove(Project.NameKey)}.
+   *
+   * @return a future that completes exceptionally with {@link GlobalRefDbSystemError} when the
+   *     project version could not be increased.
+   */
+  public CompletableFuture<Void> removeAsync(Project.NameKey project) {
+    return getCurrentVersionAsync(project)
+        .thenCompose(
+            currentVersion -> {
+              int nextVersion = (currentVersion != null ? currentVersion : 0) + 1;
 
-    doPut(project, currentVersionKey(project), Integer.toString(nextVersion));
-    logger.atWarning().log(
-        "Project %s removed, current version %s, next version %s",
-        project, currentVersion, nextVersion);
+              return doPutAsync(project, currentVersionKey(project), Integer.toString(nextVersion))
+                  .thenRun(
+                      () -> {
+                        // Other nodes evict the version once they learn about the update, while
+                        // this node must stop using the old version right away.
+                        projectVersionCacheLoader.invalidate(project.get());
+                        projectVersionCache.invalidate(project.get());
+                        logger.atWarning().log(
+                            "Project %s removed, current version %s, next version %s",
+                            project, currentVersion, nextVersion);
+                      });
+            });
   }
 
-  @SuppressWarnings("unchecked")
   @Override
   public <T> Optional<T> get(Project.NameKey project, String refName, Class<T> clazz)
       throws GlobalRefDbSystemError {
     try {
-      GetItemResponse reponse = getItemFromDynamoDB(pathFor(project, refName));
-      if (!reponse.hasItem()) {
-        return Optional.empty();
-      }
-      String refValue = reponse.item().get(REF_DB_VALUE_KEY).s();
-
-      // TODO: not every string might be cast to T (it should work now because the
-      // only usage of this function requests string, but we should be serializing
-      // deserializing objects before adding them to dynamo.
-      return Optional.ofNullable((T) refValue);
+      return getAsync(project, refName, clazz).join();
     } catch (Exception e) {
-      logger.atSevere().withCause(e).log("Cannot get value for %s", pathFor(project, refName));
-      return Optional.empty();
+      throw new GlobalRefDbSystemError(
+          String.format("Cannot get value for %s in project %s", refName, project), unwrap(e));
+    }
+  }
+
+  /**
+   * Non-blocking variant of {@link #get(Project.NameKey, String, Class)}.
+   *
+   * @return a future that completes with the value stored for the ref, if any.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> CompletableFuture<Optional<T>> getAsync(
+      Project.NameKey project, String refName, Class<T> clazz) {
+    CompletableFuture<Optional<String>> refValue =
+        keyForAsync(project, refName)
+            .thenCompose(
+                key -> {
+                  hotRefs.recordAccess(key.path());
+                  Optional<String> cachedValue = cachedValue(key.path());
+                  if (cachedValue.isPresent()) {
+                    return CompletableFuture.completedFuture(cachedValue);
+                  }
+                  return readRefValueAsync(project, key, true);
+                });
+    // TODO: not every string might be cast to T (it should work now because the
+    // only usage of this function requests string, but we should be serializing
+    // deserializing objects before adding them to dynamo.
+    return (CompletableFuture<Optional<T>>) (CompletableFuture<?>) refValue;
+  }
+
+  /**
+   * Reads the values of {@code refNames} with {@code BatchGetItem}, in chunks of at most {@value
+   * #BATCH_GET_MAX_KEYS} keys.
+   *
+   * @return the stored values keyed by ref name. Refs that are not stored are omitted.
+   */
+  public Map<String, String> getAll(Project.NameKey project, Collection<String> refNames)
+      throws GlobalRefDbSystemError {
+    return join(getAllAsync(project, refNames));
+  }
+
+  /** Non-blocking variant of {@link #getAll(Project.NameKey, Collection)}. */
+  public CompletableFuture<Map<String, String>> getAllAsync(
+      Project.NameKey project, Collection<String> refNames) {
+    return partitionForAsync(project)
+        .thenCompose(
+            partition -> {
+              Map<String, String> values = new HashMap<>();
+              Map<RefsDbKey, String> refNamesByKey = new HashMap<>();
+              for (String refName : refNames) {
+                RefsDbKey key = RefsDbKey.ref(partition, refName);
+                hotRefs.recordAccess(key.path());
+                Optional<String> cachedValue = cachedValue(key.path());
+                if (cachedValue.isPresent()) {
+                  values.put(refName, cachedValue.get());
+                } else {
+                  refNamesByKey.put(key, refName);
+                }
+              }
+              return batchGetItemsFromDynamoDBAsync(project, refNamesByKey.keySet(), true)
+                  .thenApply(
+                      items -> {
+                        refNamesByKey.forEach(
+                            (key, refName) -> {
+                              Map<String, AttributeValue> item = items.get(key.path());
+                              if (item != null) {
+                                values.put(
+                                    refName, RefValueFormat.decode(item.get(REF_DB_VALUE_KEY)));
+                              }
+                            });
+                        return values;
+                      });
+            });
+  }
+
+  /**
+   * Reads the values of all the refs of {@code project} at its current version, with a {@code
+   * Query} of its partition that follows the result pages.
+   *
+   * @return the stored values keyed by ref name.
+   * @throws IllegalStateException if the refsDb table does not use the {@link
+   *     RefsDbTableLayout#PARTITIONED} layout, which would require a scan of the whole table.
+   */
+  public Map<String, String> getAll(Project.NameKey project) throws GlobalRefDbSystemError {
+    return join(getAllAsync(project));
+  }
+
+  /** Non-blocking variant of {@link #getAll(Project.NameKey)}. */
+  public CompletableFuture<Map<String, String>> getAllAsync(Project.NameKey project) {
+    checkState(
+        refsDbTableLayout == RefsDbTableLayout.PARTITIONED,
+        "Listing the refs of a project requires the %s refsDb table layout",
+        RefsDbTableLayout.PARTITIONED);
+    return partitionForAsync(project)
+        .thenCompose(
+            partition -> {
+              QueryRequest request =
+                  QueryRequest.builder()
+                      .tableName(refsDbTableName)
+                      .keyConditionExpression(PARTITION_KEY_CONDITION_EXPRESSION)
+                      .expressionAttributeValues(Map.of(PARTITION, AttributeValue.fromS(partition)))
+                      .consistentRead(true)
+                      .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL)
+                      .build();
+              // Pages are delivered one at a time, in order. Their values are not cached, since
+              // the refs of the project may have been written by this node meanwhile.
+              Map<String, String> values = new HashMap<>();
+              double[] consumedUnits = new double[1];
+              return call(
+                      project,
+                      QUERY,
+                      Capacity.READ,
+                      Priority.FOREGROUND,
+                      1,
+                      () ->
+                          dynamoDBClient
+                              .queryPaginator(request)
+                              .subscribe(
+                                  page -> {
+                                    consumedUnits[0] +=
+                                        CapacityLimiter.units(page.consumedCapacity());
+                                    for (Map<String, AttributeValue> item : page.items()) {
+                                      String refName = item.get(REF_DB_SORT_KEY).s();
+                                      String refValue =
+                                          RefValueFormat.decode(item.get(REF_DB_VALUE_KEY));
+                                      values.put(refName, refValue);
+                                    }
+                                  })
+                              .thenApply(v -> consumedUnits[0]),
+                      Double::doubleValue)
+                  .thenApply(v -> values);
+            });
+  }
+
+  /**
+   * Reads the names of the refs stored in {@code partition}, with a {@code Query} that follows the
+   * result pages and only reads the keys, passing each name to {@code consumer}.
+   */
+  CompletableFuture<Void> readRefNamesAsync(
+      Project.NameKey project, String partition, Consumer<String> consumer) {
+    QueryRequest request =
+        QueryRequest.builder()
+            .tableName(refsDbTableName)
+            .keyConditionExpression(PARTITION_KEY_CONDITION_EXPRESSION)
+            .expressionAttributeValues(Map.of(PARTITION, AttributeValue.fromS(partition)))
+            .projectionExpression(REF_DB_SORT_KEY)
+            .consistentRead(true)
+            .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL)
+            .build();
+    double[] consumedUnits = new double[1];
+    return call(
+            project,
+            QUERY,
+            Capacity.READ,
+            Priority.BACKGROUND,
+            1,
+            () ->
+                dynamoDBClient
+                    .queryPaginator(request)
+                    .subscribe(
+                        page -> {
+                          consumedUnits[0] += CapacityLimiter.units(page.consumedCapacity());
+                          for (Map<String, AttributeValue> item : page.items()) {
+                            consumer.accept(item.get(REF_DB_SORT_KEY).s());
+                          }
+                        })
+                    .thenApply(v -> consumedUnits[0]),
+            Double::doubleValue)
+        .thenApply(v -> null);
+  }
+
+  /**
+   * Reads the current versions of {@code projects} from DynamoDB with {@code BatchGetItem},
+   * bypassing the project version cache.
+   *
+   * @return the versions keyed by project name, empty for the projects that were never removed.
+   */
+  Map<String, Optional<Integer>> readCurrentVersions(Collection<String> projects)
+      throws GlobalRefDbSystemError {
+    Map<RefsDbKey, String> projectsByKey = new HashMap<>();
+    for (String project : projects) {
+      projectsByKey.put(currentVersionKey(Project.nameKey(project)), project);
+    }
+    Map<String, Map<String, AttributeValue>> items =
+        join(
+            batchGetItemsFromDynamoDBAsync(
+                null, projectsByKey.keySet(), true, Priority.BACKGROUND));
+    Map<String, Optional<Integer>> versions = new HashMap<>();
+    projectsByKey.forEach(
+        (key, project) ->
+            versions.put(
+                project,
+                Optional.ofNullable(items.get(key.path())).map(DynamoDBRefDatabase::version)));
+    return versions;
+  }
+
+  private static int version(Map<String, AttributeValue> item) {
+    return Integer.parseInt(item.get(REF_DB_VALUE_KEY).s());
+  }
+
+  private CompletableFuture<Map<String, Map<String, AttributeValue>>>
+      batchGetItemsFromDynamoDBAsync(
+          Project.NameKey project, Collection<RefsDbKey> keys, boolean consistentRead) {
+    return batchGetItemsFromDynamoDBAsync(project, keys, consistentRead, Priority.FOREGROUND);
+  }
+
+  private CompletableFuture<Map<String, Map<String, AttributeValue>>>
+      batchGetItemsFromDynamoDBAsync(
+          @Nullable Project.NameKey project,
+          Collection<RefsDbKey> keys,
+          boolean consistentRead,
+          Priority priority) {
+    Map<String, Map<String, AttributeValue>> items = new ConcurrentHashMap<>();
+    // Only values read with a consistent read are cached.
+    Map<String, Long> writeStamps = new HashMap<>();
+    if (consistentRead) {
+      keys.forEach(key -> writeStamps.put(key.path(), localRefWrites.stamp(key.path())));
+    }
+    List<CompletableFuture<Void>> batches = new ArrayList<>();
+    for (List<RefsDbKey> batch : Iterables.partition(keys, BATCH_GET_MAX_KEYS)) {
+      batches.add(
+          batchGetItemsFromDynamoDBAsync(
+              project,
+              batch.stream().map(this::getKey).collect(toList()),
+              consistentRead,
+              priority,
+              writeStamps,
+              items,
+              0));
+    }
+    return CompletableFuture.allOf(batches.toArray(new CompletableFuture<?>[0]))
+        .thenApply(v -> items);
+  }
+
+  private CompletableFuture<Void> batchGetItemsFromDynamoDBAsync(
+      @Nullable Project.NameKey project,
+      List<Map<String, AttributeValue>> keys,
+      boolean consistentRead,
+      Priority priority,
+      Map<String, Long> writeStamps,
+      Map<String, Map<String, AttributeValue>> items,
+      int attempt) {
+    String tableName = refsDbTableName;
+    BatchGetItemRequest request =
+        BatchGetItemRequest.builder()
+            .requestItems(
+                Map.of(
+                    tableName,
+                    KeysAndAttributes.builder().keys(keys).consistentRead(consistentRead).build()))
+            .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL)
+            .build();
+    return call(
+            project,
+            BATCH_GET_ITEM,
+            Capacity.READ,
+            priority,
+            keys.size() * readUnits(consistentRead),
+            () -> dynamoDBClient.batchGetItem(request),
+            response -> CapacityLimiter.units(response.consumedCapacity()))
+        .thenCompose(
+            response -> {
+              for (Map<String, AttributeValue> item :
+                  response.responses().getOrDefault(tableName, List.of())) {
+                String refPath = refsDbTableLayout.refPath(item);
+                items.put(refPath, item);
+                Long writeStamp = writeStamps.get(refPath);
+                if (writeStamp != null) {
+                  cacheRead(refPath, RefValueFormat.decode(item.get(REF_DB_VALUE_KEY)), writeStamp);
+                }
+              }
+
+              KeysAndAttributes unprocessed = response.unprocessedKeys().get(tableName);
+              if (unprocessed == null || unprocessed.keys().isEmpty()) {
+                return CompletableFuture.completedFuture(null);
+              }
+              if (attempt + 1 >= BATCH_GET_MAX_ATTEMPTS) {
+                throw new GlobalRefDbSystemError(
+                    String.format(
+                        "Unable to read %d refs from %s", unprocessed.keys().size(), tableName),
+                    SdkClientException.create(
+                        String.format(
+                            "Keys still unprocessed after %d attempts", BATCH_GET_MAX_ATTEMPTS)));
+              }
+
+              long backoffMillis = BATCH_GET_BACKOFF.delay(attempt + 1).toMillis();
+              logger.atFine().log(
+                  "Retrying %d unprocessed keys in %d ms",
+                  unprocessed.keys().size(), backoffMillis);
+              return CompletableFuture.runAsync(
+                      () -> {},
+                      CompletableFuture.delayedExecutor(backoffMillis, TimeUnit.MILLISECONDS))
+                  .thenCompose(
+                      v ->
+                          batchGetItemsFromDynamoDBAsync(
+                              project,
+                              unprocessed.keys(),
+                              consistentRead,
+                              priority,
+                              writeStamps,
+                              items,
+                              attempt + 1));
+            });
+  }
+
+  /**
+   * Reads the value stored for {@code key}. With {@code eventuallyConsistentReads}, the value is
+   * first read with an eventually consistent read, and read again with a consistent read unless it
+   * is stored and {@code confirmed}. Only values read with a consistent read are cached.
+   *
+   * @return a future that completes with the stored value, or empty if the ref is not stored.
+   */
+  private CompletableFuture<Optional<String>> getRefValueAsync(
+      Project.NameKey project, RefsDbKey key, Predicate<String> confirmed) {
+    if (!eventuallyConsistentReads) {
+      return readRefValueAsync(project, key, true);
     }
+    return readRefValueAsync(project, key, false)
+        .thenCompose(
+            value -> {
+              boolean isConfirmed = value.filter(confirmed).isPresent();
+              metrics.recordEventuallyConsistentReads(isConfirmed ? 1 : 0, isConfirmed ? 0 : 1);
+              if (isConfirmed) {
+                return CompletableFuture.completedFuture(value);
+              }
+              return readRefValueAsync(project, key, true);
+            });
   }
 
-  private GetItemResponse getItemFromDynamoDB(String refPath) {
-    return getItemFromDynamoDB(refPath, true);
+  private CompletableFuture<Optional<String>> readRefValueAsync(
+      Project.NameKey project, RefsDbKey key, boolean consistentRead) {
+    long writeStamp = localRefWrites.stamp(key.path());
+    return hotRefs
+        .read(
+            key.path(),
+            consistentRead,
+            () -> getItemFromDynamoDBAsync(project, key, consistentRead))
+        .thenApply(
+            response -> {
+              if (!exists(response)) {
+                return Optional.empty();
+              }
+              String refValue = RefValueFormat.decode(response.item().get(REF_DB_VALUE_KEY));
+              if (consistentRead) {
+                cacheRead(key.path(), refValue, writeStamp);
+              }
+              return Optional.of(refValue);
+            });
   }
 
+  /**
+   * Reads the item with version-qualified {@code refPath}, as parsed by {@link
+   * RefsDbKey#fromPath(String)}.
+   */
   public GetItemResponse getItemFromDynamoDB(String refPath, Boolean consistentRead) {
-    Map<String, AttributeValue> key = getKey(refPath);
+    return getItemFromDynamoDB(null, RefsDbKey.fromPath(refPath), consistentRead);
+  }
+
+  GetItemResponse getItemFromDynamoDB(
+      @Nullable Project.NameKey project, RefsDbKey key, Boolean consistentRead) {
+    return join(getItemFromDynamoDBAsync(project, key, consistentRead));
+  }
+
+  CompletableFuture<GetItemResponse> getItemFromDynamoDBAsync(
+      @Nullable Project.NameKey project, RefsDbKey key, Boolean consistentRead) {
+    return getItemFromDynamoDBAsync(project, key, consistentRead, Priority.FOREGROUND);
+  }
+
+  CompletableFuture<GetItemResponse> getItemFromDynamoDBAsync(
+      @Nullable Project.NameKey project, RefsDbKey key, Boolean consistentRead, Priority priority) {
     GetItemRequest request =
         GetItemRequest.builder()
-            .tableName(configuration.getRefsDbTableName())
-            .key(key)
+            .tableName(refsDbTableName)
+            .key(getKey(key))
             .consistentRead(consistentRead)
+            .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL)
             .build();
-    return dynamoDBClient.getItem(request);
+    // Reads are hedged once admitted by the capacity limiter, so that the time spent waiting for
+    // capacity neither counts as read latency nor triggers hedges, which need spare capacity.
+    double units = readUnits(consistentRead);
+    return call(
+        project,
+        GET_ITEM,
+        Capacity.READ,
+        priority,
+        units,
+        () ->
+            hedgedReads.read(
+                () -> dynamoDBClient.getItem(request),
+                () -> capacityLimiter.tryTake(Capacity.READ, units)),
+        response -> CapacityLimiter.units(response.consumedCapacity()));
   }
 
+  /**
+   * Returns the value of {@code refPath} cached by the {@link RefValueCache}, or else by {@link
+   * HotRefs} when the ref is hot.
+   */
+  private Optional<String> cachedValue(String refPath) {
+    Optional<String> cachedValue = refValueCache.get(refPath);
+    return cachedValue.isPresent() ? cachedValue : hotRefs.get(refPath);
+  }
+
+  /** Caches {@code refValue}, written by this node to {@code refPath}. */
+  private void cacheWritten(String refPath, String refValue) {
+    hotRefs.detachReads(refPath);
+    localRefWrites.record(refPath);
+    refValueCache.put(refPath, refValue);
+    hotRefs.put(refPath, refValue);
+  }
+
+  /** Evicts the cached value of {@code refPath}, e.g. after a failed write. */
+  private void evict(String refPath) {
+    hotRefs.detachReads(refPath);
+    localRefWrites.record(refPath);
+    refValueCache.invalidate(refPath);
+    hotRefs.invalidate(refPath);
+  }
+
+  /**
+   * Caches {@code refValue}, read from {@code refPath} with a consistent read, unless this node
+   * wrote or evicted the ref since {@code writeStamp} was taken, before sending the read: the value
+   * read may then be older than the one cached by the write.
+   */
+  private void cacheRead(String refPath, String refValue, long writeStamp) {
+    if (!localRefWrites.isUnchangedSince(refPath, writeStamp)) {
+      return;
+    }
+    refValueCache.put(refPath, refValue);
+    hotRefs.put(refPath, refValue);
+    // Written or evicted while being cached.
+    if (!localRefWrites.isUnchangedSince(refPath, writeStamp)) {
+      refValueCache.remove(refPath, refValue);
+      hotRefs.remove(refPath, refValue);
+    }
+  }
+
+  /** Returns the read capacity units consumed by reading an item of at most 4 KB. */
+  private static double readUnits(boolean consistentRead) {
+    return consistentRead ? 1 : 0.5;
+  }
+
+  /**
+   * Returns the primary key of the item with version-qualified {@code refPath}, as parsed by {@link
+   * RefsDbKey#fromPath(String)}.
+   */
   public Map<String, AttributeValue> getKey(String refPath) {
-    return Map.of(REF_DB_PRIMARY_KEY, AttributeValue.builder().s(refPath).build());
+    return getKey(RefsDbKey.fromPath(refPath));
+  }
+
+  Map<String, AttributeValue> getKey(RefsDbKey key) {
+    return refsDbTableLayout.key(key);
   }
 
   public boolean exists(GetItemResponse response) {
     return response.hasItem() && !response.item().isEmpty();
   }
 
+  /**
+   * Sends the DynamoDB {@code request} once the capacity limiter admits it, through the circuit
+   * breaker, recording its metrics and accounting for it in the usage of {@code project}, if any.
+   * Failed requests are accounted for at their estimated units.
+   */
+  private <T> CompletableFuture<T> call(
+      @Nullable Project.NameKey project,
+      String operation,
+      Capacity capacity,
+      Priority priority,
+      double estimatedUnits,
+      Supplier<CompletableFuture<T>> request,
+      ToDoubleFunction<T> consumedUnits) {
+    long startNanos = System.nanoTime();
+    return capacityLimiter
+        .call(
+            capacity,
+            priority,
+            estimatedUnits,
+            () -> circuitBreaker.call(() -> metrics.time(operation, request)),
+            consumedUnits)
+        .whenComplete(
+            (response, error) -> {
+              double units = error == null ? consumedUnits.applyAsDouble(response) : 0;
+              projectUsageTracker.record(
+                  project,
+                  capacity,
+                  units > 0 ? units : estimatedUnits,
+                  System.nanoTime() - startNanos);
+            });
+  }
+
+  /**
+   * Runs {@code operation} on the calling thread, reporting any exception it throws while preparing
+   * the request through the returned future rather than to the caller.
+   */
+  private static <T> CompletableFuture<T> failedOnThrow(Supplier<CompletableFuture<T>> operation) {
+    try {
+      return operation.get();
+    } catch (RuntimeException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  /**
+   * Waits for {@code future} and rethrows unchecked failures, such as {@link
+   * GlobalRefDbSystemError} or {@link SdkException}, as they were raised by the async engine.
+   */
+  private static <T> T join(CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw e;
+    }
+  }
+
+  private static Exception unwrap(Throwable error) {
+    Throwable cause =
+        error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    Throwables.throwIfInstanceOf(cause, Error.class);
+    return (Exception) cause;
+  }
+
+  /**
+   * Loads the project versions. With {@code changeFeedEnabled}, the cached versions do not expire
+   * and are read with strongly consistent reads, so that a version is not cached stale until its
+   * next eviction. Without it, they are read with eventually consistent reads, since they expire
+   * anyway.
+   *
+   * <p>A version read while the {@link ProjectVersionCacheInvalidator} evicts it may already be
+   * stale, and would otherwise be cached until the next eviction: such reads are therefore repeated
+   * until no eviction happened meanwhile, up to {@value #MAX_LOAD_ATTEMPTS} times so that loads do
+   * not keep reading while the versions of other projects change. Evictions are tracked by
+   * generation counters shared by the projects hashing to the same stripe, so that their number
+   * stays bounded.
+   */
+  @Singleton
   static class ProjectVersionCacheLoader extends CacheLoader<String, Optional<Integer>> {
+    private static final int GENERATION_STRIPES = 1024;
+    private static final int MAX_LOAD_ATTEMPTS = 3;
 
     private final Provider<DynamoDBRefDatabase> dynamoDBRefDatabaseProvider;
+    private final DynamoDBMetrics metrics;
+    private final boolean consistentReads;
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+    private final ConcurrentMap<String, CompletableFuture<Optional<Integer>>> loads =
+        new ConcurrentHashMap<>();
 
     @Inject
-    public ProjectVersionCacheLoader(Provider<DynamoDBRefDatabase> dynamoDBRefDatabaseProvider) {
+    public ProjectVersionCacheLoader(
+        Provider<DynamoDBRefDatabase> dynamoDBRefDatabaseProvider,
+        DynamoDBMetrics metrics,
+        Configuration configuration) {
       this.dynamoDBRefDatabaseProvider = dynamoDBRefDatabaseProvider;
+      this.metrics = metrics;
+      this.consistentReads = configuration.isChangeFeedEnabled();
     }
 
     @Override
     public Optional<Integer> load(String project) throws Exception {
-      GetItemResponse item =
-          dynamoDBRefDatabaseProvider
-              .get()
-              .getItemFromDynamoDB(currentVersionKey(Project.nameKey(project)), false);
-      Integer currentVersion =
-          dynamoDBRefDatabaseProvider.get().exists(item)
-              ? Integer.parseInt(item.item().get(REF_DB_VALUE_KEY).s())
-              : null;
-      return Optional.ofNullable(currentVersion);
+      return join(loadAsync(project, Priority.FOREGROUND));
+    }
+
+    /**
+     * Reads the current version of {@code project} without blocking the caller, which keeps being
+     * served {@code oldVersion} meanwhile. When the read fails, {@code oldVersion} is kept until
+     * the next refresh.
+     */
+    @Override
+    public ListenableFuture<Optional<Integer>> reload(
+        String project, Optional<Integer> oldVersion) {
+      SettableFuture<Optional<Integer>> reloaded = SettableFuture.create();
+      loadAsync(project, Priority.BACKGROUND)
+          .whenComplete(
+              (version, error) -> {
+                metrics.recordProjectVersionCacheRefresh(error == null);
+                if (error == null) {
+                  reloaded.set(version);
+                  return;
+                }
+                logger.atWarning().atMostEvery(1, TimeUnit.MINUTES).withCause(error).log(
+                    "Could not refresh the version of project %s, keeping version %s",
+                    project, oldVersion.orElse(null));
+                reloaded.set(oldVersion);
+              });
+      return reloaded;
+    }
+
+    /**
+     * Reads the current version of {@code project} without blocking the caller, and stores it in
+     * {@code cache} unless it was evicted meanwhile. Concurrent calls for the same project share a
+     * single read.
+     */
+    CompletableFuture<Optional<Integer>> loadAsync(
+        String project, Cache<String, Optional<Integer>> cache) {
+      CompletableFuture<Optional<Integer>> loading = new CompletableFuture<>();
+      CompletableFuture<Optional<Integer>> inFlight = loads.putIfAbsent(project, loading);
+      if (inFlight != null) {
+        return inFlight;
+      }
+
+      int stripe = stripe(project);
+      long generation = generations.get(stripe);
+      loadAsync(project, Priority.FOREGROUND)
+          .whenComplete(
+              (version, error) -> {
+                if (error == null && generations.get(stripe) == generation) {
+                  cache.put(project, version);
+                  // Evicted while being stored.
+                  if (generations.get(stripe) != generation) {
+                    cache.asMap().remove(project, version);
+                  }
+                }
+                loads.remove(project, loading);
+                if (error != null) {
+                  loading.completeExceptionally(error);
+                } else {
+                  loading.complete(version);
+                }
+              });
+      return loading;
+    }
+
+    /** Must be called before evicting the version of {@code project} from the cache. */
+    void invalidate(String project) {
+      generations.incrementAndGet(stripe(project));
+    }
+
+    /** Must be called before evicting all the versions from the cache. */
+    void invalidateAll() {
+      for (int i = 0; i < GENERATION_STRIPES; i++) {
+        generations.incrementAndGet(i);
+      }
+    }
+
+    private CompletableFuture<Optional<Integer>> loadAsync(String project, Priority priority) {
+      return loadAsync(project, priority, 1);
+    }
+
+    private CompletableFuture<Optional<Integer>> loadAsync(
+        String project, Priority priority, int attempt) {
+      DynamoDBRefDatabase refDb = dynamoDBRefDatabaseProvider.get();
+      int stripe = stripe(project);
+      long generation = generations.get(stripe);
+      return failedOnThrow(
+              () ->
+                  refDb.getItemFromDynamoDBAsync(
+                      Project.nameKey(project),
+                      currentVersionKey(Project.nameKey(project)),
+                      consistentReads,
+                      priority))
+          .thenCompose(
+              item -> {
+                if (generations.get(stripe) != generation) {
+                  if (attempt < MAX_LOAD_ATTEMPTS) {
+                    return loadAsync(project, priority, attempt + 1);
+                  }
+                  logger.atFine().log(
+                      "Version of project %s evicted during %d reads in a row, keeping the last one",
+                      project, attempt);
+                }
+                return CompletableFuture.completedFuture(
+                    refDb.exists(item) ? Optional.of(version(item.item())) : Optional.empty());
+              });
+    }
+
+    private static int stripe(String project) {
+      return Math.floorMod(project.hashCode(), GENERATION_STRIPES);
     }
   }
 }
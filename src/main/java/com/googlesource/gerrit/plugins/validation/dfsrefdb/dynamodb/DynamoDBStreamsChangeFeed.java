@@ -0,0 +1,182 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
+
+import com.google.common.flogger.FluentLogger;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.DescribeStreamRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetRecordsRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetRecordsResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetShardIteratorRequest;
+import software.amazon.awssdk.services.dynamodb.model.LimitExceededException;
+import software.amazon.awssdk.services.dynamodb.model.Record;
+import software.amazon.awssdk.services.dynamodb.model.Shard;
+import software.amazon.awssdk.services.dynamodb.model.ShardIteratorType;
+import software.amazon.awssdk.services.dynamodb.model.StreamDescription;
+import software.amazon.awssdk.services.dynamodb.streams.DynamoDbStreamsClient;
+
+/**
+ * {@link RefsDbChangeFeed} tailing the DynamoDB stream of the refsDb table.
+ *
+ * <p>The open shards of the stream are read from their latest record when the feed starts. The
+ * shards created afterwards, e.g. when DynamoDB rolls over a shard, are read from their first
+ * record, once one of the shards being read is closed.
+ */
+@Singleton
+class DynamoDBStreamsChangeFeed implements RefsDbChangeFeed {
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+  private static final int GET_RECORDS_LIMIT = 1000;
+
+  private final DynamoDbStreamsClient streamsClient;
+  private final DynamoDbClient dynamoDbClient;
+  private final String tableName;
+
+  // Only accessed by the polling thread.
+  private String streamArn;
+  private final Map<String, String> shardIterators = new LinkedHashMap<>();
+  private final Set<String> knownShards = new HashSet<>();
+
+  @Inject
+  DynamoDBStreamsChangeFeed(
+      DynamoDbStreamsClient streamsClient,
+      DynamoDbClient dynamoDbClient,
+      Configuration configuration) {
+    this.streamsClient = streamsClient;
+    this.dynamoDbClient = dynamoDbClient;
+    this.tableName = configuration.getRefsDbTableName();
+  }
+
+  @Override
+  public void poll(Listener listener) {
+    try {
+      if (streamArn == null) {
+        start();
+        listener.onReset();
+      } else if (shardIterators.isEmpty()) {
+        addNewShards();
+      }
+
+      boolean shardClosed = false;
+      for (Map.Entry<String, String> shard : Map.copyOf(shardIterators).entrySet()) {
+        String nextIterator = readShard(shard.getKey(), shard.getValue(), listener);
+        if (nextIterator == null) {
+          logger.atFine().log("Shard %s of stream %s is closed", shard.getKey(), streamArn);
+          shardIterators.remove(shard.getKey());
+          shardClosed = true;
+        } else {
+          shardIterators.put(shard.getKey(), nextIterator);
+        }
+      }
+      if (shardClosed) {
+        addNewShards();
+      }
+    } catch (RuntimeException e) {
+      streamArn = null;
+      shardIterators.clear();
+      knownShards.clear();
+      throw e;
+    }
+  }
+
+  private String readShard(String shardId, String shardIterator, Listener listener) {
+    GetRecordsResponse response;
+    try {
+      response =
+          streamsClient.getRecords(
+              GetRecordsRequest.builder()
+                  .shardIterator(shardIterator)
+                  .limit(GET_RECORDS_LIMIT)
+                  .build());
+    } catch (LimitExceededException e) {
+      logger.atFine().withCause(e).log("Reads of shard %s throttled, retrying later", shardId);
+      return shardIterator;
+    }
+    for (Record record : response.records()) {
+      listener.onChange(record.dynamodb().keys());
+    }
+    return response.nextShardIterator();
+  }
+
+  private void start() {
+    String arn =
+        dynamoDbClient
+            .describeTable(DescribeTableRequest.builder().tableName(tableName).build())
+            .table()
+            .latestStreamArn();
+    if (arn == null) {
+      throw new IllegalStateException(
+          String.format("Table %s has no stream, changes cannot be tailed", tableName));
+    }
+
+    for (Shard shard : describeShards(arn)) {
+      knownShards.add(shard.shardId());
+      if (shard.sequenceNumberRange().endingSequenceNumber() == null) {
+        shardIterators.put(
+            shard.shardId(), shardIterator(arn, shard.shardId(), ShardIteratorType.LATEST));
+      }
+    }
+    streamArn = arn;
+    logger.atInfo().log(
+        "Tailing %d shards of stream %s of table %s", shardIterators.size(), arn, tableName);
+  }
+
+  private void addNewShards() {
+    for (Shard shard : describeShards(streamArn)) {
+      if (knownShards.add(shard.shardId())) {
+        shardIterators.put(
+            shard.shardId(),
+            shardIterator(streamArn, shard.shardId(), ShardIteratorType.TRIM_HORIZON));
+      }
+    }
+  }
+
+  private List<Shard> describeShards(String arn) {
+    List<Shard> shards = new ArrayList<>();
+    String lastShardId = null;
+    do {
+      StreamDescription description =
+          streamsClient
+              .describeStream(
+                  DescribeStreamRequest.builder()
+                      .streamArn(arn)
+                      .exclusiveStartShardId(lastShardId)
+                      .build())
+              .streamDescription();
+      shards.addAll(description.shards());
+      lastShardId = description.lastEvaluatedShardId();
+    } while (lastShardId != null);
+    return shards;
+  }
+
+  private String shardIterator(String arn, String shardId, ShardIteratorType type) {
+    return streamsClient
+        .getShardIterator(
+            GetShardIteratorRequest.builder()
+                .streamArn(arn)
+                .shardId(shardId)
+                .shardIteratorType(type)
+                .build())
+        .shardIterator();
+  }
+}
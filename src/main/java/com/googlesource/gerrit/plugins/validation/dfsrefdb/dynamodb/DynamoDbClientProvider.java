@@ -17,27 +17,47 @@ package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.google.inject.Singleton;
+import java.util.Optional;
+import java.util.function.Consumer;
 import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.ProfileCredentialsProvider;
+import software.amazon.awssdk.awscore.retry.AwsRetryStrategy;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.core.retry.RetryMode;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.metrics.MetricPublisher;
 import software.amazon.awssdk.regions.providers.DefaultAwsRegionProviderChain;
+import software.amazon.awssdk.retries.api.BackoffStrategy;
+import software.amazon.awssdk.retries.api.RetryStrategy;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClientBuilder;
 
 @Singleton
 class DynamoDbClientProvider implements Provider<DynamoDbClient> {
   private final Configuration configuration;
+  private final SdkMetricsPublisher metricsPublisher;
 
   @Inject
-  DynamoDbClientProvider(Configuration configuration) {
+  DynamoDbClientProvider(Configuration configuration, SdkMetricsPublisher metricsPublisher) {
     this.configuration = configuration;
+    this.metricsPublisher = metricsPublisher;
   }
 
   @Override
   public DynamoDbClient get() {
     DynamoDbClientBuilder builder =
         DynamoDbClient.builder()
-            .credentialsProvider(getCredentialsProvider())
+            .credentialsProvider(getCredentialsProvider(configuration))
+            .httpClientBuilder(
+                ApacheHttpClient.builder()
+                    .maxConnections(configuration.getMaxConnections())
+                    .connectionAcquisitionTimeout(configuration.getConnectionAcquisitionTimeout())
+                    .connectionTimeout(configuration.getConnectionTimeout())
+                    .connectionTimeToLive(configuration.getConnectionTimeToLive())
+                    .connectionMaxIdleTime(configuration.getConnectionMaxIdleTime())
+                    .tcpKeepAlive(configuration.isTcpKeepAlive()))
+            .overrideConfiguration(getOverrideConfiguration(configuration, metricsPublisher))
             .region(
                 configuration
                     .getRegion()
@@ -47,7 +67,55 @@ class DynamoDbClientProvider implements Provider<DynamoDbClient> {
     return builder.build();
   }
 
-  private AwsCredentialsProvider getCredentialsProvider() {
+  static ClientOverrideConfiguration getOverrideConfiguration(
+      Configuration configuration, MetricPublisher metricsPublisher) {
+    ClientOverrideConfiguration.Builder builder =
+        ClientOverrideConfiguration.builder().addMetricPublisher(metricsPublisher);
+    configuration.getApiCallTimeout().ifPresent(builder::apiCallTimeout);
+    configuration.getApiCallAttemptTimeout().ifPresent(builder::apiCallAttemptTimeout);
+    configureRetryStrategy(configuration, builder);
+    return builder.build();
+  }
+
+  /**
+   * Applies the configured retry settings on top of the strategy of the configured retry mode, or
+   * of the default strategy of the client when no mode is configured, which keeps the DynamoDB
+   * specific defaults of the settings that are not configured.
+   */
+  static void configureRetryStrategy(
+      Configuration configuration, ClientOverrideConfiguration.Builder builder) {
+    Consumer<RetryStrategy.Builder<?, ?>> configurator =
+        retryStrategy -> {
+          configuration.getRetryMaxAttempts().ifPresent(retryStrategy::maxAttempts);
+          configuration
+              .getRetryBackoffBase()
+              .ifPresent(
+                  base ->
+                      retryStrategy.backoffStrategy(
+                          BackoffStrategy.exponentialDelay(
+                              base, configuration.getRetryBackoffMax())));
+          configuration
+              .getRetryThrottlingBackoffBase()
+              .ifPresent(
+                  base ->
+                      retryStrategy.throttlingBackoffStrategy(
+                          BackoffStrategy.exponentialDelay(
+                              base, configuration.getRetryBackoffMax())));
+        };
+    Optional<RetryMode> retryMode = configuration.getRetryMode();
+    if (retryMode.isPresent()) {
+      RetryStrategy.Builder<?, ?> retryStrategy =
+          AwsRetryStrategy.forRetryMode(retryMode.get()).toBuilder();
+      configurator.accept(retryStrategy);
+      builder.retryStrategy(retryStrategy.build());
+    } else if (configuration.getRetryMaxAttempts().isPresent()
+        || configuration.getRetryBackoffBase().isPresent()
+        || configuration.getRetryThrottlingBackoffBase().isPresent()) {
+      builder.retryStrategy(configurator);
+    }
+  }
+
+  static AwsCredentialsProvider getCredentialsProvider(Configuration configuration) {
     return configuration
         .getAwsConfigurationProfileName()
         .<AwsCredentialsProvider>map(
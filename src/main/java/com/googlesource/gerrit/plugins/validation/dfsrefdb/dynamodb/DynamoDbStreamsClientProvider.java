@@ -0,0 +1,58 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
+
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.regions.providers.DefaultAwsRegionProviderChain;
+import software.amazon.awssdk.services.dynamodb.streams.DynamoDbStreamsClient;
+import software.amazon.awssdk.services.dynamodb.streams.DynamoDbStreamsClientBuilder;
+
+@Singleton
+class DynamoDbStreamsClientProvider implements Provider<DynamoDbStreamsClient> {
+  private final Configuration configuration;
+  private final SdkMetricsPublisher metricsPublisher;
+
+  @Inject
+  DynamoDbStreamsClientProvider(Configuration configuration, SdkMetricsPublisher metricsPublisher) {
+    this.configuration = configuration;
+    this.metricsPublisher = metricsPublisher;
+  }
+
+  @Override
+  public DynamoDbStreamsClient get() {
+    // The stream is read by a single thread.
+    DynamoDbStreamsClientBuilder builder =
+        DynamoDbStreamsClient.builder()
+            .credentialsProvider(DynamoDbClientProvider.getCredentialsProvider(configuration))
+            .httpClientBuilder(
+                ApacheHttpClient.builder()
+                    .maxConnections(1)
+                    .connectionTimeout(configuration.getConnectionTimeout())
+                    .connectionMaxIdleTime(configuration.getConnectionMaxIdleTime())
+                    .tcpKeepAlive(configuration.isTcpKeepAlive()))
+            .overrideConfiguration(
+                DynamoDbClientProvider.getOverrideConfiguration(configuration, metricsPublisher))
+            .region(
+                configuration
+                    .getRegion()
+                    .orElseGet(() -> new DefaultAwsRegionProviderChain().getRegion()));
+    configuration.getEndpoint().ifPresent(builder::endpointOverride);
+
+    return builder.build();
+  }
+}
@@ -0,0 +1,40 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/** Exponential backoff with full jitter between retries of a DynamoDB operation. */
+class ExponentialBackoff {
+  private final long baseMillis;
+  private final long maxMillis;
+
+  ExponentialBackoff(Duration base, Duration max) {
+    this.baseMillis = Math.max(1, base.toMillis());
+    this.maxMillis = Math.max(baseMillis, max.toMillis());
+  }
+
+  /**
+   * Returns a random delay between zero and {@code min(max, base * 2^(retry - 1))}.
+   *
+   * @param retry the number of the retry about to be performed, starting from 1.
+   */
+  Duration delay(int retry) {
+    int shift = Math.min(Math.max(retry - 1, 0), 30);
+    long ceiling = Math.min(maxMillis, baseMillis << shift);
+    return Duration.ofMillis(ThreadLocalRandom.current().nextLong(ceiling + 1));
+  }
+}
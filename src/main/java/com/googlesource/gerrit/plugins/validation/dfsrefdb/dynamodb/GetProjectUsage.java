@@ -0,0 +1,50 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
+
+import static com.google.gerrit.common.data.GlobalCapability.MAINTAIN_SERVER;
+import static com.google.gerrit.common.data.GlobalCapability.VIEW_CACHES;
+
+import com.google.gerrit.extensions.annotations.RequiresAnyCapability;
+import com.google.gerrit.extensions.restapi.Response;
+import com.google.gerrit.extensions.restapi.RestReadView;
+import com.google.gerrit.server.config.ConfigResource;
+import com.google.inject.Inject;
+import com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.ProjectUsageTracker.ProjectUsage;
+import java.util.List;
+import org.kohsuke.args4j.Option;
+
+/** Lists the projects whose refdb requests consumed the most DynamoDB capacity units. */
+@RequiresAnyCapability({VIEW_CACHES, MAINTAIN_SERVER})
+class GetProjectUsage implements RestReadView<ConfigResource> {
+  private final ProjectUsageTracker projectUsageTracker;
+
+  @Option(
+      name = "--limit",
+      aliases = {"-n"},
+      metaVar = "CNT",
+      usage = "maximum number of projects to list")
+  private int limit = Integer.MAX_VALUE;
+
+  @Inject
+  GetProjectUsage(ProjectUsageTracker projectUsageTracker) {
+    this.projectUsageTracker = projectUsageTracker;
+  }
+
+  @Override
+  public Response<List<ProjectUsage>> apply(ConfigResource resource) {
+    return Response.ok(projectUsageTracker.top(Math.max(0, limit)));
+  }
+}
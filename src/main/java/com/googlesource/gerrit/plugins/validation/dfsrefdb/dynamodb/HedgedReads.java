@@ -0,0 +1,181 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
+
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.DynamoDBMetrics.THROTTLED;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Sends a second, identical request when a read has not answered within a percentile of the recent
+ * read latencies, and completes with the first successful response.
+ *
+ * <p>Hedges are paid for by a budget that each read credits with {@code hedgedReadsBudget} percent
+ * of a request, so that they add at most that share of requests on top of the reads. The budget is
+ * emptied whenever a read is throttled and is not credited again for a second, so that hedges do
+ * not add load to a table that is already over its capacity.
+ */
+@Singleton
+class HedgedReads {
+  @VisibleForTesting static final int LATENCY_SAMPLES = 1000;
+  private static final int MIN_SAMPLES = 100;
+  private static final int DELAY_UPDATE_INTERVAL = 100;
+  private static final double MAX_BUDGET = 10;
+  private static final long THROTTLING_COOL_DOWN_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private final boolean enabled;
+  private final int percentile;
+  private final long minDelayNanos;
+  private final double budgetPerRead;
+  private final DynamoDBMetrics metrics;
+
+  private final AtomicLongArray latencies = new AtomicLongArray(LATENCY_SAMPLES);
+  private final AtomicLong samples = new AtomicLong();
+  private volatile long delayNanos = -1;
+  private double budget;
+  private long creditResumesAtNanos = System.nanoTime();
+
+  @Inject
+  HedgedReads(Configuration configuration, DynamoDBMetrics metrics) {
+    this.enabled = configuration.isHedgedReadsEnabled();
+    this.percentile = configuration.getHedgedReadsPercentile();
+    this.minDelayNanos = configuration.getHedgedReadsMinDelay().toNanos();
+    this.budgetPerRead = configuration.getHedgedReadsBudget() / 100.0;
+    this.metrics = metrics;
+  }
+
+  /**
+   * Sends the idempotent {@code read}, and sends it again if it has not answered by the hedging
+   * delay. Hedging only starts once enough latencies have been sampled to compute the delay.
+   *
+   * @return a future that completes with the first successful response, or with the failure of the
+   *     last request when all of them failed.
+   */
+  <T> CompletableFuture<T> read(Supplier<CompletableFuture<T>> read) {
+    return read(read, () -> true);
+  }
+
+  /**
+   * Like {@link #read(Supplier)}, but only sends the hedge if {@code mayHedge} allows it when the
+   * hedging delay has elapsed, e.g. when there is capacity left for it.
+   */
+  <T> CompletableFuture<T> read(Supplier<CompletableFuture<T>> read, BooleanSupplier mayHedge) {
+    if (!enabled) {
+      return read.get();
+    }
+    creditBudget();
+    long hedgingDelayNanos = delayNanos;
+    CompletableFuture<T> result = new CompletableFuture<>();
+    AtomicInteger pending = new AtomicInteger(1);
+    race(send(read), result, pending, false);
+    if (hedgingDelayNanos >= 0 && !result.isDone()) {
+      CompletableFuture.delayedExecutor(hedgingDelayNanos, TimeUnit.NANOSECONDS)
+          .execute(
+              () -> {
+                if (!result.isDone() && tryDebitBudget() && mayHedge.getAsBoolean()) {
+                  pending.incrementAndGet();
+                  race(send(read), result, pending, true);
+                }
+              });
+    }
+    return result;
+  }
+
+  /** Returns the current hedging delay in nanoseconds, or -1 until enough reads were sampled. */
+  @VisibleForTesting
+  long delayNanos() {
+    return delayNanos;
+  }
+
+  private <T> CompletableFuture<T> send(Supplier<CompletableFuture<T>> read) {
+    long startNanos = System.nanoTime();
+    return read.get()
+        .whenComplete(
+            (response, error) -> {
+              if (error == null) {
+                sample(System.nanoTime() - startNanos);
+              } else if (THROTTLED.equals(DynamoDBMetrics.outcomeOf(error))) {
+                emptyBudget();
+              }
+            });
+  }
+
+  private <T> void race(
+      CompletableFuture<T> request,
+      CompletableFuture<T> result,
+      AtomicInteger pending,
+      boolean hedge) {
+    request.whenComplete(
+        (response, error) -> {
+          if (error == null) {
+            boolean won = result.complete(response);
+            if (hedge) {
+              metrics.recordHedgedRead(won);
+            }
+          } else {
+            if (hedge) {
+              metrics.recordHedgedRead(false);
+            }
+            if (pending.decrementAndGet() == 0) {
+              result.completeExceptionally(error);
+            }
+          }
+        });
+  }
+
+  private void sample(long latencyNanos) {
+    long sample = samples.getAndIncrement();
+    latencies.set((int) (sample % LATENCY_SAMPLES), latencyNanos);
+    if (sample + 1 >= MIN_SAMPLES && (sample + 1) % DELAY_UPDATE_INTERVAL == 0) {
+      int sampled = (int) Math.min(sample + 1, LATENCY_SAMPLES);
+      long[] sorted = new long[sampled];
+      for (int i = 0; i < sampled; i++) {
+        sorted[i] = latencies.get(i);
+      }
+      Arrays.sort(sorted);
+      long percentileNanos = sorted[Math.min(sampled - 1, sampled * percentile / 100)];
+      delayNanos = Math.max(minDelayNanos, percentileNanos);
+    }
+  }
+
+  private synchronized void creditBudget() {
+    if (System.nanoTime() - creditResumesAtNanos >= 0) {
+      budget = Math.min(MAX_BUDGET, budget + budgetPerRead);
+    }
+  }
+
+  private synchronized boolean tryDebitBudget() {
+    if (budget < 1) {
+      return false;
+    }
+    budget--;
+    return true;
+  }
+
+  private synchronized void emptyBudget() {
+    budget = 0;
+    creditResumesAtNanos = System.nanoTime() + THROTTLING_COOL_DOWN_NANOS;
+  }
+}
@@ -0,0 +1,212 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Detects the refs that receive most of the traffic of this node, and serves them from a
+ * short-lived local cache while sharing their concurrent reads.
+ *
+ * <p>Accesses are counted per ref path in a count-min sketch, whose counters are halved every
+ * {@code hotRefsWindow} accesses so that the counts follow the recent traffic. A ref is hot while
+ * its estimated count reaches {@code hotRefsThreshold}. The sketch may overestimate the count of a
+ * ref, never underestimate it.
+ *
+ * <p>The values of hot refs are only cached here while the {@link RefValueCache} is disabled, since
+ * it caches the values of all refs otherwise.
+ *
+ * <p>Counters are aged lazily: each one keeps the window it was last updated in, and is halved once
+ * per window elapsed since when it is next read or updated. No access thus pays for aging the whole
+ * sketch.
+ */
+@Singleton
+class HotRefs {
+  @VisibleForTesting static final int SKETCH_WIDTH = 4096;
+  private static final int SKETCH_DEPTH = 4;
+  private static final int CACHE_MAX_SIZE = 1000;
+  private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+  private final boolean enabled;
+  private final boolean cacheEnabled;
+  private final int threshold;
+  private final int window;
+  private final DynamoDBMetrics metrics;
+  // Each counter holds the window it was last updated in as high bits, and its count as low bits.
+  private final AtomicLongArray counters = new AtomicLongArray(SKETCH_DEPTH * SKETCH_WIDTH);
+  private final AtomicLong accesses = new AtomicLong();
+  private final Cache<String, String> cache;
+  private final ConcurrentMap<String, CompletableFuture<?>> inFlightReads =
+      new ConcurrentHashMap<>();
+
+  @Inject
+  HotRefs(Configuration configuration, DynamoDBMetrics metrics) {
+    this.enabled = configuration.isHotRefsEnabled();
+    this.cacheEnabled = enabled && !configuration.isRefValueCacheEnabled();
+    this.threshold = configuration.getHotRefsThreshold();
+    this.window = configuration.getHotRefsWindow();
+    this.metrics = metrics;
+    this.cache =
+        CacheBuilder.newBuilder()
+            .expireAfterWrite(configuration.getHotRefsCacheTtl())
+            .maximumSize(CACHE_MAX_SIZE)
+            .build();
+  }
+
+  /** Counts an access to the ref at {@code refPath}. */
+  void recordAccess(String refPath) {
+    if (!enabled) {
+      return;
+    }
+    long hash = HASH_FUNCTION.hashString(refPath, UTF_8).asLong();
+    int currentWindow = (int) (accesses.getAndIncrement() / window);
+    for (int row = 0; row < SKETCH_DEPTH; row++) {
+      counters.updateAndGet(
+          index(hash, row),
+          counter ->
+              counter(Math.max(currentWindow, window(counter)), count(counter, currentWindow) + 1));
+    }
+  }
+
+  boolean isHot(String refPath) {
+    return enabled && estimate(refPath) >= threshold;
+  }
+
+  Optional<String> get(String refPath) {
+    return cacheEnabled ? Optional.ofNullable(cache.getIfPresent(refPath)) : Optional.empty();
+  }
+
+  /** Caches the value of the ref at {@code refPath}, if it is hot. */
+  void put(String refPath, String refValue) {
+    if (cacheEnabled && isHot(refPath)) {
+      cache.put(refPath, refValue);
+    }
+  }
+
+  void invalidate(String refPath) {
+    if (cacheEnabled) {
+      cache.invalidate(refPath);
+    }
+  }
+
+  /** Evicts the cached value of the ref at {@code refPath}, if it is {@code refValue}. */
+  void remove(String refPath, String refValue) {
+    if (cacheEnabled) {
+      cache.asMap().remove(refPath, refValue);
+    }
+  }
+
+  /**
+   * Sends {@code read} of the ref at {@code refPath}, unless the ref is hot and a read of the same
+   * consistency is already in flight, whose response is then shared. A shared response may thus be
+   * as old as the start of the read in flight, unless this node wrote the ref since, see {@link
+   * #detachReads}.
+   */
+  @SuppressWarnings("unchecked")
+  <T> CompletableFuture<T> read(
+      String refPath, boolean consistentRead, Supplier<CompletableFuture<T>> read) {
+    if (!isHot(refPath)) {
+      return read.get();
+    }
+    String key = readKey(refPath, consistentRead);
+    CompletableFuture<T> response = new CompletableFuture<>();
+    CompletableFuture<T> inFlight = (CompletableFuture<T>) inFlightReads.putIfAbsent(key, response);
+    if (inFlight != null) {
+      metrics.recordCoalescedRead();
+      return inFlight.copy();
+    }
+    CompletableFuture<T> sent;
+    try {
+      sent = read.get();
+    } catch (RuntimeException e) {
+      sent = CompletableFuture.failedFuture(e);
+    }
+    sent.whenComplete(
+        (value, error) -> {
+          inFlightReads.remove(key, response);
+          if (error != null) {
+            response.completeExceptionally(error);
+          } else {
+            response.complete(value);
+          }
+        });
+    return response.copy();
+  }
+
+  /**
+   * Stops sharing the reads of the ref at {@code refPath} in flight, so that the reads started from
+   * now on are sent anew. Must be called when this node writes or evicts the ref, since the reads
+   * in flight may have been sent before the write.
+   */
+  void detachReads(String refPath) {
+    if (enabled) {
+      inFlightReads.remove(readKey(refPath, true));
+      inFlightReads.remove(readKey(refPath, false));
+    }
+  }
+
+  private static String readKey(String refPath, boolean consistentRead) {
+    return (consistentRead ? "consistent:" : "eventual:") + refPath;
+  }
+
+  @VisibleForTesting
+  int estimate(String refPath) {
+    long hash = HASH_FUNCTION.hashString(refPath, UTF_8).asLong();
+    int currentWindow = (int) (accesses.get() / window);
+    int estimate = Integer.MAX_VALUE;
+    for (int row = 0; row < SKETCH_DEPTH; row++) {
+      estimate = Math.min(estimate, count(counters.get(index(hash, row)), currentWindow));
+    }
+    return estimate;
+  }
+
+  private static long counter(int window, int count) {
+    return ((long) window << 32) | count;
+  }
+
+  private static int window(long counter) {
+    return (int) (counter >>> 32);
+  }
+
+  /**
+   * Returns the count of {@code counter}, halved once per window elapsed since its own. A counter
+   * updated by a concurrent access of a later window is not halved.
+   */
+  private static int count(long counter, int currentWindow) {
+    int elapsedWindows = Math.max(currentWindow - window(counter), 0);
+    return elapsedWindows >= Integer.SIZE ? 0 : (int) counter >>> elapsedWindows;
+  }
+
+  private static int index(long hash, int row) {
+    int hash1 = (int) hash;
+    int hash2 = (int) (hash >>> 32);
+    return row * SKETCH_WIDTH + ((hash1 + row * hash2) & (SKETCH_WIDTH - 1));
+  }
+}
@@ -0,0 +1,190 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.flogger.FluentLogger;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.google.gerrit.entities.Project;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+/**
+ * Per-project Bloom filters of the refs stored in the refsDb table, which tell that a ref is not
+ * stored without reading it.
+ *
+ * <p>Refs created by other nodes are only known once reported by the change feed, hence the filters
+ * are only suitable for checks that are validated later on, such as {@code isUpToDate} before a
+ * compare-and-put.
+ *
+ * <p>The filter of a version-qualified project is built on its first lookup, by a {@code Query} of
+ * its partition, and is only used once built. Filters are then kept up to date with the refs
+ * written by this node and the changes reported by the {@link RefsDbChangeFeed} for the other
+ * nodes, and are dropped whenever the feed starts over. A filter is also dropped, to be built again
+ * with a larger size, when it holds more refs than it was sized for.
+ *
+ * <p>Known refs are only enabled with the {@link RefsDbTableLayout#PARTITIONED} layout and the
+ * change feed.
+ */
+@Singleton
+class KnownRefs implements RefsDbChangeFeed.Listener {
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+  @VisibleForTesting static final int MIN_EXPECTED_REFS = 1000;
+
+  private final boolean enabled;
+  private final double falsePositiveRate;
+  private final RefsDbTableLayout refsDbTableLayout;
+  private final Provider<DynamoDBRefDatabase> dynamoDBRefDatabaseProvider;
+  private final DynamoDBMetrics metrics;
+  private final Cache<String, Filter> filters;
+
+  @Inject
+  KnownRefs(
+      Configuration configuration,
+      Provider<DynamoDBRefDatabase> dynamoDBRefDatabaseProvider,
+      DynamoDBMetrics metrics) {
+    this.refsDbTableLayout = configuration.getRefsDbTableLayout();
+    this.enabled =
+        configuration.isKnownRefsEnabled()
+            && configuration.isChangeFeedEnabled()
+            && refsDbTableLayout == RefsDbTableLayout.PARTITIONED;
+    if (configuration.isKnownRefsEnabled() && !enabled) {
+      logger.atWarning().log(
+          "Known refs require the change feed and the %s refsDb table layout, ignoring them",
+          RefsDbTableLayout.PARTITIONED);
+    }
+    this.falsePositiveRate = configuration.getKnownRefsFalsePositiveRate() / 100.0;
+    this.dynamoDBRefDatabaseProvider = dynamoDBRefDatabaseProvider;
+    this.metrics = metrics;
+    this.filters =
+        CacheBuilder.newBuilder().maximumSize(configuration.getKnownRefsProjects()).build();
+  }
+
+  /**
+   * Returns {@code true} when the ref identified by {@code key} is definitely not stored. Starts
+   * building the filter of its project when missing.
+   */
+  boolean isAbsent(Project.NameKey project, RefsDbKey key) {
+    if (!enabled) {
+      return false;
+    }
+    Filter filter = filters.getIfPresent(key.partition());
+    if (filter == null) {
+      build(project, key.partition());
+      return false;
+    }
+    boolean absent = filter.isAbsent(key.sortKey());
+    if (absent) {
+      metrics.recordAbsentRef();
+    }
+    return absent;
+  }
+
+  /** Adds the ref identified by {@code key}, before it is written by this node. */
+  void add(RefsDbKey key) {
+    if (enabled) {
+      add(key.partition(), key.sortKey());
+    }
+  }
+
+  @Override
+  public void onReset() {
+    filters.invalidateAll();
+  }
+
+  @Override
+  public void onChange(Map<String, AttributeValue> key) {
+    if (enabled) {
+      for (String partition : refsDbTableLayout.partitions(key)) {
+        add(partition, key.get(DynamoDBRefDatabase.REF_DB_SORT_KEY).s());
+      }
+    }
+  }
+
+  private void add(String partition, String refName) {
+    Filter filter = filters.getIfPresent(partition);
+    if (filter != null && !filter.add(refName)) {
+      filters.asMap().remove(partition, filter);
+    }
+  }
+
+  private void build(Project.NameKey project, String partition) {
+    Filter filter = new Filter();
+    if (filters.asMap().putIfAbsent(partition, filter) != null) {
+      return;
+    }
+    List<String> refNames = new ArrayList<>();
+    dynamoDBRefDatabaseProvider
+        .get()
+        .readRefNamesAsync(project, partition, refNames::add)
+        .whenComplete(
+            (v, error) -> {
+              if (error != null) {
+                logger.atWarning().atMostEvery(1, TimeUnit.MINUTES).withCause(error).log(
+                    "Unable to read the refs of %s", partition);
+                filters.asMap().remove(partition, filter);
+                return;
+              }
+              filter.build(refNames, falsePositiveRate);
+            });
+  }
+
+  /**
+   * The Bloom filter of a project, only usable once built. Refs added while it is being built are
+   * kept aside and added once built.
+   */
+  private static class Filter {
+    private volatile BloomFilter<CharSequence> bloomFilter;
+    private long expectedRefs;
+    private List<String> pendingRefNames = new ArrayList<>();
+
+    boolean isAbsent(String refName) {
+      BloomFilter<CharSequence> built = bloomFilter;
+      return built != null && !built.mightContain(refName);
+    }
+
+    /** Returns {@code false} when the filter holds more refs than it was sized for. */
+    synchronized boolean add(String refName) {
+      if (bloomFilter == null) {
+        pendingRefNames.add(refName);
+        return true;
+      }
+      bloomFilter.put(refName);
+      return bloomFilter.approximateElementCount() <= expectedRefs;
+    }
+
+    synchronized void build(List<String> refNames, double falsePositiveRate) {
+      // Leaves room for the refs created after the filter was built.
+      expectedRefs = Math.max(MIN_EXPECTED_REFS, 2L * (refNames.size() + pendingRefNames.size()));
+      BloomFilter<CharSequence> built =
+          BloomFilter.create(Funnels.stringFunnel(UTF_8), expectedRefs, falsePositiveRate);
+      refNames.forEach(built::put);
+      pendingRefNames.forEach(built::put);
+      pendingRefNames = null;
+      bloomFilter = built;
+    }
+  }
+}
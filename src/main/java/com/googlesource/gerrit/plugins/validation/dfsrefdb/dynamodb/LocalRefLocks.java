@@ -0,0 +1,70 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.inject.Singleton;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Per-ref locks local to this node, acquired before competing for the DynamoDB lock of the same
+ * ref, so that only one thread per node polls the lock table for a given ref at any time.
+ *
+ * <p>Locks are semaphores rather than reentrant locks, because the lock returned by {@link
+ * DynamoDBRefDatabase#lockRef} is not necessarily released by the thread that acquired it. They are
+ * weakly referenced and garbage collected once no thread holds or waits for them.
+ */
+@Singleton
+class LocalRefLocks {
+
+  /** A lock held by this node on a ref path. Closing it more than once has no effect. */
+  static class LocalLock implements AutoCloseable {
+    private final Semaphore semaphore;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    private LocalLock(Semaphore semaphore) {
+      this.semaphore = semaphore;
+    }
+
+    @Override
+    public void close() {
+      if (released.compareAndSet(false, true)) {
+        semaphore.release();
+      }
+    }
+  }
+
+  private final LoadingCache<String, Semaphore> semaphores =
+      CacheBuilder.newBuilder().weakValues().build(CacheLoader.from(() -> new Semaphore(1)));
+
+  /**
+   * Acquires the local lock of {@code refPath}, waiting at most {@code timeout} for other threads
+   * of this node to release it.
+   */
+  LocalLock lock(String refPath, Duration timeout) throws InterruptedException, TimeoutException {
+    Semaphore semaphore = semaphores.getUnchecked(refPath);
+    if (!semaphore.tryAcquire(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+      throw new TimeoutException(
+          String.format("Timed out after %s waiting for local lock on %s", timeout, refPath));
+    }
+    return new LocalLock(semaphore);
+  }
+}
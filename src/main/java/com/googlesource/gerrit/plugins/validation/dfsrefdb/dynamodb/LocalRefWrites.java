@@ -0,0 +1,53 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
+
+import com.google.inject.Singleton;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts the writes and evictions of this node per ref path, so that a value read from DynamoDB is
+ * only cached when the ref was neither written nor evicted by this node while it was read: the read
+ * may otherwise overwrite a newer value in the node-local caches.
+ *
+ * <p>Writes are counted by counters shared by the paths hashing to the same stripe, so that their
+ * number stays bounded. A write to another path of the same stripe may thus prevent a value from
+ * being cached, never let a stale one be cached.
+ */
+@Singleton
+class LocalRefWrites {
+  private static final int STRIPES = 4096;
+
+  private final AtomicLongArray stamps = new AtomicLongArray(STRIPES);
+
+  /** Returns the stamp of {@code refPath}, to be taken before reading it. */
+  long stamp(String refPath) {
+    return stamps.get(stripe(refPath));
+  }
+
+  /** Must be called before caching a value written to {@code refPath}, or evicting it. */
+  void record(String refPath) {
+    stamps.incrementAndGet(stripe(refPath));
+  }
+
+  /** Returns whether {@code refPath} was neither written nor evicted since {@code stamp}. */
+  boolean isUnchangedSince(String refPath, long stamp) {
+    return stamps.get(stripe(refPath)) == stamp;
+  }
+
+  private static int stripe(String refPath) {
+    return Math.floorMod(refPath.hashCode(), STRIPES);
+  }
+}
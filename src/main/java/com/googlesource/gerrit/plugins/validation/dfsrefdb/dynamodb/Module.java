@@ -14,28 +14,61 @@
 
 package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
 
+import static com.google.gerrit.server.config.ConfigResource.CONFIG_KIND;
 import static com.google.inject.Scopes.SINGLETON;
 
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDBLockClient;
 import com.gerritforge.gerrit.globalrefdb.GlobalRefDatabase;
 import com.google.common.flogger.FluentLogger;
 import com.google.gerrit.extensions.registration.DynamicItem;
+import com.google.gerrit.extensions.restapi.RestApiModule;
 import com.google.gerrit.lifecycle.LifecycleModule;
+import com.google.inject.Inject;
 import com.google.inject.Scopes;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.streams.DynamoDbStreamsClient;
 
 class Module extends LifecycleModule {
   private static final FluentLogger logger = FluentLogger.forEnclosingClass();
 
+  private final Configuration configuration;
+
+  @Inject
+  Module(Configuration configuration) {
+    this.configuration = configuration;
+  }
+
   @Override
   protected void configure() {
     logger.atInfo().log("Shared ref-db engine: DynamoDB");
     DynamicItem.bind(binder(), GlobalRefDatabase.class)
         .to(DynamoDBRefDatabase.class)
         .in(Scopes.SINGLETON);
-    install(new ProjectVersionCacheModule());
+    install(new ProjectVersionCacheModule(configuration.isChangeFeedEnabled()));
+    install(new RefValueCacheModule());
     bind(DynamoDbClient.class).toProvider(DynamoDbClientProvider.class).in(SINGLETON);
+    bind(DynamoDbAsyncClient.class).toProvider(DynamoDbAsyncClientProvider.class).in(SINGLETON);
     bind(AmazonDynamoDBLockClient.class).toProvider(DynamoDBLockClientProvider.class).in(SINGLETON);
     listener().to(DynamoDBLifeCycleManager.class);
+    if (configuration.isProjectUsageEnabled()) {
+      install(
+          new RestApiModule() {
+            @Override
+            protected void configure() {
+              get(CONFIG_KIND, "project-usage").to(GetProjectUsage.class);
+            }
+          });
+    }
+    if (configuration.isSweeperEnabled()) {
+      listener().to(RefsDbSweeper.class);
+    }
+    if (configuration.isChangeFeedEnabled()) {
+      bind(DynamoDbStreamsClient.class)
+          .toProvider(DynamoDbStreamsClientProvider.class)
+          .in(SINGLETON);
+      bind(RefsDbChangeFeed.class).to(DynamoDBStreamsChangeFeed.class);
+      listener().to(ProjectVersionCacheInvalidator.class);
+    }
   }
 }
@@ -0,0 +1,240 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
+
+import static java.util.Comparator.comparingDouble;
+import static java.util.stream.Collectors.toList;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.gerrit.common.Nullable;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.metrics.CallbackMetric1;
+import com.google.gerrit.metrics.Description;
+import com.google.gerrit.metrics.Field;
+import com.google.gerrit.metrics.MetricMaker;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.CapacityLimiter.Capacity;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Queue;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Accounts for the capacity units consumed by the refdb requests of each project, along with their
+ * number and latency, keeping only the heaviest consumers.
+ *
+ * <p>The projects are tracked with the space-saving algorithm: once {@code projectUsageProjects}
+ * projects are tracked, a request of an untracked project replaces the project that consumed the
+ * fewest units, and inherits its units as an overestimate. Any project that consumed more than
+ * {@code 1 / projectUsageProjects} of the units since startup is guaranteed to be tracked, with its
+ * units overestimated by at most {@link ProjectUsage#overestimatedUnits}. The tracked projects are
+ * kept ordered by units, so that the one to replace is found in logarithmic time.
+ *
+ * <p>Requests are queued, and applied by whichever request thread or metrics reader next gets the
+ * lock of the tracker, so that request threads never wait for each other.
+ */
+@Singleton
+class ProjectUsageTracker {
+  private final boolean enabled;
+  private final int maxProjects;
+  private final Queue<Request> pendingRequests = new ConcurrentLinkedQueue<>();
+  private final ReentrantLock lock = new ReentrantLock();
+  // Guarded by lock.
+  private final Map<String, ProjectUsage> usages = new HashMap<>();
+  // The tracked projects ordered by units. Guarded by lock.
+  private final NavigableSet<ProjectUsage> usagesByUnits =
+      new TreeSet<>(comparingDouble(ProjectUsage::units).thenComparing(usage -> usage.project));
+
+  @Inject
+  ProjectUsageTracker(Configuration configuration, MetricMaker metricMaker) {
+    this.enabled = configuration.isProjectUsageEnabled();
+    this.maxProjects = configuration.getProjectUsageProjects();
+    if (enabled) {
+      registerMetrics(metricMaker);
+    }
+  }
+
+  /**
+   * Records a request of {@code project} that consumed {@code units} of {@code capacity} and
+   * completed in {@code latencyNanos}.
+   */
+  void record(
+      @Nullable Project.NameKey project, Capacity capacity, double units, long latencyNanos) {
+    if (!enabled || project == null) {
+      return;
+    }
+    pendingRequests.add(new Request(project.get(), capacity, units, latencyNanos));
+    // The request is otherwise applied by the thread holding the lock, or by the next one.
+    if (lock.tryLock()) {
+      try {
+        applyPendingRequests();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  /** Returns the usage of the {@code limit} projects that consumed the most units. */
+  List<ProjectUsage> top(int limit) {
+    lock.lock();
+    try {
+      applyPendingRequests();
+      return usagesByUnits.descendingSet().stream()
+          .limit(limit)
+          .map(ProjectUsage::copy)
+          .collect(toList());
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void applyPendingRequests() {
+    Request request;
+    while ((request = pendingRequests.poll()) != null) {
+      ProjectUsage usage = usages.get(request.project);
+      if (usage == null) {
+        usage = track(request.project);
+      } else {
+        // Reinserted below, once its units are updated.
+        usagesByUnits.remove(usage);
+      }
+      if (request.capacity == Capacity.READ) {
+        usage.readUnits += request.units;
+      } else {
+        usage.writeUnits += request.units;
+      }
+      usage.requests++;
+      usage.latencyMillis += TimeUnit.NANOSECONDS.toMillis(request.latencyNanos);
+      usagesByUnits.add(usage);
+    }
+  }
+
+  private ProjectUsage track(String project) {
+    ProjectUsage usage = new ProjectUsage(project);
+    if (usages.size() >= maxProjects) {
+      ProjectUsage evicted = usagesByUnits.pollFirst();
+      usages.remove(evicted.project);
+      // The inherited units keep the split between reads and writes of the evicted project.
+      usage.overestimatedUnits = evicted.units();
+      usage.readUnits = evicted.readUnits;
+      usage.writeUnits = evicted.writeUnits;
+    }
+    usages.put(project, usage);
+    return usage;
+  }
+
+  private void registerMetrics(MetricMaker metricMaker) {
+    Field<String> projectField =
+        Field.ofString("project", Field.ignoreMetadata())
+            .description("One of the projects that consumed the most capacity units")
+            .build();
+    CallbackMetric1<String, Double> readUnits =
+        metricMaker.newCallbackMetric(
+            "project_usage/read_units",
+            Double.class,
+            new Description("Read capacity units consumed by the refdb requests of a project")
+                .setCumulative()
+                .setUnit("units"),
+            projectField);
+    CallbackMetric1<String, Double> writeUnits =
+        metricMaker.newCallbackMetric(
+            "project_usage/write_units",
+            Double.class,
+            new Description("Write capacity units consumed by the refdb requests of a project")
+                .setCumulative()
+                .setUnit("units"),
+            projectField);
+    CallbackMetric1<String, Long> requests =
+        metricMaker.newCallbackMetric(
+            "project_usage/requests",
+            Long.class,
+            new Description("Number of refdb requests of a project")
+                .setCumulative()
+                .setUnit("requests"),
+            projectField);
+    CallbackMetric1<String, Long> latency =
+        metricMaker.newCallbackMetric(
+            "project_usage/latency",
+            Long.class,
+            new Description("Total latency of the refdb requests of a project")
+                .setCumulative()
+                .setUnit(Description.Units.MILLISECONDS),
+            projectField);
+    metricMaker.newTrigger(
+        ImmutableSet.of(readUnits, writeUnits, requests, latency),
+        () -> {
+          for (ProjectUsage usage : top(maxProjects)) {
+            readUnits.set(usage.project, usage.readUnits);
+            writeUnits.set(usage.project, usage.writeUnits);
+            requests.set(usage.project, usage.requests);
+            latency.set(usage.project, usage.latencyMillis);
+          }
+          readUnits.prune();
+          writeUnits.prune();
+          requests.prune();
+          latency.prune();
+        });
+  }
+
+  private static class Request {
+    final String project;
+    final Capacity capacity;
+    final double units;
+    final long latencyNanos;
+
+    Request(String project, Capacity capacity, double units, long latencyNanos) {
+      this.project = project;
+      this.capacity = capacity;
+      this.units = units;
+      this.latencyNanos = latencyNanos;
+    }
+  }
+
+  /**
+   * The usage of a project. Requests and latency are counted since the project was last tracked.
+   */
+  static class ProjectUsage {
+    String project;
+    double readUnits;
+    double writeUnits;
+    double overestimatedUnits;
+    long requests;
+    long latencyMillis;
+
+    ProjectUsage(String project) {
+      this.project = project;
+    }
+
+    double units() {
+      return readUnits + writeUnits;
+    }
+
+    private ProjectUsage copy() {
+      ProjectUsage copy = new ProjectUsage(project);
+      copy.readUnits = readUnits;
+      copy.writeUnits = writeUnits;
+      copy.overestimatedUnits = overestimatedUnits;
+      copy.requests = requests;
+      copy.latencyMillis = latencyMillis;
+      return copy;
+    }
+  }
+}
@@ -0,0 +1,152 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
+
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.ProjectVersionCacheModule.PROJECT_VERSION_CACHE;
+
+import com.google.common.cache.LoadingCache;
+import com.google.common.flogger.FluentLogger;
+import com.google.gerrit.extensions.events.LifecycleListener;
+import com.google.gerrit.server.git.WorkQueue;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+/**
+ * Evicts the cached version of a project as soon as the {@link RefsDbChangeFeed} reports a change
+ * of its version item, so that the versions can be cached without expiry.
+ *
+ * <p>When the feed first starts, the versions restored from the persistent cache are checked
+ * against the refsDb table, since the changes made while the node was down were not followed. The
+ * feed is already followed from its latest records meanwhile, so that no change is missed. Whenever
+ * the feed fails or starts over later on, changes may have been missed and the whole cache is
+ * evicted.
+ *
+ * <p>The changes are also reported to the {@link KnownRefs} filters.
+ *
+ * <p>The project versions warm-up, when enabled, runs once the feed has been read a first time: the
+ * cache is not evicted again unless the feed fails.
+ */
+@Singleton
+class ProjectVersionCacheInvalidator implements LifecycleListener, RefsDbChangeFeed.Listener {
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+  private static final String QUEUE_NAME = "aws-dynamodb-refdb-change-feed";
+
+  private final WorkQueue workQueue;
+  private final RefsDbChangeFeed changeFeed;
+  private final LoadingCache<String, Optional<Integer>> projectVersionCache;
+  private final DynamoDBRefDatabase.ProjectVersionCacheLoader projectVersionCacheLoader;
+  private final RefsDbTableLayout refsDbTableLayout;
+  private final Duration pollInterval;
+  private final ProjectVersionCacheWarmer projectVersionCacheWarmer;
+  private final ProjectVersionCacheValidator projectVersionCacheValidator;
+  private final boolean warmUpEnabled;
+  private final KnownRefs knownRefs;
+  private ScheduledExecutorService executor;
+  // Accessed by the polls, which are never concurrent: the first one runs on the thread calling
+  // start() when the warm-up is enabled, before the following ones are scheduled on the executor.
+  private boolean started;
+
+  @Inject
+  ProjectVersionCacheInvalidator(
+      WorkQueue workQueue,
+      RefsDbChangeFeed changeFeed,
+      @Named(PROJECT_VERSION_CACHE) LoadingCache<String, Optional<Integer>> projectVersionCache,
+      DynamoDBRefDatabase.ProjectVersionCacheLoader projectVersionCacheLoader,
+      ProjectVersionCacheWarmer projectVersionCacheWarmer,
+      ProjectVersionCacheValidator projectVersionCacheValidator,
+      KnownRefs knownRefs,
+      Configuration configuration) {
+    this.workQueue = workQueue;
+    this.changeFeed = changeFeed;
+    this.projectVersionCache = projectVersionCache;
+    this.projectVersionCacheLoader = projectVersionCacheLoader;
+    this.refsDbTableLayout = configuration.getRefsDbTableLayout();
+    this.pollInterval = configuration.getChangeFeedPollInterval();
+    this.projectVersionCacheWarmer = projectVersionCacheWarmer;
+    this.projectVersionCacheValidator = projectVersionCacheValidator;
+    this.warmUpEnabled = configuration.isProjectVersionWarmUpEnabled();
+    this.knownRefs = knownRefs;
+  }
+
+  @Override
+  public void start() {
+    long initialDelay = 0;
+    if (warmUpEnabled) {
+      poll();
+      projectVersionCacheWarmer.warmUp();
+      initialDelay = pollInterval.toMillis();
+    }
+    executor = workQueue.createQueue(1, QUEUE_NAME);
+    executor.scheduleWithFixedDelay(
+        this::poll, initialDelay, pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public void stop() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
+  void poll() {
+    try {
+      changeFeed.poll(this);
+    } catch (RuntimeException e) {
+      logger.atWarning().withCause(e).log(
+          "Unable to read the changes of the refsDb table, evicting all the project versions");
+      evictAll();
+    }
+  }
+
+  @Override
+  public void onReset() {
+    if (!started && !warmUpEnabled) {
+      started = true;
+      knownRefs.onReset();
+      projectVersionCacheValidator.validate();
+      return;
+    }
+    // The warm-up, if enabled, reads all the versions again once the feed has started.
+    started = true;
+    evictAll();
+  }
+
+  private void evictAll() {
+    projectVersionCacheLoader.invalidateAll();
+    projectVersionCache.invalidateAll();
+    knownRefs.onReset();
+  }
+
+  @Override
+  public void onChange(Map<String, AttributeValue> key) {
+    if (refsDbTableLayout.isVersion(key)) {
+      refsDbTableLayout
+          .versionedProject(key)
+          .ifPresent(
+              project -> {
+                projectVersionCacheLoader.invalidate(project);
+                projectVersionCache.invalidate(project);
+              });
+    }
+    knownRefs.onChange(key);
+  }
+}
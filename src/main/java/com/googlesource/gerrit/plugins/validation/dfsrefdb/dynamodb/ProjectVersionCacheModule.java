@@ -13,7 +13,11 @@
 // limitations under the License.
 package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
 
+import com.google.gerrit.server.cache.CacheBinding;
 import com.google.gerrit.server.cache.CacheModule;
+import com.google.gerrit.server.cache.serialize.CacheSerializer;
+import com.google.gerrit.server.cache.serialize.IntegerCacheSerializer;
+import com.google.gerrit.server.cache.serialize.StringCacheSerializer;
 import com.google.inject.TypeLiteral;
 import java.time.Duration;
 import java.util.Optional;
@@ -22,11 +26,51 @@ public class ProjectVersionCacheModule extends CacheModule {
 
   public static final String PROJECT_VERSION_CACHE = "projectVersion";
 
+  private final boolean invalidatedByChangeFeed;
+
+  public ProjectVersionCacheModule() {
+    this(false);
+  }
+
+  /**
+   * @param invalidatedByChangeFeed whether entries are evicted by the {@link
+   *     ProjectVersionCacheInvalidator} when versions change, instead of being refreshed in the
+   *     background after 30 seconds and expiring after a minute.
+   */
+  ProjectVersionCacheModule(boolean invalidatedByChangeFeed) {
+    this.invalidatedByChangeFeed = invalidatedByChangeFeed;
+  }
+
   @Override
   protected void configure() {
-    cache(PROJECT_VERSION_CACHE, String.class, new TypeLiteral<Optional<Integer>>() {})
-        .expireAfterWrite(Duration.ofSeconds(60))
-        .maximumWeight(Long.MAX_VALUE)
-        .loader(DynamoDBRefDatabase.ProjectVersionCacheLoader.class);
+    CacheBinding<String, Optional<Integer>> cache =
+        persist(PROJECT_VERSION_CACHE, String.class, new TypeLiteral<Optional<Integer>>() {})
+            .version(1)
+            .keySerializer(StringCacheSerializer.INSTANCE)
+            .valueSerializer(ProjectVersionSerializer.INSTANCE)
+            .maximumWeight(Long.MAX_VALUE)
+            .loader(DynamoDBRefDatabase.ProjectVersionCacheLoader.class);
+    if (!invalidatedByChangeFeed) {
+      cache.expireAfterWrite(Duration.ofSeconds(60)).refreshAfterWrite(Duration.ofSeconds(30));
+    }
+  }
+
+  /** Stores unversioned projects as an empty array, and versions as integers. */
+  enum ProjectVersionSerializer implements CacheSerializer<Optional<Integer>> {
+    INSTANCE;
+
+    private static final byte[] UNVERSIONED = new byte[0];
+
+    @Override
+    public byte[] serialize(Optional<Integer> version) {
+      return version.map(IntegerCacheSerializer.INSTANCE::serialize).orElse(UNVERSIONED);
+    }
+
+    @Override
+    public Optional<Integer> deserialize(byte[] in) {
+      return in.length == 0
+          ? Optional.empty()
+          : Optional.of(IntegerCacheSerializer.INSTANCE.deserialize(in));
+    }
   }
 }
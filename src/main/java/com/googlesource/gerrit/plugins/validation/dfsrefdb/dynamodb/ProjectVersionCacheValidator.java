@@ -0,0 +1,105 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
+
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.DynamoDBRefDatabase.BATCH_GET_MAX_KEYS;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.ProjectVersionCacheModule.PROJECT_VERSION_CACHE;
+
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Iterables;
+import com.google.common.flogger.FluentLogger;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.server.git.WorkQueue;
+import com.google.gerrit.server.project.ProjectCache;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Future;
+
+/**
+ * Checks the project versions restored from the persistent cache against the refsDb table, since
+ * projects may have been removed by other nodes while this one was down.
+ *
+ * <p>Restored versions are served while they are being checked: in the worst case, a project
+ * removed less than the cache {@code maxAge} before the node restarted is updated at its previous
+ * version, as it would have been without the restart.
+ */
+@Singleton
+class ProjectVersionCacheValidator {
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+  private final WorkQueue workQueue;
+  private final ProjectCache projectCache;
+  private final DynamoDBRefDatabase refDb;
+  private final LoadingCache<String, Optional<Integer>> projectVersionCache;
+
+  @Inject
+  ProjectVersionCacheValidator(
+      WorkQueue workQueue,
+      ProjectCache projectCache,
+      DynamoDBRefDatabase refDb,
+      @Named(PROJECT_VERSION_CACHE) LoadingCache<String, Optional<Integer>> projectVersionCache) {
+    this.workQueue = workQueue;
+    this.projectCache = projectCache;
+    this.refDb = refDb;
+    this.projectVersionCache = projectVersionCache;
+  }
+
+  void validateInBackground() {
+    @SuppressWarnings("unused")
+    Future<?> possiblyIgnoredError = workQueue.getDefaultQueue().submit(this::validate);
+  }
+
+  void validate() {
+    int validated = 0;
+    int stale = 0;
+    try {
+      Map<String, Optional<Integer>> cachedVersions = new HashMap<>();
+      for (Project.NameKey project : projectCache.all()) {
+        // Restores the version from disk, if it was persisted.
+        Optional<Integer> cachedVersion = projectVersionCache.getIfPresent(project.get());
+        if (cachedVersion != null) {
+          cachedVersions.put(project.get(), cachedVersion);
+        }
+      }
+      for (List<String> projects :
+          Iterables.partition(cachedVersions.keySet(), BATCH_GET_MAX_KEYS)) {
+        for (Map.Entry<String, Optional<Integer>> version :
+            refDb.readCurrentVersions(projects).entrySet()) {
+          Optional<Integer> cachedVersion = cachedVersions.get(version.getKey());
+          // Leaves alone the versions reloaded meanwhile, which are at least as recent.
+          if (!version.getValue().equals(cachedVersion)
+              && projectVersionCache
+                  .asMap()
+                  .replace(version.getKey(), cachedVersion, version.getValue())) {
+            stale++;
+          }
+          validated++;
+        }
+      }
+      logger.atInfo().log(
+          "Validated %d cached project versions, %d were stale and updated", validated, stale);
+    } catch (RuntimeException e) {
+      logger.atWarning().withCause(e).log(
+          "Unable to validate the cached project versions after %d, evicting all of them",
+          validated);
+      projectVersionCache.invalidateAll();
+    }
+  }
+}
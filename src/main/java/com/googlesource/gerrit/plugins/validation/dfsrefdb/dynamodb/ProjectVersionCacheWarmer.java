@@ -0,0 +1,209 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
+
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.DynamoDBRefDatabase.REF_DB_VALUE_KEY;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.ProjectVersionCacheModule.PROJECT_VERSION_CACHE;
+
+import com.google.common.cache.LoadingCache;
+import com.google.common.flogger.FluentLogger;
+import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.server.git.WorkQueue;
+import com.google.gerrit.server.project.ProjectCache;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.CapacityLimiter.Capacity;
+import com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.CapacityLimiter.Priority;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+
+/**
+ * Fills the project version cache at startup, so that the first ref updates of every project do not
+ * each need to read its version from DynamoDB.
+ *
+ * <p>The version items are read with a parallel {@code Scan} of the refsDb table, throttled to the
+ * configured read capacity. The pages also go through the {@link CapacityLimiter} as background
+ * requests, so that they only use the capacity left unused by the ref updates and reads of this
+ * node. Once the whole table has been scanned, the projects without a version item are cached as
+ * unversioned.
+ */
+@Singleton
+class ProjectVersionCacheWarmer {
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+  private static final String QUEUE_NAME = "aws-dynamodb-refdb-warm-up";
+  private static final String VERSION_KEY = "#version_key";
+  private static final String VERSION_KEY_PREFIX = ":version_key_prefix";
+
+  private final WorkQueue workQueue;
+  private final DynamoDbClient dynamoDbClient;
+  private final CapacityLimiter capacityLimiter;
+  private final ProjectCache projectCache;
+  private final LoadingCache<String, Optional<Integer>> projectVersionCache;
+  private final String refsDbTableName;
+  private final RefsDbTableLayout refsDbTableLayout;
+  private final int segments;
+  private final int readCapacity;
+  private final Duration timeout;
+
+  @Inject
+  ProjectVersionCacheWarmer(
+      WorkQueue workQueue,
+      DynamoDbClient dynamoDbClient,
+      CapacityLimiter capacityLimiter,
+      ProjectCache projectCache,
+      @Named(PROJECT_VERSION_CACHE) LoadingCache<String, Optional<Integer>> projectVersionCache,
+      Configuration configuration) {
+    this.workQueue = workQueue;
+    this.dynamoDbClient = dynamoDbClient;
+    this.capacityLimiter = capacityLimiter;
+    this.projectCache = projectCache;
+    this.projectVersionCache = projectVersionCache;
+    this.refsDbTableName = configuration.getRefsDbTableName();
+    this.refsDbTableLayout = configuration.getRefsDbTableLayout();
+    this.segments = configuration.getProjectVersionWarmUpSegments();
+    this.readCapacity = configuration.getProjectVersionWarmUpReadCapacity();
+    this.timeout = configuration.getProjectVersionWarmUpTimeout();
+  }
+
+  /**
+   * Blocks until the project versions are cached, the warm-up times out or fails. Versions read
+   * before a timeout or a failure stay cached.
+   */
+  void warmUp() {
+    long startNanos = System.nanoTime();
+    RateLimiter readCapacityLimiter = RateLimiter.create(readCapacity);
+    AtomicInteger versions = new AtomicInteger();
+    ScheduledExecutorService executor = workQueue.createQueue(segments, QUEUE_NAME);
+    try {
+      List<Future<?>> scans = new ArrayList<>(segments);
+      for (int segment = 0; segment < segments; segment++) {
+        int scannedSegment = segment;
+        scans.add(
+            executor.submit(
+                () -> {
+                  scanSegment(scannedSegment, readCapacityLimiter, versions);
+                  return null;
+                }));
+      }
+      long deadlineNanos = startNanos + timeout.toNanos();
+      for (Future<?> scan : scans) {
+        scan.get(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+      }
+      int unversioned = cacheUnversionedProjects();
+      logger.atInfo().log(
+          "Cached %d project versions and %d unversioned projects in %d ms",
+          versions.get(),
+          unversioned,
+          TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    } catch (TimeoutException e) {
+      logger.atWarning().log(
+          "Project versions warm-up timed out after %s, %d versions cached",
+          timeout, versions.get());
+    } catch (ExecutionException e) {
+      logger.atWarning().withCause(e.getCause()).log(
+          "Project versions warm-up failed, %d versions cached", versions.get());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private void scanSegment(int segment, RateLimiter readCapacityLimiter, AtomicInteger versions)
+      throws InterruptedException {
+    ScanRequest.Builder request =
+        ScanRequest.builder()
+            .tableName(refsDbTableName)
+            .segment(segment)
+            .totalSegments(segments)
+            .filterExpression("begins_with(" + VERSION_KEY + ", " + VERSION_KEY_PREFIX + ")")
+            .projectionExpression(
+                String.join(", ", refsDbTableLayout.keyAttributes()) + ", " + REF_DB_VALUE_KEY)
+            .expressionAttributeNames(Map.of(VERSION_KEY, refsDbTableLayout.versionKeyAttribute()))
+            .expressionAttributeValues(
+                Map.of(
+                    VERSION_KEY_PREFIX,
+                    AttributeValue.fromS(String.valueOf(refsDbTableLayout.versionKeyPrefix()))))
+            .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+    Map<String, AttributeValue> exclusiveStartKey = null;
+    // Pages are estimated to cost as much as the previous one.
+    double estimatedUnits = 1;
+    do {
+      ScanRequest page = request.exclusiveStartKey(exclusiveStartKey).build();
+      ScanResponse response =
+          capacityLimiter.callBlocking(
+              Capacity.READ,
+              Priority.BACKGROUND,
+              estimatedUnits,
+              () -> dynamoDbClient.scan(page),
+              scanned -> CapacityLimiter.units(scanned.consumedCapacity()));
+      for (Map<String, AttributeValue> item : response.items()) {
+        if (cacheVersion(item)) {
+          versions.incrementAndGet();
+        }
+      }
+      // Pays for the capacity consumed by the page before reading the next one, so that the
+      // segments together do not read faster than the configured capacity on average.
+      double consumedCapacity =
+          response.consumedCapacity() != null ? response.consumedCapacity().capacityUnits() : 1;
+      readCapacityLimiter.acquire(Math.max(1, (int) Math.ceil(consumedCapacity)));
+      estimatedUnits = consumedCapacity;
+      exclusiveStartKey = response.hasLastEvaluatedKey() ? response.lastEvaluatedKey() : null;
+    } while (exclusiveStartKey != null && !exclusiveStartKey.isEmpty());
+  }
+
+  private boolean cacheVersion(Map<String, AttributeValue> item) {
+    // With the flat layout, the refs of removed projects match the version prefix as well, and
+    // their values may be integers too: only their path tells them apart.
+    if (!refsDbTableLayout.isVersion(item)) {
+      return false;
+    }
+    Optional<String> project = refsDbTableLayout.versionedProject(item);
+    AttributeValue value = item.get(REF_DB_VALUE_KEY);
+    Integer version = value != null && value.s() != null ? Ints.tryParse(value.s()) : null;
+    if (project.isEmpty() || version == null) {
+      return false;
+    }
+    projectVersionCache.put(project.get(), Optional.of(version));
+    return true;
+  }
+
+  private int cacheUnversionedProjects() {
+    int unversioned = 0;
+    for (Project.NameKey project : projectCache.all()) {
+      if (projectVersionCache.asMap().putIfAbsent(project.get(), Optional.empty()) == null) {
+        unversioned++;
+      }
+    }
+    return unversioned;
+  }
+}
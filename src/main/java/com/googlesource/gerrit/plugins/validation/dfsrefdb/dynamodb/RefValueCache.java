@@ -0,0 +1,71 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
+
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.RefValueCacheModule.REF_VALUE_CACHE;
+
+import com.google.common.cache.Cache;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import java.util.Optional;
+
+/**
+ * Node-local cache of the values stored in the refsDb table, keyed by the version-qualified ref
+ * path returned by {@link DynamoDBRefDatabase#pathFor}.
+ *
+ * <p>Entries are populated by successful writes of this node and by reads from DynamoDB, and are
+ * evicted whenever a conditional update fails. A read only populates the cache if this node did not
+ * write the ref meanwhile, see {@link LocalRefWrites}. Because other nodes may have updated the ref
+ * in the meantime, a cached value is only a hint: compare-and-put operations are always checked by
+ * DynamoDB.
+ *
+ * <p>All operations are no-ops when the cache is disabled. The values of {@link HotRefs hot refs}
+ * are then still cached for a short time by {@link HotRefs} itself.
+ */
+@Singleton
+class RefValueCache {
+  private final boolean enabled;
+  private final Cache<String, String> cache;
+
+  @Inject
+  RefValueCache(Configuration configuration, @Named(REF_VALUE_CACHE) Cache<String, String> cache) {
+    this.enabled = configuration.isRefValueCacheEnabled();
+    this.cache = cache;
+  }
+
+  Optional<String> get(String refPath) {
+    return enabled ? Optional.ofNullable(cache.getIfPresent(refPath)) : Optional.empty();
+  }
+
+  void put(String refPath, String refValue) {
+    if (enabled) {
+      cache.put(refPath, refValue);
+    }
+  }
+
+  void invalidate(String refPath) {
+    if (enabled) {
+      cache.invalidate(refPath);
+    }
+  }
+
+  /** Evicts the cached value of {@code refPath}, if it is {@code refValue}. */
+  void remove(String refPath, String refValue) {
+    if (enabled) {
+      cache.asMap().remove(refPath, refValue);
+    }
+  }
+}
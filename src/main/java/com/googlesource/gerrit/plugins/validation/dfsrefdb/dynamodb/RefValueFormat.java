@@ -0,0 +1,58 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
+
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+/**
+ * Format of the ObjectIds stored as ref values in the refsDb table.
+ *
+ * <p>Values written in either format are always readable, so that the format of new writes can be
+ * switched on a table that already holds values in the other one. Values that are not ObjectIds,
+ * like the project versions, are always stored as strings.
+ */
+public enum RefValueFormat {
+  /** The 40 characters hexadecimal name of the ObjectId. */
+  STRING,
+
+  /** The 20 bytes of the ObjectId, as a binary attribute. */
+  BINARY;
+
+  /** Returns the attribute storing {@code objectId} in this format. */
+  AttributeValue encode(AnyObjectId objectId) {
+    if (this == STRING) {
+      return AttributeValue.fromS(objectId.name());
+    }
+    byte[] raw = new byte[Constants.OBJECT_ID_LENGTH];
+    objectId.copyRawTo(raw, 0);
+    return AttributeValue.fromB(SdkBytes.fromByteArrayUnsafe(raw));
+  }
+
+  /** Returns the ref value stored in {@code value}, with ObjectIds as hexadecimal names. */
+  static String decode(AttributeValue value) {
+    return value.b() != null ? ObjectId.fromRaw(value.b().asByteArrayUnsafe()).name() : value.s();
+  }
+
+  /** Returns the ObjectId stored in {@code value}, in either format. */
+  static ObjectId decodeObjectId(AttributeValue value) {
+    return value.b() != null
+        ? ObjectId.fromRaw(value.b().asByteArrayUnsafe())
+        : ObjectId.fromString(value.s());
+  }
+}
@@ -0,0 +1,42 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
+
+import java.util.Map;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+/**
+ * Feed of the changes made to the items of the refsDb table, by any node.
+ *
+ * <p>The feed is polled by a single thread. Any failure of a poll means that changes may have been
+ * missed: the next poll starts over from the most recent changes and notifies {@link
+ * Listener#onReset()} first.
+ */
+interface RefsDbChangeFeed {
+
+  interface Listener {
+    /**
+     * Called when the feed starts, or starts over after a failure: changes made before this call
+     * may not be reported.
+     */
+    void onReset();
+
+    /** Called with the primary key of every item changed since the previous poll. */
+    void onChange(Map<String, AttributeValue> key);
+  }
+
+  /** Reports to {@code listener} the changes made since the previous poll. */
+  void poll(Listener listener);
+}
@@ -0,0 +1,113 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.gerrit.entities.Project;
+
+/**
+ * Identifies an item of the refsDb table, independently of its {@link RefsDbTableLayout}.
+ *
+ * <p>The {@link #path()} is the version-qualified path of the item, e.g. {@code
+ * |1/project/refs/heads/master}: it is the hash key of the flat layout and it identifies the item
+ * in the node-local caches and in the locks table, whatever the layout. The partitioned layout uses
+ * the {@link #partition()} and {@link #sortKey()} instead.
+ */
+final class RefsDbKey {
+  static final char VERSION_PATH_PREFIX = '|';
+  static final char VERSION_PARTITION_PREFIX = '#';
+  static final String VERSION_SORT_KEY = "version";
+
+  private static final String REFS_SEPARATOR = "/refs/";
+
+  private final String path;
+  private final String partition;
+  private final String sortKey;
+
+  /**
+   * Returns the key of {@code refName} within {@code partition}, the version-qualified project name
+   * returned by {@link DynamoDBRefDatabase#partitionFor}.
+   */
+  static RefsDbKey ref(String partition, String refName) {
+    return new RefsDbKey(partition + "/" + refName, partition, refName);
+  }
+
+  /**
+   * Returns the key of the item storing the current version of {@code project}. Its partition
+   * starts with a character that no version-qualified project name starts with, so that it never
+   * shares a partition with refs.
+   */
+  static RefsDbKey version(Project.NameKey project) {
+    return new RefsDbKey(
+        VERSION_PATH_PREFIX + project.toString(),
+        VERSION_PARTITION_PREFIX + project.toString(),
+        VERSION_SORT_KEY);
+  }
+
+  /**
+   * Returns the key of the item with version-qualified {@code path}, e.g. {@code
+   * |1/project/refs/heads/master} for a ref or {@code |project} for a project version.
+   *
+   * <p>A path does not tell where the project name ends when it contains {@code /refs/} more than
+   * once: the project name is taken to end at the first occurrence.
+   *
+   * @throws IllegalArgumentException if {@code path} is neither the path of a project version nor
+   *     the path of a ref under {@code refs/}.
+   */
+  static RefsDbKey fromPath(String path) {
+    int refsSeparator = path.indexOf(REFS_SEPARATOR);
+    if (refsSeparator < 0) {
+      checkArgument(
+          !path.isEmpty() && path.charAt(0) == VERSION_PATH_PREFIX, "Invalid refsDb path %s", path);
+      return new RefsDbKey(path, VERSION_PARTITION_PREFIX + path.substring(1), VERSION_SORT_KEY);
+    }
+    checkArgument(refsSeparator > 0, "Invalid refsDb path %s", path);
+    return ref(path.substring(0, refsSeparator), path.substring(refsSeparator + 1));
+  }
+
+  private RefsDbKey(String path, String partition, String sortKey) {
+    this.path = path;
+    this.partition = partition;
+    this.sortKey = sortKey;
+  }
+
+  String path() {
+    return path;
+  }
+
+  String partition() {
+    return partition;
+  }
+
+  String sortKey() {
+    return sortKey;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof RefsDbKey && path.equals(((RefsDbKey) other).path);
+  }
+
+  @Override
+  public int hashCode() {
+    return path.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return path;
+  }
+}
@@ -0,0 +1,395 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
+
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.DynamoDBRefDatabase.BATCH_GET_MAX_KEYS;
+import static java.util.stream.Collectors.toList;
+
+import com.google.common.collect.Iterables;
+import com.google.common.flogger.FluentLogger;
+import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.gerrit.common.Nullable;
+import com.google.gerrit.entities.KeyUtil;
+import com.google.gerrit.extensions.annotations.PluginData;
+import com.google.gerrit.extensions.events.LifecycleListener;
+import com.google.gerrit.server.git.WorkQueue;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.CapacityLimiter.Capacity;
+import com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.CapacityLimiter.Priority;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.jgit.errors.ConfigInvalidException;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.DeleteRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTimeToLiveRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutRequest;
+import software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.model.TimeToLiveSpecification;
+import software.amazon.awssdk.services.dynamodb.model.TimeToLiveStatus;
+import software.amazon.awssdk.services.dynamodb.model.UpdateTimeToLiveRequest;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+/**
+ * Removes from the refsDb table the refs left behind by {@link DynamoDBRefDatabase#remove}, i.e.
+ * the refs stored under a version of their project older than the current one.
+ *
+ * <p>Every {@code sweeperInterval}, the table is scanned in parallel segments throttled to the
+ * configured capacity, and the superseded refs are deleted with {@code BatchWriteItem}. The
+ * requests also go through the {@link CapacityLimiter} as background requests, so that they only
+ * use the capacity left unused by the ref updates and reads of this node. With an expiry, they are
+ * given an {@value #EXPIRES_AT} time-to-live attribute instead, and DynamoDB deletes them once
+ * expired. The progress of a sweep is saved in a {@link SweeperCheckpoint}, so that a sweep
+ * interrupted by a restart resumes where it stopped.
+ *
+ * <p>A single node needs to sweep the table.
+ */
+@Singleton
+class RefsDbSweeper implements LifecycleListener {
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+  static final String EXPIRES_AT = "expiresAt";
+  private static final String QUEUE_NAME = "aws-dynamodb-refdb-sweeper";
+  private static final String CHECKPOINT_FILE = "sweeper.checkpoint";
+  private static final int BATCH_WRITE_MAX_ITEMS = 25;
+  private static final int BATCH_WRITE_MAX_ATTEMPTS = 8;
+  private static final ExponentialBackoff BATCH_WRITE_BACKOFF =
+      new ExponentialBackoff(Duration.ofMillis(50), Duration.ofSeconds(5));
+
+  private final WorkQueue workQueue;
+  private final DynamoDbClient dynamoDbClient;
+  private final DynamoDBRefDatabase refDb;
+  private final DynamoDBMetrics metrics;
+  private final CapacityLimiter capacityLimiter;
+  private final Path checkpointFile;
+  private final String refsDbTableName;
+  private final RefsDbTableLayout refsDbTableLayout;
+  private final Duration interval;
+  private final int segments;
+  private final int capacity;
+  private final Optional<Duration> expiry;
+  private ScheduledExecutorService executor;
+  private SweeperCheckpoint checkpoint;
+
+  @Inject
+  RefsDbSweeper(
+      WorkQueue workQueue,
+      DynamoDbClient dynamoDbClient,
+      DynamoDBRefDatabase refDb,
+      DynamoDBMetrics metrics,
+      CapacityLimiter capacityLimiter,
+      @PluginData Path pluginData,
+      Configuration configuration) {
+    this.workQueue = workQueue;
+    this.dynamoDbClient = dynamoDbClient;
+    this.refDb = refDb;
+    this.metrics = metrics;
+    this.capacityLimiter = capacityLimiter;
+    this.checkpointFile = pluginData.resolve(CHECKPOINT_FILE);
+    this.refsDbTableName = configuration.getRefsDbTableName();
+    this.refsDbTableLayout = configuration.getRefsDbTableLayout();
+    this.interval = configuration.getSweeperInterval();
+    this.segments = configuration.getSweeperSegments();
+    this.capacity = configuration.getSweeperCapacity();
+    this.expiry = configuration.getSweeperExpiry();
+  }
+
+  @Override
+  public void start() {
+    try {
+      checkpoint =
+          new SweeperCheckpoint(checkpointFile, segments, refsDbTableLayout.keyAttributes());
+    } catch (IOException | ConfigInvalidException e) {
+      logger.atSevere().withCause(e).log(
+          "Unable to read the sweeper checkpoint %s, superseded refs are not removed",
+          checkpointFile);
+      return;
+    }
+    // Resumes an interrupted sweep right away, otherwise waits for the next one to be due.
+    long initialDelayMillis =
+        checkpoint
+            .completedAt()
+            .map(
+                completedAt ->
+                    Math.max(
+                        0, Duration.between(Instant.now(), completedAt.plus(interval)).toMillis()))
+            .orElse(0L);
+    // One thread schedules the sweeps, the others scan the segments.
+    executor = workQueue.createQueue(segments + 1, QUEUE_NAME);
+    executor.scheduleWithFixedDelay(
+        this::sweep, initialDelayMillis, interval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public void stop() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
+  void sweep() {
+    long startNanos = System.nanoTime();
+    RateLimiter sweeperCapacityLimiter = RateLimiter.create(capacity);
+    AtomicInteger swept = new AtomicInteger();
+    try {
+      if (expiry.isPresent()) {
+        enableTimeToLive();
+      }
+      List<Future<?>> scans = new ArrayList<>(segments);
+      for (int segment = 0; segment < segments; segment++) {
+        if (!checkpoint.isDone(segment)) {
+          int sweptSegment = segment;
+          scans.add(
+              executor.submit(
+                  () -> {
+                    sweepSegment(sweptSegment, sweeperCapacityLimiter, swept);
+                    return null;
+                  }));
+        }
+      }
+      for (Future<?> scan : scans) {
+        scan.get();
+      }
+      checkpoint.complete(Instant.now());
+      logger.atInfo().log(
+          "Swept %d superseded refs from %s in %d ms",
+          swept.get(),
+          refsDbTableName,
+          TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    } catch (ExecutionException | IOException | RuntimeException e) {
+      logger.atWarning().withCause(e instanceof ExecutionException ? e.getCause() : e).log(
+          "Sweep of %s stopped after %d superseded refs, it resumes at the next sweep",
+          refsDbTableName, swept.get());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void sweepSegment(int segment, RateLimiter sweeperCapacityLimiter, AtomicInteger swept)
+      throws IOException, InterruptedException {
+    Map<String, Optional<Integer>> currentVersions = new HashMap<>();
+    Map<String, AttributeValue> exclusiveStartKey = checkpoint.exclusiveStartKey(segment);
+    // Pages are estimated to cost as much as the previous one.
+    double estimatedScanUnits = 1;
+    do {
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+      ScanRequest request =
+          ScanRequest.builder()
+              .tableName(refsDbTableName)
+              .segment(segment)
+              .totalSegments(segments)
+              .exclusiveStartKey(exclusiveStartKey)
+              .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL)
+              .build();
+      ScanResponse page =
+          capacityLimiter.callBlocking(
+              Capacity.READ,
+              Priority.BACKGROUND,
+              estimatedScanUnits,
+              () -> dynamoDbClient.scan(request),
+              response -> CapacityLimiter.units(response.consumedCapacity()));
+      double consumedCapacity = capacityUnits(page.consumedCapacity());
+      estimatedScanUnits = consumedCapacity;
+      List<Map<String, AttributeValue>> superseded = superseded(page.items(), currentVersions);
+      for (List<Map<String, AttributeValue>> batch :
+          Iterables.partition(superseded, BATCH_WRITE_MAX_ITEMS)) {
+        consumedCapacity += write(batch);
+      }
+      swept.addAndGet(superseded.size());
+      metrics.recordSweptRefs(superseded.size());
+
+      exclusiveStartKey =
+          page.hasLastEvaluatedKey() && !page.lastEvaluatedKey().isEmpty()
+              ? page.lastEvaluatedKey()
+              : null;
+      checkpoint.save(segment, exclusiveStartKey);
+      sweeperCapacityLimiter.acquire(Math.max(1, (int) Math.ceil(consumedCapacity)));
+    } while (exclusiveStartKey != null);
+  }
+
+  /**
+   * Returns the {@code items} that are superseded under every possible project they may belong to,
+   * reading the versions of the projects not in {@code currentVersions} yet.
+   */
+  private List<Map<String, AttributeValue>> superseded(
+      List<Map<String, AttributeValue>> items, Map<String, Optional<Integer>> currentVersions) {
+    List<List<VersionedProject>> itemProjects = new ArrayList<>(items.size());
+    Set<String> unknownProjects = new HashSet<>();
+    for (Map<String, AttributeValue> item : items) {
+      List<VersionedProject> projects = new ArrayList<>();
+      for (String partition : refsDbTableLayout.partitions(item)) {
+        Optional<VersionedProject> project = VersionedProject.parse(partition);
+        if (project.isEmpty()) {
+          projects.clear();
+          break;
+        }
+        projects.add(project.get());
+        if (!currentVersions.containsKey(project.get().name)) {
+          unknownProjects.add(project.get().name);
+        }
+      }
+      itemProjects.add(projects);
+    }
+    for (List<String> projects : Iterables.partition(unknownProjects, BATCH_GET_MAX_KEYS)) {
+      currentVersions.putAll(refDb.readCurrentVersions(projects));
+    }
+
+    List<Map<String, AttributeValue>> superseded = new ArrayList<>();
+    for (int i = 0; i < items.size(); i++) {
+      Map<String, AttributeValue> item = items.get(i);
+      List<VersionedProject> projects = itemProjects.get(i);
+      if (!projects.isEmpty()
+          && projects.stream()
+              .allMatch(
+                  p -> p.isSupersededBy(currentVersions.getOrDefault(p.name, Optional.empty())))
+          && !(expiry.isPresent() && item.containsKey(EXPIRES_AT))) {
+        superseded.add(item);
+      }
+    }
+    return superseded;
+  }
+
+  /** Writes {@code items}, retrying the unprocessed ones, and returns the consumed capacity. */
+  private double write(List<Map<String, AttributeValue>> items) throws InterruptedException {
+    List<WriteRequest> requests = items.stream().map(this::writeRequest).collect(toList());
+    double consumedCapacity = 0;
+    for (int attempt = 1; ; attempt++) {
+      BatchWriteItemRequest request =
+          BatchWriteItemRequest.builder()
+              .requestItems(Map.of(refsDbTableName, requests))
+              .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL)
+              .build();
+      // Each item of the table is estimated to cost a single write capacity unit.
+      BatchWriteItemResponse response =
+          capacityLimiter.callBlocking(
+              Capacity.WRITE,
+              Priority.BACKGROUND,
+              requests.size(),
+              () -> dynamoDbClient.batchWriteItem(request),
+              written -> CapacityLimiter.units(written.consumedCapacity()));
+      for (ConsumedCapacity consumed : response.consumedCapacity()) {
+        consumedCapacity += capacityUnits(consumed);
+      }
+      requests = response.unprocessedItems().getOrDefault(refsDbTableName, List.of());
+      if (requests.isEmpty()) {
+        return consumedCapacity;
+      }
+      if (attempt >= BATCH_WRITE_MAX_ATTEMPTS) {
+        throw new IllegalStateException(
+            String.format(
+                "%d superseded refs still unprocessed after %d attempts",
+                requests.size(), BATCH_WRITE_MAX_ATTEMPTS));
+      }
+      TimeUnit.MILLISECONDS.sleep(BATCH_WRITE_BACKOFF.delay(attempt).toMillis());
+    }
+  }
+
+  private WriteRequest writeRequest(Map<String, AttributeValue> item) {
+    if (expiry.isEmpty()) {
+      Map<String, AttributeValue> key = new HashMap<>();
+      for (String attribute : refsDbTableLayout.keyAttributes()) {
+        key.put(attribute, item.get(attribute));
+      }
+      return WriteRequest.builder().deleteRequest(DeleteRequest.builder().key(key).build()).build();
+    }
+    Map<String, AttributeValue> expiringItem = new HashMap<>(item);
+    expiringItem.put(
+        EXPIRES_AT,
+        AttributeValue.fromN(Long.toString(Instant.now().plus(expiry.get()).getEpochSecond())));
+    return WriteRequest.builder()
+        .putRequest(PutRequest.builder().item(expiringItem).build())
+        .build();
+  }
+
+  private void enableTimeToLive() {
+    TimeToLiveStatus status =
+        dynamoDbClient
+            .describeTimeToLive(
+                DescribeTimeToLiveRequest.builder().tableName(refsDbTableName).build())
+            .timeToLiveDescription()
+            .timeToLiveStatus();
+    if (status == TimeToLiveStatus.DISABLED) {
+      logger.atInfo().log("Enabling the %s time-to-live of %s", EXPIRES_AT, refsDbTableName);
+      dynamoDbClient.updateTimeToLive(
+          UpdateTimeToLiveRequest.builder()
+              .tableName(refsDbTableName)
+              .timeToLiveSpecification(
+                  TimeToLiveSpecification.builder().attributeName(EXPIRES_AT).enabled(true).build())
+              .build());
+    }
+  }
+
+  private static double capacityUnits(@Nullable ConsumedCapacity consumedCapacity) {
+    return consumedCapacity != null && consumedCapacity.capacityUnits() != null
+        ? consumedCapacity.capacityUnits()
+        : 1;
+  }
+
+  /** A project, with the version its refs are stored under. */
+  static class VersionedProject {
+    final String name;
+    @Nullable final Integer version;
+
+    VersionedProject(String name, @Nullable Integer version) {
+      this.name = name;
+      this.version = version;
+    }
+
+    /**
+     * Parses a partition built by {@link DynamoDBRefDatabase#partitionFor}, e.g. {@code |1/project}
+     * or {@code /project} for a project that was never removed.
+     */
+    static Optional<VersionedProject> parse(String partition) {
+      if (partition.startsWith("/")) {
+        return Optional.of(new VersionedProject(KeyUtil.decode(partition.substring(1)), null));
+      }
+      int separator = partition.indexOf('/');
+      if (partition.charAt(0) != RefsDbKey.VERSION_PATH_PREFIX || separator < 0) {
+        return Optional.empty();
+      }
+      Integer version = Ints.tryParse(partition.substring(1, separator));
+      return version != null
+          ? Optional.of(
+              new VersionedProject(KeyUtil.decode(partition.substring(separator + 1)), version))
+          : Optional.empty();
+    }
+
+    boolean isSupersededBy(Optional<Integer> currentVersion) {
+      return currentVersion.isPresent() && (version == null || version < currentVersion.get());
+    }
+  }
+}
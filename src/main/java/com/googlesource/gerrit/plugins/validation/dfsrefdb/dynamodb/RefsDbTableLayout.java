@@ -0,0 +1,148 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
+
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.DynamoDBRefDatabase.REF_DB_PARTITION_KEY;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.DynamoDBRefDatabase.REF_DB_PRIMARY_KEY;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.DynamoDBRefDatabase.REF_DB_SORT_KEY;
+
+import com.google.gerrit.entities.KeyUtil;
+import com.google.gerrit.entities.Project;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
+import software.amazon.awssdk.services.dynamodb.model.KeyType;
+
+/** Schema of the primary key of the refsDb table. */
+public enum RefsDbTableLayout {
+  /**
+   * Every item is keyed by its version-qualified path, e.g. {@code |1/project/refs/heads/master}.
+   */
+  FLAT,
+
+  /**
+   * Items are partitioned by version-qualified project name, e.g. {@code |1/project}, and sorted by
+   * ref name, so that the refs of a project can be read with a {@code Query}.
+   */
+  PARTITIONED;
+
+  private static final String REFS_SEPARATOR = "/refs/";
+
+  /** Returns the names of the key attributes, hash key first. */
+  List<String> keyAttributes() {
+    return this == FLAT
+        ? List.of(REF_DB_PRIMARY_KEY)
+        : List.of(REF_DB_PARTITION_KEY, REF_DB_SORT_KEY);
+  }
+
+  List<KeySchemaElement> keySchema() {
+    List<String> attributes = keyAttributes();
+    return attributes.size() == 1
+        ? List.of(keySchemaElement(attributes.get(0), KeyType.HASH))
+        : List.of(
+            keySchemaElement(attributes.get(0), KeyType.HASH),
+            keySchemaElement(attributes.get(1), KeyType.RANGE));
+  }
+
+  /** Returns the primary key of the item identified by {@code key}. */
+  Map<String, AttributeValue> key(RefsDbKey key) {
+    return this == FLAT
+        ? Map.of(REF_DB_PRIMARY_KEY, AttributeValue.fromS(key.path()))
+        : Map.of(
+            REF_DB_PARTITION_KEY,
+            AttributeValue.fromS(key.partition()),
+            REF_DB_SORT_KEY,
+            AttributeValue.fromS(key.sortKey()));
+  }
+
+  /** Returns the {@link RefsDbKey#path()} of a ref item read from the table. */
+  String refPath(Map<String, AttributeValue> item) {
+    return this == FLAT
+        ? item.get(REF_DB_PRIMARY_KEY).s()
+        : item.get(REF_DB_PARTITION_KEY).s() + "/" + item.get(REF_DB_SORT_KEY).s();
+  }
+
+  /**
+   * Returns the name of the project whose version is stored in the item with primary key {@code
+   * key}, if it is a project version item. Names are stored encoded, like {@link
+   * Project.NameKey#toString()} returns them.
+   *
+   * <p>With the flat layout, the paths of the refs of removed projects look like version keys too,
+   * e.g. {@code |1/project/refs/heads/master}: their whole path, without the leading {@code |}, is
+   * returned as a project name. Use {@link #isVersion} to tell them apart.
+   */
+  Optional<String> versionedProject(Map<String, AttributeValue> key) {
+    String versionKey = key.get(versionKeyAttribute()).s();
+    return versionKey.charAt(0) == versionKeyPrefix()
+        ? Optional.of(KeyUtil.decode(versionKey.substring(1)))
+        : Optional.empty();
+  }
+
+  /**
+   * Returns whether {@code key} is the primary key of a project version item.
+   *
+   * <p>With the flat layout, the version items are told apart from the refs of removed projects by
+   * their path, whatever their value: every ref path contains {@code /refs/}, while the path of a
+   * version item only does when the project name does. The versions of such projects are then taken
+   * for refs.
+   */
+  boolean isVersion(Map<String, AttributeValue> key) {
+    if (this == PARTITIONED) {
+      return key.get(REF_DB_PARTITION_KEY).s().charAt(0) == RefsDbKey.VERSION_PARTITION_PREFIX;
+    }
+    String path = key.get(REF_DB_PRIMARY_KEY).s();
+    return path.charAt(0) == RefsDbKey.VERSION_PATH_PREFIX && !path.contains(REFS_SEPARATOR);
+  }
+
+  /**
+   * Returns the possible version-qualified project names, e.g. {@code |1/project}, of the ref
+   * stored in {@code item}, or none for project version items.
+   *
+   * <p>With the flat layout, a path does not tell where the project name ends when it contains
+   * {@code /refs/}: a name is returned for every occurrence.
+   */
+  List<String> partitions(Map<String, AttributeValue> item) {
+    if (isVersion(item)) {
+      return List.of();
+    }
+    if (this == PARTITIONED) {
+      return List.of(item.get(REF_DB_PARTITION_KEY).s());
+    }
+    String path = item.get(REF_DB_PRIMARY_KEY).s();
+    List<String> partitions = new ArrayList<>();
+    for (int end = path.indexOf(REFS_SEPARATOR);
+        end > 0;
+        end = path.indexOf(REFS_SEPARATOR, end + 1)) {
+      partitions.add(path.substring(0, end));
+    }
+    return partitions;
+  }
+
+  /** Returns the key attribute whose value starts with {@link #versionKeyPrefix()} in versions. */
+  String versionKeyAttribute() {
+    return this == FLAT ? REF_DB_PRIMARY_KEY : REF_DB_PARTITION_KEY;
+  }
+
+  char versionKeyPrefix() {
+    return this == FLAT ? RefsDbKey.VERSION_PATH_PREFIX : RefsDbKey.VERSION_PARTITION_PREFIX;
+  }
+
+  private static KeySchemaElement keySchemaElement(String attributeName, KeyType keyType) {
+    return KeySchemaElement.builder().attributeName(attributeName).keyType(keyType).build();
+  }
+}
@@ -0,0 +1,57 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import software.amazon.awssdk.core.metrics.CoreMetric;
+import software.amazon.awssdk.metrics.MetricCollection;
+import software.amazon.awssdk.metrics.MetricPublisher;
+
+/**
+ * Publishes the retries and throttled attempts reported by the AWS SDK for every DynamoDB API call,
+ * including the ones issued by the lock client, to the plugin metrics.
+ */
+@Singleton
+class SdkMetricsPublisher implements MetricPublisher {
+  private static final String THROTTLING_ERROR_TYPE = "Throttling";
+
+  private final DynamoDBMetrics metrics;
+
+  @Inject
+  SdkMetricsPublisher(DynamoDBMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  @Override
+  public void publish(MetricCollection apiCall) {
+    String api =
+        apiCall.metricValues(CoreMetric.OPERATION_NAME).stream().findFirst().orElse("unknown");
+    for (Integer retries : apiCall.metricValues(CoreMetric.RETRY_COUNT)) {
+      if (retries != null && retries > 0) {
+        metrics.recordSdkRetries(api, retries);
+      }
+    }
+    apiCall.children().stream()
+        .filter(
+            attempt -> attempt.metricValues(CoreMetric.ERROR_TYPE).contains(THROTTLING_ERROR_TYPE))
+        .forEach(attempt -> metrics.recordSdkThrottledAttempt(api));
+  }
+
+  @Override
+  public void close() {
+    // No-op. There is nothing to flush, metrics are recorded as soon as they are published.
+  }
+}
@@ -0,0 +1,110 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
+
+import com.google.gerrit.common.Nullable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.eclipse.jgit.errors.ConfigInvalidException;
+import org.eclipse.jgit.storage.file.FileBasedConfig;
+import org.eclipse.jgit.util.FS;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+/**
+ * Progress of a sweep of the refsDb table, saved after every page of each scan segment so that an
+ * interrupted sweep resumes where it stopped.
+ */
+class SweeperCheckpoint {
+  private static final String SWEEP = "sweep";
+  private static final String SEGMENTS = "segments";
+  private static final String SEGMENT = "segment";
+  private static final String DONE = "done";
+  private static final String COMPLETED_AT = "completedAt";
+
+  private final FileBasedConfig config;
+  private final List<String> keyAttributes;
+
+  /**
+   * Loads the progress saved in {@code file}, which is discarded when it was saved by a sweep with
+   * a different number of segments.
+   */
+  SweeperCheckpoint(Path file, int segments, List<String> keyAttributes)
+      throws IOException, ConfigInvalidException {
+    this.config = new FileBasedConfig(file.toFile(), FS.DETECTED);
+    this.keyAttributes = keyAttributes;
+    config.load();
+    if (config.getInt(SWEEP, SEGMENTS, segments) != segments) {
+      config.clear();
+    }
+    config.setInt(SWEEP, null, SEGMENTS, segments);
+  }
+
+  synchronized boolean isDone(int segment) {
+    return config.getBoolean(SEGMENT, Integer.toString(segment), DONE, false);
+  }
+
+  /** Returns the key to resume the scan of {@code segment} from, or null to start over. */
+  @Nullable
+  synchronized Map<String, AttributeValue> exclusiveStartKey(int segment) {
+    Map<String, AttributeValue> key = new HashMap<>();
+    for (String attribute : keyAttributes) {
+      String value = config.getString(SEGMENT, Integer.toString(segment), attribute);
+      if (value != null) {
+        key.put(attribute, AttributeValue.fromS(value));
+      }
+    }
+    return key.size() == keyAttributes.size() ? key : null;
+  }
+
+  /**
+   * Saves that {@code segment} was swept up to {@code lastEvaluatedKey}, or entirely when it is
+   * null.
+   */
+  synchronized void save(int segment, @Nullable Map<String, AttributeValue> lastEvaluatedKey)
+      throws IOException {
+    String subsection = Integer.toString(segment);
+    config.unsetSection(SEGMENT, subsection);
+    if (lastEvaluatedKey == null) {
+      config.setBoolean(SEGMENT, subsection, DONE, true);
+    } else {
+      for (String attribute : keyAttributes) {
+        config.setString(SEGMENT, subsection, attribute, lastEvaluatedKey.get(attribute).s());
+      }
+    }
+    config.save();
+  }
+
+  /** Records that the sweep completed, so that the next one starts over. */
+  synchronized void complete(Instant completedAt) throws IOException {
+    for (String subsection : config.getSubsections(SEGMENT)) {
+      config.unsetSection(SEGMENT, subsection);
+    }
+    config.setLong(SWEEP, null, COMPLETED_AT, completedAt.toEpochMilli());
+    config.save();
+  }
+
+  /** Returns when the last sweep completed, or empty when a sweep is in progress or never ran. */
+  synchronized Optional<Instant> completedAt() {
+    long completedAt = config.getLong(SWEEP, null, COMPLETED_AT, 0);
+    return completedAt > 0 && config.getSubsections(SEGMENT).isEmpty()
+        ? Optional.of(Instant.ofEpochMilli(completedAt))
+        : Optional.empty();
+  }
+}
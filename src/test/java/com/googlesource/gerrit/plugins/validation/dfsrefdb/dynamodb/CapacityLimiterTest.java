@@ -0,0 +1,226 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.base.Ticker;
+import com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.CapacityLimiter.Capacity;
+import com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.CapacityLimiter.Priority;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Before;
+import org.junit.Test;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+
+public class CapacityLimiterTest {
+  private static final int UNITS = 10;
+
+  private final AtomicLong nanos = new AtomicLong();
+  private final AtomicInteger sent = new AtomicInteger();
+  private Configuration configuration;
+
+  @Before
+  public void setUp() {
+    configuration = mock(Configuration.class);
+    when(configuration.isCapacityLimiterEnabled()).thenReturn(true);
+    when(configuration.getCapacityLimiterReadUnits()).thenReturn(UNITS);
+    when(configuration.getCapacityLimiterWriteUnits()).thenReturn(UNITS);
+  }
+
+  @Test
+  public void shouldSendRequestsWithinCapacityImmediately() {
+    CapacityLimiter capacityLimiter = capacityLimiter();
+
+    CompletableFuture<Double> response =
+        call(capacityLimiter, Capacity.READ, Priority.FOREGROUND, UNITS, 0);
+
+    assertThat(response.isDone()).isTrue();
+    assertThat(capacityLimiter.tokens(Capacity.READ)).isEqualTo(0);
+    assertThat(capacityLimiter.tokens(Capacity.WRITE)).isEqualTo(UNITS);
+  }
+
+  @Test
+  public void shouldDelayForegroundRequestsBeyondCapacity() throws Exception {
+    CapacityLimiter capacityLimiter = capacityLimiter();
+    call(capacityLimiter, Capacity.WRITE, Priority.FOREGROUND, UNITS, 0);
+
+    CompletableFuture<Double> delayed =
+        call(capacityLimiter, Capacity.WRITE, Priority.FOREGROUND, 1, 0);
+
+    assertThat(sent.get()).isEqualTo(1);
+    delayed.get(10, TimeUnit.SECONDS);
+    assertThat(sent.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldKeepBackgroundRequestsOffTheForegroundReserve() throws Exception {
+    CapacityLimiter capacityLimiter = capacityLimiter();
+    call(capacityLimiter, Capacity.READ, Priority.FOREGROUND, UNITS - 4, 0);
+
+    CompletableFuture<Double> background =
+        call(capacityLimiter, Capacity.READ, Priority.BACKGROUND, 1, 0);
+
+    assertThat(sent.get()).isEqualTo(1);
+    nanos.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    background.get(10, TimeUnit.SECONDS);
+    assertThat(sent.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldSendBackgroundRequestsLargerThanTheSpareCapacityOnceTheBucketIsFull()
+      throws Exception {
+    CapacityLimiter capacityLimiter = capacityLimiter();
+    call(capacityLimiter, Capacity.READ, Priority.FOREGROUND, 1, 0);
+
+    CompletableFuture<Double> background =
+        call(capacityLimiter, Capacity.READ, Priority.BACKGROUND, UNITS * 10, 0);
+
+    assertThat(sent.get()).isEqualTo(1);
+    nanos.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    background.get(10, TimeUnit.SECONDS);
+    assertThat(sent.get()).isEqualTo(2);
+    assertThat(capacityLimiter.tokens(Capacity.READ)).isEqualTo(UNITS - UNITS * 10);
+  }
+
+  @Test
+  public void shouldBlockBackgroundRequestsOfSynchronousClientsUntilCapacityIsSpare()
+      throws Exception {
+    CapacityLimiter capacityLimiter = capacityLimiter();
+    call(capacityLimiter, Capacity.WRITE, Priority.FOREGROUND, UNITS - 4, 0);
+
+    CompletableFuture<Double> background =
+        CompletableFuture.supplyAsync(
+            () -> {
+              try {
+                return capacityLimiter.callBlocking(
+                    Capacity.WRITE,
+                    Priority.BACKGROUND,
+                    1,
+                    () -> {
+                      sent.incrementAndGet();
+                      return 3.0;
+                    },
+                    Double::doubleValue);
+              } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+              }
+            });
+
+    assertThat(sent.get()).isEqualTo(1);
+    nanos.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    assertThat(background.get(10, TimeUnit.SECONDS)).isEqualTo(3.0);
+    assertThat(sent.get()).isEqualTo(2);
+    assertThat(capacityLimiter.tokens(Capacity.WRITE)).isEqualTo(UNITS - 3);
+  }
+
+  @Test
+  public void shouldOnlyTakeSpareCapacityForRequestsSentRightAway() {
+    CapacityLimiter capacityLimiter = capacityLimiter();
+
+    assertThat(capacityLimiter.tryTake(Capacity.READ, 1)).isTrue();
+    call(capacityLimiter, Capacity.READ, Priority.FOREGROUND, UNITS - 5, 0);
+
+    assertThat(capacityLimiter.tryTake(Capacity.READ, 1)).isFalse();
+    assertThat(capacityLimiter.tokens(Capacity.READ)).isEqualTo(4);
+  }
+
+  @Test
+  public void shouldReconcileEstimateWithConsumedUnits() {
+    CapacityLimiter capacityLimiter = capacityLimiter();
+
+    call(capacityLimiter, Capacity.READ, Priority.FOREGROUND, 1, 3);
+
+    assertThat(capacityLimiter.tokens(Capacity.READ)).isEqualTo(UNITS - 3);
+  }
+
+  @Test
+  public void shouldHalveRateWhenThrottledAndRecoverOverTime() {
+    CapacityLimiter capacityLimiter = capacityLimiter();
+
+    CompletableFuture<Object> throttled =
+        capacityLimiter.call(
+            Capacity.WRITE,
+            Priority.FOREGROUND,
+            1,
+            () -> CompletableFuture.failedFuture(throttlingException()),
+            response -> 0);
+
+    assertThrows(ExecutionException.class, throttled::get);
+    assertThat(capacityLimiter.rate(Capacity.WRITE)).isEqualTo(UNITS / 2.0);
+    assertThat(capacityLimiter.rate(Capacity.READ)).isEqualTo(UNITS);
+
+    nanos.addAndGet(TimeUnit.SECONDS.toNanos(5));
+    capacityLimiter.tokens(Capacity.WRITE);
+    assertThat(capacityLimiter.rate(Capacity.WRITE)).isEqualTo(UNITS);
+  }
+
+  @Test
+  public void shouldNotLimitRequestsWhenDisabled() {
+    when(configuration.isCapacityLimiterEnabled()).thenReturn(false);
+    CapacityLimiter capacityLimiter = capacityLimiter();
+
+    for (int i = 0; i < UNITS * 2; i++) {
+      assertThat(call(capacityLimiter, Capacity.READ, Priority.BACKGROUND, 1, 1).isDone()).isTrue();
+    }
+    assertThat(capacityLimiter.tokens(Capacity.READ)).isEqualTo(UNITS);
+  }
+
+  private CapacityLimiter capacityLimiter() {
+    return new CapacityLimiter(
+        configuration,
+        new Ticker() {
+          @Override
+          public long read() {
+            return nanos.get();
+          }
+        });
+  }
+
+  private CompletableFuture<Double> call(
+      CapacityLimiter capacityLimiter,
+      Capacity capacity,
+      Priority priority,
+      double estimatedUnits,
+      double consumedUnits) {
+    return capacityLimiter.call(
+        capacity,
+        priority,
+        estimatedUnits,
+        () -> {
+          sent.incrementAndGet();
+          return CompletableFuture.completedFuture(consumedUnits);
+        },
+        Double::doubleValue);
+  }
+
+  private static DynamoDbException throttlingException() {
+    return (DynamoDbException)
+        DynamoDbException.builder()
+            .statusCode(400)
+            .awsErrorDetails(
+                AwsErrorDetails.builder()
+                    .errorCode("ProvisionedThroughputExceededException")
+                    .build())
+            .build();
+  }
+}
@@ -0,0 +1,205 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.base.Ticker;
+import com.google.gerrit.metrics.DisabledMetricMaker;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Before;
+import org.junit.Test;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+
+public class CircuitBreakerTest {
+  private static final int WINDOW_SIZE = 10;
+  private static final Duration SLOW_CALL_DURATION = Duration.ofSeconds(1);
+  private static final Duration OPEN_DURATION = Duration.ofSeconds(30);
+  private static final int PROBE_CALLS = 2;
+
+  private final AtomicLong nanos = new AtomicLong();
+  private CircuitBreaker circuitBreaker;
+
+  @Before
+  public void setUp() {
+    Configuration configuration = mock(Configuration.class);
+    when(configuration.isCircuitBreakerEnabled()).thenReturn(true);
+    when(configuration.getCircuitBreakerFailureRate()).thenReturn(50);
+    when(configuration.getCircuitBreakerSlowCallDuration()).thenReturn(SLOW_CALL_DURATION);
+    when(configuration.getCircuitBreakerSlowCallRate()).thenReturn(80);
+    when(configuration.getCircuitBreakerWindowSize()).thenReturn(WINDOW_SIZE);
+    when(configuration.getCircuitBreakerOpenDuration()).thenReturn(OPEN_DURATION);
+    when(configuration.getCircuitBreakerProbeCalls()).thenReturn(PROBE_CALLS);
+    circuitBreaker =
+        new CircuitBreaker(
+            configuration,
+            new DynamoDBMetrics(new DisabledMetricMaker()),
+            new Ticker() {
+              @Override
+              public long read() {
+                return nanos.get();
+              }
+            });
+  }
+
+  @Test
+  public void shouldStayClosedBelowFailureRate() {
+    for (int i = 0; i < WINDOW_SIZE * 2; i++) {
+      call(i % 3 == 0 ? failure() : success());
+    }
+
+    assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+  }
+
+  @Test
+  public void shouldNotCountFailedConditionsAsFailures() {
+    for (int i = 0; i < WINDOW_SIZE; i++) {
+      call(CompletableFuture.failedFuture(ConditionalCheckFailedException.builder().build()));
+    }
+
+    assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+  }
+
+  @Test
+  public void shouldRejectRequestsOnceFailureRateIsReached() {
+    openWithFailures();
+
+    assertThat(circuitBreaker.isOpen()).isTrue();
+    CompletionException rejected =
+        assertThrows(CompletionException.class, () -> call(success()).join());
+    assertThat(rejected)
+        .hasCauseThat()
+        .isInstanceOf(CircuitBreaker.CircuitBreakerOpenException.class);
+  }
+
+  @Test
+  public void shouldOpenOnceSlowCallRateIsReached() {
+    for (int i = 0; i < WINDOW_SIZE; i++) {
+      CompletableFuture<String> response = new CompletableFuture<>();
+      CompletableFuture<String> result = circuitBreaker.call(() -> response);
+      nanos.addAndGet(SLOW_CALL_DURATION.toNanos());
+      response.complete("slow");
+      result.join();
+    }
+
+    assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+  }
+
+  @Test
+  public void shouldCloseWhenProbesSucceed() {
+    openWithFailures();
+    nanos.addAndGet(OPEN_DURATION.toNanos());
+    assertThat(circuitBreaker.isOpen()).isFalse();
+
+    for (int i = 0; i < PROBE_CALLS; i++) {
+      assertThat(call(success()).join()).isEqualTo("value");
+    }
+
+    assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+  }
+
+  @Test
+  public void shouldLimitProbesWhileHalfOpen() {
+    openWithFailures();
+    nanos.addAndGet(OPEN_DURATION.toNanos());
+
+    for (int i = 0; i < PROBE_CALLS; i++) {
+      circuitBreaker.call(CompletableFuture::new);
+    }
+
+    assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+    assertThrows(CompletionException.class, () -> call(success()).join());
+  }
+
+  @Test
+  public void shouldReopenWhenProbeFails() {
+    openWithFailures();
+    nanos.addAndGet(OPEN_DURATION.toNanos());
+
+    assertThrows(CompletionException.class, () -> call(failure()).join());
+
+    assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+    assertThat(circuitBreaker.isOpen()).isTrue();
+  }
+
+  @Test
+  public void shouldIgnoreOutcomeOfRequestsSentBeforeOpening() {
+    CompletableFuture<String> pending = new CompletableFuture<>();
+    CompletableFuture<String> result = circuitBreaker.call(() -> pending);
+    openWithFailures();
+    nanos.addAndGet(OPEN_DURATION.toNanos());
+    call(success());
+
+    pending.completeExceptionally(SdkClientException.create("late failure"));
+    assertThrows(CompletionException.class, result::join);
+
+    assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+  }
+
+  private void openWithFailures() {
+    for (int i = 0; i < WINDOW_SIZE; i++) {
+      call(failure());
+    }
+    assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+  }
+
+  @Test
+  public void shouldOpenOnceFailureRateIsReachedByConcurrentRequests() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> callers = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        callers.add(
+            executor.submit(
+                () -> {
+                  for (int j = 0; j < WINDOW_SIZE; j++) {
+                    call(j % 2 == 0 ? failure() : success());
+                  }
+                }));
+      }
+      for (Future<?> caller : callers) {
+        caller.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+  }
+
+  private CompletableFuture<String> call(CompletableFuture<String> response) {
+    return circuitBreaker.call(() -> response);
+  }
+
+  private static CompletableFuture<String> success() {
+    return CompletableFuture.completedFuture("value");
+  }
+
+  private static CompletableFuture<String> failure() {
+    return CompletableFuture.failedFuture(SdkClientException.create("DynamoDB unavailable"));
+  }
+}
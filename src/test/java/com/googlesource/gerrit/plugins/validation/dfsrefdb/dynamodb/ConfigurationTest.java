@@ -15,19 +15,57 @@
 package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
 
 import static com.google.common.truth.Truth.assertThat;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.Configuration.DEFAULT_CAPACITY_LIMITER_READ_UNITS;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.Configuration.DEFAULT_CAPACITY_LIMITER_WRITE_UNITS;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.Configuration.DEFAULT_CHANGE_FEED_POLL_INTERVAL;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.Configuration.DEFAULT_CIRCUIT_BREAKER_FAILURE_RATE;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.Configuration.DEFAULT_CIRCUIT_BREAKER_OPEN_DURATION;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.Configuration.DEFAULT_CIRCUIT_BREAKER_PROBE_CALLS;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.Configuration.DEFAULT_CIRCUIT_BREAKER_SLOW_CALL_DURATION;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.Configuration.DEFAULT_CIRCUIT_BREAKER_SLOW_CALL_RATE;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.Configuration.DEFAULT_CIRCUIT_BREAKER_WINDOW_SIZE;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.Configuration.DEFAULT_CONNECTION_ACQUISITION_TIMEOUT;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.Configuration.DEFAULT_CONNECTION_MAX_IDLE_TIME;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.Configuration.DEFAULT_CONNECTION_TIMEOUT;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.Configuration.DEFAULT_HEDGED_READS_BUDGET;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.Configuration.DEFAULT_HEDGED_READS_MIN_DELAY;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.Configuration.DEFAULT_HEDGED_READS_PERCENTILE;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.Configuration.DEFAULT_HOT_REFS_CACHE_TTL;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.Configuration.DEFAULT_HOT_REFS_THRESHOLD;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.Configuration.DEFAULT_HOT_REFS_WINDOW;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.Configuration.DEFAULT_KNOWN_REFS_FALSE_POSITIVE_RATE;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.Configuration.DEFAULT_KNOWN_REFS_PROJECTS;
 import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.Configuration.DEFAULT_LOCKS_TABLE_NAME;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.Configuration.DEFAULT_LOCK_BACKOFF_BASE;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.Configuration.DEFAULT_LOCK_BACKOFF_MAX;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.Configuration.DEFAULT_LOCK_HEARTBEAT_PERIOD;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.Configuration.DEFAULT_LOCK_LEASE_DURATION;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.Configuration.DEFAULT_LOCK_MAX_ATTEMPTS;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.Configuration.DEFAULT_LOCK_MAX_WAIT;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.Configuration.DEFAULT_LOCK_REFRESH_PERIOD;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.Configuration.DEFAULT_MAX_CONNECTIONS;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.Configuration.DEFAULT_PROJECT_USAGE_PROJECTS;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.Configuration.DEFAULT_PROJECT_VERSION_WARM_UP_READ_CAPACITY;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.Configuration.DEFAULT_PROJECT_VERSION_WARM_UP_SEGMENTS;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.Configuration.DEFAULT_PROJECT_VERSION_WARM_UP_TIMEOUT;
 import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.Configuration.DEFAULT_REFS_DB_TABLE_NAME;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.Configuration.DEFAULT_RETRY_BACKOFF_MAX;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.Configuration.DEFAULT_SWEEPER_CAPACITY;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.Configuration.DEFAULT_SWEEPER_INTERVAL;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.Configuration.DEFAULT_SWEEPER_SEGMENTS;
 import static org.mockito.Mockito.when;
 
 import com.google.gerrit.server.config.PluginConfig;
 import com.google.gerrit.server.config.PluginConfigFactory;
 import java.net.URI;
+import java.time.Duration;
 import org.eclipse.jgit.lib.Config;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import software.amazon.awssdk.core.retry.RetryMode;
 import software.amazon.awssdk.regions.Region;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -138,4 +176,464 @@ public class ConfigurationTest {
     Configuration configuration = new Configuration(pluginConfigFactoryMock, PLUGIN_NAME);
     assertThat(configuration.getRegion().get()).isEqualTo(Region.EU_CENTRAL_1);
   }
+
+  @Test
+  public void shouldDisableRefValueCacheByDefault() {
+    when(pluginConfigFactoryMock.getFromGerritConfig(PLUGIN_NAME))
+        .thenReturn(pluginConfig.asPluginConfig());
+
+    Configuration configuration = new Configuration(pluginConfigFactoryMock, PLUGIN_NAME);
+    assertThat(configuration.isRefValueCacheEnabled()).isFalse();
+  }
+
+  @Test
+  public void shouldReadConfiguredRefValueCacheEnabled() {
+    pluginConfig.setBoolean("refValueCacheEnabled", true);
+    when(pluginConfigFactoryMock.getFromGerritConfig(PLUGIN_NAME))
+        .thenReturn(pluginConfig.asPluginConfig());
+
+    Configuration configuration = new Configuration(pluginConfigFactoryMock, PLUGIN_NAME);
+    assertThat(configuration.isRefValueCacheEnabled()).isTrue();
+  }
+
+  @Test
+  public void shouldUseConsistentReadsByDefault() {
+    when(pluginConfigFactoryMock.getFromGerritConfig(PLUGIN_NAME))
+        .thenReturn(pluginConfig.asPluginConfig());
+
+    Configuration configuration = new Configuration(pluginConfigFactoryMock, PLUGIN_NAME);
+    assertThat(configuration.isEventuallyConsistentReads()).isFalse();
+  }
+
+  @Test
+  public void shouldReadConfiguredEventuallyConsistentReads() {
+    pluginConfig.setBoolean("eventuallyConsistentReads", true);
+    when(pluginConfigFactoryMock.getFromGerritConfig(PLUGIN_NAME))
+        .thenReturn(pluginConfig.asPluginConfig());
+
+    Configuration configuration = new Configuration(pluginConfigFactoryMock, PLUGIN_NAME);
+    assertThat(configuration.isEventuallyConsistentReads()).isTrue();
+  }
+
+  @Test
+  public void shouldKeepSdkRetryDefaultsByDefault() {
+    when(pluginConfigFactoryMock.getFromGerritConfig(PLUGIN_NAME))
+        .thenReturn(pluginConfig.asPluginConfig());
+
+    Configuration configuration = new Configuration(pluginConfigFactoryMock, PLUGIN_NAME);
+    assertThat(configuration.getRetryMode()).isEmpty();
+    assertThat(configuration.getRetryMaxAttempts()).isEmpty();
+    assertThat(configuration.getRetryBackoffBase()).isEmpty();
+    assertThat(configuration.getRetryThrottlingBackoffBase()).isEmpty();
+    assertThat(configuration.getRetryBackoffMax()).isEqualTo(DEFAULT_RETRY_BACKOFF_MAX);
+  }
+
+  @Test
+  public void shouldReadConfiguredRetrySettings() {
+    pluginConfig.setString("retryMode", "adaptive_v2");
+    pluginConfig.setInt("retryMaxAttempts", 5);
+    pluginConfig.setString("retryBackoffBase", "50ms");
+    pluginConfig.setString("retryThrottlingBackoffBase", "500ms");
+    pluginConfig.setString("retryBackoffMax", "5s");
+    when(pluginConfigFactoryMock.getFromGerritConfig(PLUGIN_NAME))
+        .thenReturn(pluginConfig.asPluginConfig());
+
+    Configuration configuration = new Configuration(pluginConfigFactoryMock, PLUGIN_NAME);
+    assertThat(configuration.getRetryMode()).hasValue(RetryMode.ADAPTIVE_V2);
+    assertThat(configuration.getRetryMaxAttempts()).hasValue(5);
+    assertThat(configuration.getRetryBackoffBase()).hasValue(Duration.ofMillis(50));
+    assertThat(configuration.getRetryThrottlingBackoffBase()).hasValue(Duration.ofMillis(500));
+    assertThat(configuration.getRetryBackoffMax()).isEqualTo(Duration.ofSeconds(5));
+  }
+
+  @Test
+  public void shouldDisableCircuitBreakerByDefault() {
+    when(pluginConfigFactoryMock.getFromGerritConfig(PLUGIN_NAME))
+        .thenReturn(pluginConfig.asPluginConfig());
+
+    Configuration configuration = new Configuration(pluginConfigFactoryMock, PLUGIN_NAME);
+    assertThat(configuration.isCircuitBreakerEnabled()).isFalse();
+    assertThat(configuration.getCircuitBreakerFailureRate())
+        .isEqualTo(DEFAULT_CIRCUIT_BREAKER_FAILURE_RATE);
+    assertThat(configuration.getCircuitBreakerSlowCallDuration())
+        .isEqualTo(DEFAULT_CIRCUIT_BREAKER_SLOW_CALL_DURATION);
+    assertThat(configuration.getCircuitBreakerSlowCallRate())
+        .isEqualTo(DEFAULT_CIRCUIT_BREAKER_SLOW_CALL_RATE);
+    assertThat(configuration.getCircuitBreakerWindowSize())
+        .isEqualTo(DEFAULT_CIRCUIT_BREAKER_WINDOW_SIZE);
+    assertThat(configuration.getCircuitBreakerOpenDuration())
+        .isEqualTo(DEFAULT_CIRCUIT_BREAKER_OPEN_DURATION);
+    assertThat(configuration.getCircuitBreakerProbeCalls())
+        .isEqualTo(DEFAULT_CIRCUIT_BREAKER_PROBE_CALLS);
+  }
+
+  @Test
+  public void shouldReadConfiguredCircuitBreaker() {
+    pluginConfig.setBoolean("circuitBreakerEnabled", true);
+    pluginConfig.setInt("circuitBreakerFailureRate", 25);
+    pluginConfig.setString("circuitBreakerSlowCallDuration", "500ms");
+    pluginConfig.setInt("circuitBreakerSlowCallRate", 60);
+    pluginConfig.setInt("circuitBreakerWindowSize", 50);
+    pluginConfig.setString("circuitBreakerOpenDuration", "10s");
+    pluginConfig.setInt("circuitBreakerProbeCalls", 3);
+    when(pluginConfigFactoryMock.getFromGerritConfig(PLUGIN_NAME))
+        .thenReturn(pluginConfig.asPluginConfig());
+
+    Configuration configuration = new Configuration(pluginConfigFactoryMock, PLUGIN_NAME);
+    assertThat(configuration.isCircuitBreakerEnabled()).isTrue();
+    assertThat(configuration.getCircuitBreakerFailureRate()).isEqualTo(25);
+    assertThat(configuration.getCircuitBreakerSlowCallDuration()).isEqualTo(Duration.ofMillis(500));
+    assertThat(configuration.getCircuitBreakerSlowCallRate()).isEqualTo(60);
+    assertThat(configuration.getCircuitBreakerWindowSize()).isEqualTo(50);
+    assertThat(configuration.getCircuitBreakerOpenDuration()).isEqualTo(Duration.ofSeconds(10));
+    assertThat(configuration.getCircuitBreakerProbeCalls()).isEqualTo(3);
+  }
+
+  @Test
+  public void shouldDisableCapacityLimiterByDefault() {
+    when(pluginConfigFactoryMock.getFromGerritConfig(PLUGIN_NAME))
+        .thenReturn(pluginConfig.asPluginConfig());
+
+    Configuration configuration = new Configuration(pluginConfigFactoryMock, PLUGIN_NAME);
+    assertThat(configuration.isCapacityLimiterEnabled()).isFalse();
+    assertThat(configuration.getCapacityLimiterReadUnits())
+        .isEqualTo(DEFAULT_CAPACITY_LIMITER_READ_UNITS);
+    assertThat(configuration.getCapacityLimiterWriteUnits())
+        .isEqualTo(DEFAULT_CAPACITY_LIMITER_WRITE_UNITS);
+  }
+
+  @Test
+  public void shouldReadConfiguredCapacityLimiter() {
+    pluginConfig.setBoolean("capacityLimiterEnabled", true);
+    pluginConfig.setInt("capacityLimiterReadUnits", 40);
+    pluginConfig.setInt("capacityLimiterWriteUnits", 0);
+    when(pluginConfigFactoryMock.getFromGerritConfig(PLUGIN_NAME))
+        .thenReturn(pluginConfig.asPluginConfig());
+
+    Configuration configuration = new Configuration(pluginConfigFactoryMock, PLUGIN_NAME);
+    assertThat(configuration.isCapacityLimiterEnabled()).isTrue();
+    assertThat(configuration.getCapacityLimiterReadUnits()).isEqualTo(40);
+    assertThat(configuration.getCapacityLimiterWriteUnits()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldDisableProjectUsageByDefault() {
+    when(pluginConfigFactoryMock.getFromGerritConfig(PLUGIN_NAME))
+        .thenReturn(pluginConfig.asPluginConfig());
+
+    Configuration configuration = new Configuration(pluginConfigFactoryMock, PLUGIN_NAME);
+    assertThat(configuration.isProjectUsageEnabled()).isFalse();
+    assertThat(configuration.getProjectUsageProjects()).isEqualTo(DEFAULT_PROJECT_USAGE_PROJECTS);
+  }
+
+  @Test
+  public void shouldReadConfiguredProjectUsage() {
+    pluginConfig.setBoolean("projectUsageEnabled", true);
+    pluginConfig.setInt("projectUsageProjects", 500);
+    when(pluginConfigFactoryMock.getFromGerritConfig(PLUGIN_NAME))
+        .thenReturn(pluginConfig.asPluginConfig());
+
+    Configuration configuration = new Configuration(pluginConfigFactoryMock, PLUGIN_NAME);
+    assertThat(configuration.isProjectUsageEnabled()).isTrue();
+    assertThat(configuration.getProjectUsageProjects()).isEqualTo(500);
+  }
+
+  @Test
+  public void shouldDisableHotRefsByDefault() {
+    when(pluginConfigFactoryMock.getFromGerritConfig(PLUGIN_NAME))
+        .thenReturn(pluginConfig.asPluginConfig());
+
+    Configuration configuration = new Configuration(pluginConfigFactoryMock, PLUGIN_NAME);
+    assertThat(configuration.isHotRefsEnabled()).isFalse();
+    assertThat(configuration.getHotRefsThreshold()).isEqualTo(DEFAULT_HOT_REFS_THRESHOLD);
+    assertThat(configuration.getHotRefsWindow()).isEqualTo(DEFAULT_HOT_REFS_WINDOW);
+    assertThat(configuration.getHotRefsCacheTtl()).isEqualTo(DEFAULT_HOT_REFS_CACHE_TTL);
+  }
+
+  @Test
+  public void shouldReadConfiguredHotRefs() {
+    pluginConfig.setBoolean("hotRefsEnabled", true);
+    pluginConfig.setInt("hotRefsThreshold", 50);
+    pluginConfig.setInt("hotRefsWindow", 1000);
+    pluginConfig.setString("hotRefsCacheTtl", "500ms");
+    when(pluginConfigFactoryMock.getFromGerritConfig(PLUGIN_NAME))
+        .thenReturn(pluginConfig.asPluginConfig());
+
+    Configuration configuration = new Configuration(pluginConfigFactoryMock, PLUGIN_NAME);
+    assertThat(configuration.isHotRefsEnabled()).isTrue();
+    assertThat(configuration.getHotRefsThreshold()).isEqualTo(50);
+    assertThat(configuration.getHotRefsWindow()).isEqualTo(1000);
+    assertThat(configuration.getHotRefsCacheTtl()).isEqualTo(Duration.ofMillis(500));
+  }
+
+  @Test
+  public void shouldDisableKnownRefsByDefault() {
+    when(pluginConfigFactoryMock.getFromGerritConfig(PLUGIN_NAME))
+        .thenReturn(pluginConfig.asPluginConfig());
+
+    Configuration configuration = new Configuration(pluginConfigFactoryMock, PLUGIN_NAME);
+    assertThat(configuration.isKnownRefsEnabled()).isFalse();
+    assertThat(configuration.getKnownRefsFalsePositiveRate())
+        .isEqualTo(DEFAULT_KNOWN_REFS_FALSE_POSITIVE_RATE);
+    assertThat(configuration.getKnownRefsProjects()).isEqualTo(DEFAULT_KNOWN_REFS_PROJECTS);
+  }
+
+  @Test
+  public void shouldReadConfiguredKnownRefs() {
+    pluginConfig.setBoolean("knownRefsEnabled", true);
+    pluginConfig.setInt("knownRefsFalsePositiveRate", 90);
+    pluginConfig.setInt("knownRefsProjects", 200);
+    when(pluginConfigFactoryMock.getFromGerritConfig(PLUGIN_NAME))
+        .thenReturn(pluginConfig.asPluginConfig());
+
+    Configuration configuration = new Configuration(pluginConfigFactoryMock, PLUGIN_NAME);
+    assertThat(configuration.isKnownRefsEnabled()).isTrue();
+    assertThat(configuration.getKnownRefsFalsePositiveRate()).isEqualTo(50);
+    assertThat(configuration.getKnownRefsProjects()).isEqualTo(200);
+  }
+
+  @Test
+  public void shouldDisableHedgedReadsByDefault() {
+    when(pluginConfigFactoryMock.getFromGerritConfig(PLUGIN_NAME))
+        .thenReturn(pluginConfig.asPluginConfig());
+
+    Configuration configuration = new Configuration(pluginConfigFactoryMock, PLUGIN_NAME);
+    assertThat(configuration.isHedgedReadsEnabled()).isFalse();
+    assertThat(configuration.getHedgedReadsPercentile()).isEqualTo(DEFAULT_HEDGED_READS_PERCENTILE);
+    assertThat(configuration.getHedgedReadsMinDelay()).isEqualTo(DEFAULT_HEDGED_READS_MIN_DELAY);
+    assertThat(configuration.getHedgedReadsBudget()).isEqualTo(DEFAULT_HEDGED_READS_BUDGET);
+  }
+
+  @Test
+  public void shouldReadConfiguredHedgedReads() {
+    pluginConfig.setBoolean("hedgedReadsEnabled", true);
+    pluginConfig.setInt("hedgedReadsPercentile", 99);
+    pluginConfig.setString("hedgedReadsMinDelay", "5ms");
+    pluginConfig.setInt("hedgedReadsBudget", 2);
+    when(pluginConfigFactoryMock.getFromGerritConfig(PLUGIN_NAME))
+        .thenReturn(pluginConfig.asPluginConfig());
+
+    Configuration configuration = new Configuration(pluginConfigFactoryMock, PLUGIN_NAME);
+    assertThat(configuration.isHedgedReadsEnabled()).isTrue();
+    assertThat(configuration.getHedgedReadsPercentile()).isEqualTo(99);
+    assertThat(configuration.getHedgedReadsMinDelay()).isEqualTo(Duration.ofMillis(5));
+    assertThat(configuration.getHedgedReadsBudget()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldBoundHedgedReadsPercentileAndBudget() {
+    pluginConfig.setInt("hedgedReadsPercentile", 100);
+    pluginConfig.setInt("hedgedReadsBudget", 200);
+    when(pluginConfigFactoryMock.getFromGerritConfig(PLUGIN_NAME))
+        .thenReturn(pluginConfig.asPluginConfig());
+
+    Configuration configuration = new Configuration(pluginConfigFactoryMock, PLUGIN_NAME);
+    assertThat(configuration.getHedgedReadsPercentile()).isEqualTo(99);
+    assertThat(configuration.getHedgedReadsBudget()).isEqualTo(100);
+  }
+
+  @Test
+  public void shouldUseFlatRefsDbTableLayoutByDefault() {
+    when(pluginConfigFactoryMock.getFromGerritConfig(PLUGIN_NAME))
+        .thenReturn(pluginConfig.asPluginConfig());
+
+    Configuration configuration = new Configuration(pluginConfigFactoryMock, PLUGIN_NAME);
+    assertThat(configuration.getRefsDbTableLayout()).isEqualTo(RefsDbTableLayout.FLAT);
+  }
+
+  @Test
+  public void shouldReadConfiguredRefsDbTableLayout() {
+    pluginConfig.setString("refsDbTableLayout", "partitioned");
+    when(pluginConfigFactoryMock.getFromGerritConfig(PLUGIN_NAME))
+        .thenReturn(pluginConfig.asPluginConfig());
+
+    Configuration configuration = new Configuration(pluginConfigFactoryMock, PLUGIN_NAME);
+    assertThat(configuration.getRefsDbTableLayout()).isEqualTo(RefsDbTableLayout.PARTITIONED);
+  }
+
+  @Test
+  public void shouldStoreRefValuesAsStringsByDefault() {
+    when(pluginConfigFactoryMock.getFromGerritConfig(PLUGIN_NAME))
+        .thenReturn(pluginConfig.asPluginConfig());
+
+    Configuration configuration = new Configuration(pluginConfigFactoryMock, PLUGIN_NAME);
+    assertThat(configuration.getRefValueFormat()).isEqualTo(RefValueFormat.STRING);
+  }
+
+  @Test
+  public void shouldReadConfiguredRefValueFormat() {
+    pluginConfig.setString("refValueFormat", "binary");
+    when(pluginConfigFactoryMock.getFromGerritConfig(PLUGIN_NAME))
+        .thenReturn(pluginConfig.asPluginConfig());
+
+    Configuration configuration = new Configuration(pluginConfigFactoryMock, PLUGIN_NAME);
+    assertThat(configuration.getRefValueFormat()).isEqualTo(RefValueFormat.BINARY);
+  }
+
+  @Test
+  public void shouldReadDefaultLockSettings() {
+    when(pluginConfigFactoryMock.getFromGerritConfig(PLUGIN_NAME))
+        .thenReturn(pluginConfig.asPluginConfig());
+
+    Configuration configuration = new Configuration(pluginConfigFactoryMock, PLUGIN_NAME);
+    assertThat(configuration.getLockLeaseDuration()).isEqualTo(DEFAULT_LOCK_LEASE_DURATION);
+    assertThat(configuration.getLockHeartbeatPeriod()).isEqualTo(DEFAULT_LOCK_HEARTBEAT_PERIOD);
+    assertThat(configuration.getLockRefreshPeriod()).isEqualTo(DEFAULT_LOCK_REFRESH_PERIOD);
+    assertThat(configuration.getLockMaxWait()).isEqualTo(DEFAULT_LOCK_MAX_WAIT);
+    assertThat(configuration.getLockMaxAttempts()).isEqualTo(DEFAULT_LOCK_MAX_ATTEMPTS);
+    assertThat(configuration.getLockBackoffBase()).isEqualTo(DEFAULT_LOCK_BACKOFF_BASE);
+    assertThat(configuration.getLockBackoffMax()).isEqualTo(DEFAULT_LOCK_BACKOFF_MAX);
+    assertThat(configuration.isLockFailFast()).isFalse();
+  }
+
+  @Test
+  public void shouldReadConfiguredLockSettings() {
+    pluginConfig.setString("lockLeaseDuration", "20s");
+    pluginConfig.setString("lockHeartbeatPeriod", "5s");
+    pluginConfig.setString("lockRefreshPeriod", "250ms");
+    pluginConfig.setString("lockMaxWait", "2s");
+    pluginConfig.setInt("lockMaxAttempts", 3);
+    pluginConfig.setString("lockBackoffBase", "50ms");
+    pluginConfig.setString("lockBackoffMax", "1s");
+    pluginConfig.setBoolean("lockFailFast", true);
+    when(pluginConfigFactoryMock.getFromGerritConfig(PLUGIN_NAME))
+        .thenReturn(pluginConfig.asPluginConfig());
+
+    Configuration configuration = new Configuration(pluginConfigFactoryMock, PLUGIN_NAME);
+    assertThat(configuration.getLockLeaseDuration()).isEqualTo(Duration.ofSeconds(20));
+    assertThat(configuration.getLockHeartbeatPeriod()).isEqualTo(Duration.ofSeconds(5));
+    assertThat(configuration.getLockRefreshPeriod()).isEqualTo(Duration.ofMillis(250));
+    assertThat(configuration.getLockMaxWait()).isEqualTo(Duration.ofSeconds(2));
+    assertThat(configuration.getLockMaxAttempts()).isEqualTo(3);
+    assertThat(configuration.getLockBackoffBase()).isEqualTo(Duration.ofMillis(50));
+    assertThat(configuration.getLockBackoffMax()).isEqualTo(Duration.ofSeconds(1));
+    assertThat(configuration.isLockFailFast()).isTrue();
+  }
+
+  @Test
+  public void shouldReadDefaultHttpTransportSettings() {
+    when(pluginConfigFactoryMock.getFromGerritConfig(PLUGIN_NAME))
+        .thenReturn(pluginConfig.asPluginConfig());
+
+    Configuration configuration = new Configuration(pluginConfigFactoryMock, PLUGIN_NAME);
+    assertThat(configuration.getMaxConnections()).isEqualTo(DEFAULT_MAX_CONNECTIONS);
+    assertThat(configuration.getConnectionAcquisitionTimeout())
+        .isEqualTo(DEFAULT_CONNECTION_ACQUISITION_TIMEOUT);
+    assertThat(configuration.getConnectionTimeout()).isEqualTo(DEFAULT_CONNECTION_TIMEOUT);
+    assertThat(configuration.getConnectionTimeToLive()).isEqualTo(Duration.ZERO);
+    assertThat(configuration.getConnectionMaxIdleTime())
+        .isEqualTo(DEFAULT_CONNECTION_MAX_IDLE_TIME);
+    assertThat(configuration.isTcpKeepAlive()).isFalse();
+    assertThat(configuration.getApiCallTimeout()).isEmpty();
+    assertThat(configuration.getApiCallAttemptTimeout()).isEmpty();
+  }
+
+  @Test
+  public void shouldReadConfiguredHttpTransportSettings() {
+    pluginConfig.setInt("maxConnections", 200);
+    pluginConfig.setString("connectionAcquisitionTimeout", "1s");
+    pluginConfig.setString("connectionTimeout", "500ms");
+    pluginConfig.setString("connectionTimeToLive", "5min");
+    pluginConfig.setString("connectionMaxIdleTime", "30s");
+    pluginConfig.setBoolean("tcpKeepAlive", true);
+    pluginConfig.setString("apiCallTimeout", "3s");
+    pluginConfig.setString("apiCallAttemptTimeout", "800ms");
+    when(pluginConfigFactoryMock.getFromGerritConfig(PLUGIN_NAME))
+        .thenReturn(pluginConfig.asPluginConfig());
+
+    Configuration configuration = new Configuration(pluginConfigFactoryMock, PLUGIN_NAME);
+    assertThat(configuration.getMaxConnections()).isEqualTo(200);
+    assertThat(configuration.getConnectionAcquisitionTimeout()).isEqualTo(Duration.ofSeconds(1));
+    assertThat(configuration.getConnectionTimeout()).isEqualTo(Duration.ofMillis(500));
+    assertThat(configuration.getConnectionTimeToLive()).isEqualTo(Duration.ofMinutes(5));
+    assertThat(configuration.getConnectionMaxIdleTime()).isEqualTo(Duration.ofSeconds(30));
+    assertThat(configuration.isTcpKeepAlive()).isTrue();
+    assertThat(configuration.getApiCallTimeout()).hasValue(Duration.ofSeconds(3));
+    assertThat(configuration.getApiCallAttemptTimeout()).hasValue(Duration.ofMillis(800));
+  }
+
+  @Test
+  public void shouldDisableChangeFeedByDefault() {
+    when(pluginConfigFactoryMock.getFromGerritConfig(PLUGIN_NAME))
+        .thenReturn(pluginConfig.asPluginConfig());
+
+    Configuration configuration = new Configuration(pluginConfigFactoryMock, PLUGIN_NAME);
+    assertThat(configuration.isChangeFeedEnabled()).isFalse();
+    assertThat(configuration.getChangeFeedPollInterval())
+        .isEqualTo(DEFAULT_CHANGE_FEED_POLL_INTERVAL);
+  }
+
+  @Test
+  public void shouldReadConfiguredChangeFeed() {
+    pluginConfig.setBoolean("changeFeedEnabled", true);
+    pluginConfig.setString("changeFeedPollInterval", "2s");
+    when(pluginConfigFactoryMock.getFromGerritConfig(PLUGIN_NAME))
+        .thenReturn(pluginConfig.asPluginConfig());
+
+    Configuration configuration = new Configuration(pluginConfigFactoryMock, PLUGIN_NAME);
+    assertThat(configuration.isChangeFeedEnabled()).isTrue();
+    assertThat(configuration.getChangeFeedPollInterval()).isEqualTo(Duration.ofSeconds(2));
+  }
+
+  @Test
+  public void shouldDisableProjectVersionWarmUpByDefault() {
+    when(pluginConfigFactoryMock.getFromGerritConfig(PLUGIN_NAME))
+        .thenReturn(pluginConfig.asPluginConfig());
+
+    Configuration configuration = new Configuration(pluginConfigFactoryMock, PLUGIN_NAME);
+    assertThat(configuration.isProjectVersionWarmUpEnabled()).isFalse();
+    assertThat(configuration.getProjectVersionWarmUpSegments())
+        .isEqualTo(DEFAULT_PROJECT_VERSION_WARM_UP_SEGMENTS);
+    assertThat(configuration.getProjectVersionWarmUpReadCapacity())
+        .isEqualTo(DEFAULT_PROJECT_VERSION_WARM_UP_READ_CAPACITY);
+    assertThat(configuration.getProjectVersionWarmUpTimeout())
+        .isEqualTo(DEFAULT_PROJECT_VERSION_WARM_UP_TIMEOUT);
+  }
+
+  @Test
+  public void shouldReadConfiguredProjectVersionWarmUp() {
+    pluginConfig.setBoolean("projectVersionWarmUpEnabled", true);
+    pluginConfig.setInt("projectVersionWarmUpSegments", 16);
+    pluginConfig.setInt("projectVersionWarmUpReadCapacity", 500);
+    pluginConfig.setString("projectVersionWarmUpTimeout", "10min");
+    when(pluginConfigFactoryMock.getFromGerritConfig(PLUGIN_NAME))
+        .thenReturn(pluginConfig.asPluginConfig());
+
+    Configuration configuration = new Configuration(pluginConfigFactoryMock, PLUGIN_NAME);
+    assertThat(configuration.isProjectVersionWarmUpEnabled()).isTrue();
+    assertThat(configuration.getProjectVersionWarmUpSegments()).isEqualTo(16);
+    assertThat(configuration.getProjectVersionWarmUpReadCapacity()).isEqualTo(500);
+    assertThat(configuration.getProjectVersionWarmUpTimeout()).isEqualTo(Duration.ofMinutes(10));
+  }
+
+  @Test
+  public void shouldDisableSweeperByDefault() {
+    when(pluginConfigFactoryMock.getFromGerritConfig(PLUGIN_NAME))
+        .thenReturn(pluginConfig.asPluginConfig());
+
+    Configuration configuration = new Configuration(pluginConfigFactoryMock, PLUGIN_NAME);
+    assertThat(configuration.isSweeperEnabled()).isFalse();
+    assertThat(configuration.getSweeperInterval()).isEqualTo(DEFAULT_SWEEPER_INTERVAL);
+    assertThat(configuration.getSweeperSegments()).isEqualTo(DEFAULT_SWEEPER_SEGMENTS);
+    assertThat(configuration.getSweeperCapacity()).isEqualTo(DEFAULT_SWEEPER_CAPACITY);
+    assertThat(configuration.getSweeperExpiry()).isEmpty();
+  }
+
+  @Test
+  public void shouldReadConfiguredSweeper() {
+    pluginConfig.setBoolean("sweeperEnabled", true);
+    pluginConfig.setString("sweeperInterval", "12h");
+    pluginConfig.setInt("sweeperSegments", 8);
+    pluginConfig.setInt("sweeperCapacity", 50);
+    pluginConfig.setString("sweeperExpiry", "7d");
+    when(pluginConfigFactoryMock.getFromGerritConfig(PLUGIN_NAME))
+        .thenReturn(pluginConfig.asPluginConfig());
+
+    Configuration configuration = new Configuration(pluginConfigFactoryMock, PLUGIN_NAME);
+    assertThat(configuration.isSweeperEnabled()).isTrue();
+    assertThat(configuration.getSweeperInterval()).isEqualTo(Duration.ofHours(12));
+    assertThat(configuration.getSweeperSegments()).isEqualTo(8);
+    assertThat(configuration.getSweeperCapacity()).isEqualTo(50);
+    assertThat(configuration.getSweeperExpiry()).hasValue(Duration.ofDays(7));
+  }
 }
@@ -0,0 +1,76 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.concurrent.CompletionException;
+import org.junit.Test;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+
+public class DynamoDBMetricsTest {
+
+  @Test
+  public void shouldClassifySuccess() {
+    assertThat(DynamoDBMetrics.outcomeOf(null)).isEqualTo(DynamoDBMetrics.SUCCESS);
+  }
+
+  @Test
+  public void shouldClassifyConditionalCheckFailure() {
+    assertThat(
+            DynamoDBMetrics.outcomeOf(
+                new CompletionException(ConditionalCheckFailedException.builder().build())))
+        .isEqualTo(DynamoDBMetrics.CONDITIONAL_CHECK_FAILED);
+  }
+
+  @Test
+  public void shouldClassifyCancelledTransactionOnConditionalCheckFailure() {
+    TransactionCanceledException error =
+        TransactionCanceledException.builder()
+            .cancellationReasons(
+                CancellationReason.builder().code("None").build(),
+                CancellationReason.builder().code("ConditionalCheckFailed").build())
+            .build();
+
+    assertThat(DynamoDBMetrics.outcomeOf(error))
+        .isEqualTo(DynamoDBMetrics.CONDITIONAL_CHECK_FAILED);
+  }
+
+  @Test
+  public void shouldClassifyThrottling() {
+    DynamoDbException error =
+        (DynamoDbException)
+            DynamoDbException.builder()
+                .statusCode(400)
+                .awsErrorDetails(
+                    AwsErrorDetails.builder()
+                        .errorCode("ProvisionedThroughputExceededException")
+                        .build())
+                .build();
+
+    assertThat(DynamoDBMetrics.outcomeOf(new CompletionException(error)))
+        .isEqualTo(DynamoDBMetrics.THROTTLED);
+  }
+
+  @Test
+  public void shouldClassifyAnyOtherFailureAsError() {
+    assertThat(DynamoDBMetrics.outcomeOf(new IllegalStateException()))
+        .isEqualTo(DynamoDBMetrics.ERROR);
+  }
+}
@@ -17,7 +17,9 @@ package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
 import static com.google.common.truth.Truth.assertThat;
 import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.Configuration.DEFAULT_LOCKS_TABLE_NAME;
 import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.Configuration.DEFAULT_REFS_DB_TABLE_NAME;
+import static org.junit.Assert.assertThrows;
 import static org.testcontainers.containers.localstack.LocalStackContainer.Service.DYNAMODB;
+import static org.testcontainers.containers.localstack.LocalStackContainer.Service.DYNAMODB_STREAMS;
 
 import com.gerritforge.gerrit.globalrefdb.GlobalRefDbLockException;
 import com.google.common.cache.LoadingCache;
@@ -25,16 +27,22 @@ import com.google.common.flogger.FluentLogger;
 import com.google.gerrit.acceptance.LightweightPluginDaemonTest;
 import com.google.gerrit.acceptance.TestPlugin;
 import com.google.gerrit.acceptance.WaitUtil;
+import com.google.gerrit.acceptance.config.GerritConfig;
 import com.google.gerrit.common.Nullable;
 import com.google.gerrit.entities.Project;
 import com.google.inject.Key;
 import com.google.inject.TypeLiteral;
 import com.google.inject.name.Names;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.ObjectIdRef;
 import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.transport.ReceiveCommand;
 import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
@@ -61,7 +69,7 @@ public class DynamoDBRefDatabaseIT extends LightweightPluginDaemonTest {
 
     localstack =
         new LocalStackContainer(DockerImageName.parse("localstack/localstack").withTag("4.9.2"))
-            .withServices(DYNAMODB)
+            .withServices(DYNAMODB, DYNAMODB_STREAMS)
             .withExposedPorts(LOCALSTACK_PORT);
     localstack.start();
   }
@@ -164,6 +172,69 @@ public class DynamoDBRefDatabaseIT extends LightweightPluginDaemonTest {
     assertThat(dynamoDBRefDatabase().isUpToDate(project, refOf(refName, currentRefValue))).isTrue();
   }
 
+  @Test
+  public void batchIsUpToDateShouldCheckEveryRefAcrossMultipleBatches() throws Exception {
+    String currentRefValue = "533d3ccf8a650fb26380faa732921a2c74924d5c";
+    String previousRefValue = "9f6f2963cf44505428c61b935ff1ca65372cf28c";
+    List<Ref> refs = new ArrayList<>();
+    for (int i = 0; i < DynamoDBRefDatabase.BATCH_GET_MAX_KEYS + 10; i++) {
+      refs.add(refOf(String.format("refs/changes/%02d/%d/meta", i % 100, i), currentRefValue));
+    }
+    String outOfSyncRef = refs.get(0).getName();
+    String upToDateRef = refs.get(refs.size() - 1).getName();
+    createRefInDynamoDB(project, outOfSyncRef, previousRefValue);
+    createRefInDynamoDB(project, upToDateRef, currentRefValue);
+
+    Map<String, Boolean> upToDate = dynamoDBRefDatabase().isUpToDate(project, refs);
+
+    assertThat(upToDate).hasSize(refs.size());
+    assertThat(upToDate).containsEntry(outOfSyncRef, false);
+    assertThat(upToDate).containsEntry(upToDateRef, true);
+    assertThat(upToDate.values().stream().filter(v -> !v).count()).isEqualTo(1);
+  }
+
+  @Test
+  @GerritConfig(name = "plugin.aws-dynamodb-refdb.eventuallyConsistentReads", value = "true")
+  public void isUpToDateShouldFallBackToConsistentReadWhenEventuallyConsistentReadDisagrees()
+      throws Exception {
+    String refName = "refs/changes/01/01/meta";
+    String currentRefValue = "533d3ccf8a650fb26380faa732921a2c74924d5c";
+    String previousRefValue = "9f6f2963cf44505428c61b935ff1ca65372cf28c";
+    String missingRefName = "refs/changes/02/02/meta";
+
+    createRefInDynamoDB(project, refName, previousRefValue);
+
+    assertThat(dynamoDBRefDatabase().isUpToDate(project, refOf(refName, currentRefValue)))
+        .isFalse();
+    assertThat(dynamoDBRefDatabase().isUpToDate(project, refOf(refName, previousRefValue)))
+        .isTrue();
+    assertThat(dynamoDBRefDatabase().isUpToDate(project, refOf(missingRefName, currentRefValue)))
+        .isTrue();
+    assertThat(
+            dynamoDBRefDatabase()
+                .isUpToDate(
+                    project,
+                    List.of(
+                        refOf(refName, currentRefValue), refOf(missingRefName, currentRefValue))))
+        .containsExactly(refName, false, missingRefName, true);
+    assertThat(dynamoDBRefDatabase().exists(project, refName)).isTrue();
+    assertThat(dynamoDBRefDatabase().exists(project, missingRefName)).isFalse();
+    assertThat(dynamoDBRefDatabase().get(project, refName, String.class))
+        .hasValue(previousRefValue);
+  }
+
+  @Test
+  public void getAllShouldReturnOnlyStoredRefs() {
+    String refName = "refs/changes/01/01/meta";
+    String refValue = "533d3ccf8a650fb26380faa732921a2c74924d5c";
+    createRefInDynamoDB(project, refName, refValue);
+
+    Map<String, String> values =
+        dynamoDBRefDatabase().getAll(project, List.of(refName, "refs/not/in/db"));
+
+    assertThat(values).containsExactly(refName, refValue);
+  }
+
   @Test
   public void compareAndPutShouldBeSuccessfulWhenNoPreviousRefExists() {
     String refName = "refs/changes/01/01/meta";
@@ -175,6 +246,50 @@ public class DynamoDBRefDatabaseIT extends LightweightPluginDaemonTest {
         .isTrue();
   }
 
+  @Test
+  public void batchCompareAndPutShouldUpdateAllRefs() {
+    String refName = "refs/changes/01/01/meta";
+    String otherRefName = "refs/changes/02/02/meta";
+    String currentRefValue = "533d3ccf8a650fb26380faa732921a2c74924d5c";
+    String newRefValue = "9f6f2963cf44505428c61b935ff1ca65372cf28c";
+    createRefInDynamoDB(project, refName, currentRefValue);
+
+    Set<String> failedRefs =
+        dynamoDBRefDatabase()
+            .compareAndPut(
+                project,
+                List.of(
+                    updateCommand(refName, currentRefValue, newRefValue),
+                    updateCommand(otherRefName, ObjectId.zeroId().getName(), newRefValue)));
+
+    assertThat(failedRefs).isEmpty();
+    assertThat(dynamoDBRefDatabase().get(project, refName, String.class)).hasValue(newRefValue);
+    assertThat(dynamoDBRefDatabase().get(project, otherRefName, String.class))
+        .hasValue(newRefValue);
+  }
+
+  @Test
+  public void batchCompareAndPutShouldReportFailedRefsAndUpdateNone() {
+    String refName = "refs/changes/01/01/meta";
+    String otherRefName = "refs/changes/02/02/meta";
+    String currentRefValue = "533d3ccf8a650fb26380faa732921a2c74924d5c";
+    String newRefValue = "9f6f2963cf44505428c61b935ff1ca65372cf28c";
+    String expectedRefValue = "875ce4b14278b64be61478f91a40cf480758bfba";
+    createRefInDynamoDB(project, refName, currentRefValue);
+    createRefInDynamoDB(project, otherRefName, currentRefValue);
+
+    Set<String> failedRefs =
+        dynamoDBRefDatabase()
+            .compareAndPut(
+                project,
+                List.of(
+                    updateCommand(refName, currentRefValue, newRefValue),
+                    updateCommand(otherRefName, expectedRefValue, newRefValue)));
+
+    assertThat(failedRefs).containsExactly(otherRefName);
+    assertThat(dynamoDBRefDatabase().get(project, refName, String.class)).hasValue(currentRefValue);
+  }
+
   @Test
   public void putShouldBeSuccessfulWhenNoPreviousValueForRefExists() {
     String refName = "refs/changes/01/01/meta";
@@ -236,6 +351,35 @@ public class DynamoDBRefDatabaseIT extends LightweightPluginDaemonTest {
         .isFalse();
   }
 
+  @Test
+  public void tryCompareAndPutShouldReturnStoredRefValueWhenStoredRefIsNotExpected() {
+    String refName = "refs/changes/01/01/meta";
+    String currentRefValue = "533d3ccf8a650fb26380faa732921a2c74924d5c";
+    String newRefValue = "9f6f2963cf44505428c61b935ff1ca65372cf28c";
+    String expectedRefValue = "875ce4b14278b64be61478f91a40cf480758bfba";
+
+    createRefInDynamoDB(project, refName, currentRefValue);
+    CompareAndPutResult result =
+        dynamoDBRefDatabase()
+            .tryCompareAndPut(
+                project, refOf(refName, expectedRefValue), ObjectId.fromString(newRefValue));
+
+    assertThat(result.isSuccessful()).isFalse();
+    assertThat(result.currentValue()).isEqualTo(Optional.of(currentRefValue));
+  }
+
+  @Test
+  public void tryCompareAndPutShouldNotReturnRefValueWhenSuccessful() {
+    String refName = "refs/changes/01/01/meta";
+    String newRefValue = "533d3ccf8a650fb26380faa732921a2c74924d5c";
+
+    CompareAndPutResult result =
+        dynamoDBRefDatabase().tryCompareAndPut(project, refName, null, newRefValue);
+
+    assertThat(result.isSuccessful()).isTrue();
+    assertThat(result.currentValue()).isEqualTo(Optional.empty());
+  }
+
   @Test
   public void compareAndPutStringsShouldBeSuccessful() throws Exception {
     String refName = "refs/changes/01/01/meta";
@@ -256,9 +400,87 @@ public class DynamoDBRefDatabaseIT extends LightweightPluginDaemonTest {
     assertThat(dynamoDBRefDatabase().compareAndPut(project, refName, null, newRefValue)).isTrue();
   }
 
+  @Test
+  @GerritConfig(name = "plugin.aws-dynamodb-refdb.refValueFormat", value = "binary")
+  public void compareAndPutShouldStoreBinaryRefValuesReadableAsStrings() throws Exception {
+    String refName = "refs/changes/01/01/meta";
+    String newRefValue = "533d3ccf8a650fb26380faa732921a2c74924d5c";
+
+    assertThat(
+            dynamoDBRefDatabase()
+                .compareAndPut(project, refOf(refName, null), ObjectId.fromString(newRefValue)))
+        .isTrue();
+
+    assertThat(dynamoDBRefDatabase().get(project, refName, String.class)).hasValue(newRefValue);
+    assertThat(dynamoDBRefDatabase().isUpToDate(project, refOf(refName, newRefValue))).isTrue();
+  }
+
+  @Test
+  @GerritConfig(name = "plugin.aws-dynamodb-refdb.refValueFormat", value = "binary")
+  public void compareAndPutShouldMatchRefValuesStoredInEitherFormat() throws Exception {
+    String refName = "refs/changes/01/01/meta";
+    String stringRefValue = "533d3ccf8a650fb26380faa732921a2c74924d5c";
+    String binaryRefValue = "9f6f2963cf44505428c61b935ff1ca65372cf28c";
+    String newRefValue = "875ce4b14278b64be61478f91a40cf480758bfba";
+
+    createRefInDynamoDB(project, refName, stringRefValue);
+
+    assertThat(
+            dynamoDBRefDatabase()
+                .compareAndPut(
+                    project, refOf(refName, stringRefValue), ObjectId.fromString(binaryRefValue)))
+        .isTrue();
+    assertThat(
+            dynamoDBRefDatabase()
+                .compareAndPut(
+                    project, refOf(refName, binaryRefValue), ObjectId.fromString(newRefValue)))
+        .isTrue();
+    assertThat(dynamoDBRefDatabase().get(project, refName, String.class)).hasValue(newRefValue);
+  }
+
+  @Test
+  @GerritConfig(name = "plugin.aws-dynamodb-refdb.refsDbTableName", value = "partitionedRefsDb")
+  @GerritConfig(name = "plugin.aws-dynamodb-refdb.refsDbTableLayout", value = "partitioned")
+  public void shouldStoreRefsWithPartitionedLayout() throws Exception {
+    String refName = "refs/changes/01/01/meta";
+    String currentRefValue = "533d3ccf8a650fb26380faa732921a2c74924d5c";
+    String newRefValue = "9f6f2963cf44505428c61b935ff1ca65372cf28c";
+
+    createRefInDynamoDB(project, refName, currentRefValue);
+    assertThat(
+            dynamoDBRefDatabase()
+                .compareAndPut(
+                    project, refOf(refName, currentRefValue), ObjectId.fromString(newRefValue)))
+        .isTrue();
+
+    assertThat(dynamoDBRefDatabase().get(project, refName, String.class)).hasValue(newRefValue);
+    assertThat(dynamoDBRefDatabase().isUpToDate(project, refOf(refName, newRefValue))).isTrue();
+  }
+
+  @Test
+  @GerritConfig(name = "plugin.aws-dynamodb-refdb.refsDbTableName", value = "partitionedRefsDb")
+  @GerritConfig(name = "plugin.aws-dynamodb-refdb.refsDbTableLayout", value = "partitioned")
+  public void getAllShouldReturnOnlyTheRefsOfTheProjectAtItsCurrentVersion() {
+    Project.NameKey otherProject = Project.nameKey(project + "/other");
+    createRefInDynamoDB(project, "refs/heads/removed", "533d3ccf8a650fb26380faa732921a2c74924d5c");
+    dynamoDBRefDatabase().remove(project);
+    projectVersionCache().invalidate(project.get());
+    createRefInDynamoDB(project, "refs/heads/master", "9f6f2963cf44505428c61b935ff1ca65372cf28c");
+    createRefInDynamoDB(
+        otherProject, "refs/heads/master", "875ce4b14278b64be61478f91a40cf480758bfba");
+
+    assertThat(dynamoDBRefDatabase().getAll(project))
+        .containsExactly("refs/heads/master", "9f6f2963cf44505428c61b935ff1ca65372cf28c");
+  }
+
+  @Test
+  public void getAllShouldRequirePartitionedLayout() {
+    assertThrows(IllegalStateException.class, () -> dynamoDBRefDatabase().getAll(project));
+  }
+
   @Test
   public void projectVersionShouldBeUsedAsPrefix() {
-    String versionKey = DynamoDBRefDatabase.currentVersionKey(project);
+    RefsDbKey versionKey = DynamoDBRefDatabase.currentVersionKey(project);
     dynamoDBRefDatabase().doPut(project, versionKey, "1");
 
     assertThat(dynamoDBRefDatabase().pathFor(project, "refs/heads/master"))
@@ -276,12 +498,27 @@ public class DynamoDBRefDatabaseIT extends LightweightPluginDaemonTest {
   }
 
   @Test
-  public void removeProjectShouldKeepCurrentVersionWhenCached() {
+  public void removeProjectShouldIncreaseCachedProjectVersionRightAway() {
     assertThat(dynamoDBRefDatabase().getCurrentVersion(project)).isNull();
 
     dynamoDBRefDatabase().remove(project);
 
+    assertThat(dynamoDBRefDatabase().getCurrentVersion(project)).isEqualTo(1);
+  }
+
+  @Test
+  @GerritConfig(name = "plugin.aws-dynamodb-refdb.refsDbTableName", value = "streamedRefsDb")
+  @GerritConfig(name = "plugin.aws-dynamodb-refdb.changeFeedEnabled", value = "true")
+  @GerritConfig(name = "plugin.aws-dynamodb-refdb.changeFeedPollInterval", value = "100ms")
+  public void removeProjectShouldIncreaseCachedProjectVersionWhenChangeFeedEnabled()
+      throws Exception {
     assertThat(dynamoDBRefDatabase().getCurrentVersion(project)).isNull();
+
+    dynamoDBRefDatabase().remove(project);
+
+    WaitUtil.waitUntil(
+        () -> Integer.valueOf(1).equals(dynamoDBRefDatabase().getCurrentVersion(project)),
+        Duration.ofSeconds(10));
   }
 
   private DynamoDbClient dynamoDBClient() {
@@ -305,6 +542,11 @@ public class DynamoDBRefDatabaseIT extends LightweightPluginDaemonTest {
     dynamoDBRefDatabase().put(project, refPath, refValue);
   }
 
+  private ReceiveCommand updateCommand(String refName, String oldValue, String newValue) {
+    return new ReceiveCommand(
+        ObjectId.fromString(oldValue), ObjectId.fromString(newValue), refName);
+  }
+
   private Ref refOf(String refName, @Nullable String objectIdSha1) {
     return new ObjectIdRef.Unpeeled(
         Ref.Storage.NETWORK,
@@ -0,0 +1,78 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.Optional;
+import org.junit.Before;
+import org.junit.Test;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.core.retry.RetryMode;
+import software.amazon.awssdk.retries.AdaptiveRetryStrategy;
+import software.amazon.awssdk.retries.api.RetryStrategy;
+
+public class DynamoDbClientProviderTest {
+  private final Configuration configuration = mock(Configuration.class);
+
+  @Before
+  public void setUp() {
+    when(configuration.getRetryMode()).thenReturn(Optional.empty());
+    when(configuration.getRetryMaxAttempts()).thenReturn(Optional.empty());
+    when(configuration.getRetryBackoffBase()).thenReturn(Optional.empty());
+    when(configuration.getRetryThrottlingBackoffBase()).thenReturn(Optional.empty());
+    when(configuration.getRetryBackoffMax()).thenReturn(Duration.ofSeconds(20));
+  }
+
+  @Test
+  public void shouldKeepClientRetryDefaultsWhenNotConfigured() {
+    ClientOverrideConfiguration overrideConfiguration = configureRetryStrategy();
+
+    assertThat(overrideConfiguration.retryStrategy()).isEmpty();
+    assertThat(overrideConfiguration.retryStrategyConfigurator()).isEmpty();
+  }
+
+  @Test
+  public void shouldConfigureDefaultRetryStrategyWhenModeIsNotConfigured() {
+    when(configuration.getRetryMaxAttempts()).thenReturn(Optional.of(5));
+
+    ClientOverrideConfiguration overrideConfiguration = configureRetryStrategy();
+
+    assertThat(overrideConfiguration.retryStrategy()).isEmpty();
+    assertThat(overrideConfiguration.retryStrategyConfigurator()).isPresent();
+  }
+
+  @Test
+  public void shouldUseStrategyOfConfiguredRetryMode() {
+    when(configuration.getRetryMode()).thenReturn(Optional.of(RetryMode.ADAPTIVE_V2));
+    when(configuration.getRetryMaxAttempts()).thenReturn(Optional.of(5));
+    when(configuration.getRetryThrottlingBackoffBase())
+        .thenReturn(Optional.of(Duration.ofMillis(500)));
+
+    RetryStrategy retryStrategy = configureRetryStrategy().retryStrategy().get();
+
+    assertThat(retryStrategy).isInstanceOf(AdaptiveRetryStrategy.class);
+    assertThat(retryStrategy.maxAttempts()).isEqualTo(5);
+  }
+
+  private ClientOverrideConfiguration configureRetryStrategy() {
+    ClientOverrideConfiguration.Builder builder = ClientOverrideConfiguration.builder();
+    DynamoDbClientProvider.configureRetryStrategy(configuration, builder);
+    return builder.build();
+  }
+}
@@ -0,0 +1,174 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.gerrit.metrics.DisabledMetricMaker;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+
+public class HedgedReadsTest {
+  private static final Duration MIN_DELAY = Duration.ofMillis(1);
+
+  private final Configuration configuration = mock(Configuration.class);
+  private final List<CompletableFuture<String>> requests = new ArrayList<>();
+
+  @Before
+  public void setUp() {
+    when(configuration.isHedgedReadsEnabled()).thenReturn(true);
+    when(configuration.getHedgedReadsPercentile()).thenReturn(95);
+    when(configuration.getHedgedReadsMinDelay()).thenReturn(MIN_DELAY);
+    when(configuration.getHedgedReadsBudget()).thenReturn(100);
+  }
+
+  @Test
+  public void shouldNotHedgeUntilEnoughLatenciesAreSampled() {
+    HedgedReads hedgedReads = newHedgedReads();
+    assertThat(hedgedReads.delayNanos()).isEqualTo(-1);
+
+    warmUp(hedgedReads);
+
+    assertThat(hedgedReads.delayNanos()).isAtLeast(MIN_DELAY.toNanos());
+  }
+
+  @Test
+  public void shouldCompleteWithHedgeWhenReadIsSlow() throws Exception {
+    HedgedReads hedgedReads = newHedgedReads();
+    warmUp(hedgedReads);
+
+    CompletableFuture<String> result = hedgedReads.read(this::pendingRequest);
+    waitForRequests(2);
+    requests.get(1).complete("hedge");
+
+    assertThat(result.get(10, TimeUnit.SECONDS)).isEqualTo("hedge");
+  }
+
+  @Test
+  public void shouldWaitForHedgeWhenReadFails() throws Exception {
+    HedgedReads hedgedReads = newHedgedReads();
+    warmUp(hedgedReads);
+
+    CompletableFuture<String> result = hedgedReads.read(this::pendingRequest);
+    waitForRequests(2);
+    requests.get(0).completeExceptionally(new IllegalStateException("read failed"));
+    assertThat(result.isDone()).isFalse();
+    requests.get(1).complete("hedge");
+
+    assertThat(result.get(10, TimeUnit.SECONDS)).isEqualTo("hedge");
+  }
+
+  @Test
+  public void shouldFailWithoutHedgeWhenReadFailsBeforeHedgingDelay() {
+    when(configuration.getHedgedReadsMinDelay()).thenReturn(Duration.ofMinutes(1));
+    HedgedReads hedgedReads = newHedgedReads();
+    warmUp(hedgedReads);
+
+    CompletableFuture<String> result = hedgedReads.read(this::pendingRequest);
+    requests.get(0).completeExceptionally(new IllegalStateException("read failed"));
+
+    assertThrows(ExecutionException.class, () -> result.get(10, TimeUnit.SECONDS));
+    assertThat(requests).hasSize(1);
+  }
+
+  @Test
+  public void shouldStopHedgingWhenReadsAreThrottled() throws Exception {
+    HedgedReads hedgedReads = newHedgedReads();
+    warmUp(hedgedReads);
+    CompletableFuture<String> throttled =
+        hedgedReads.read(() -> CompletableFuture.failedFuture(throttlingException()));
+    assertThrows(ExecutionException.class, () -> throttled.get(10, TimeUnit.SECONDS));
+
+    CompletableFuture<String> result = hedgedReads.read(this::pendingRequest);
+    Thread.sleep(MIN_DELAY.multipliedBy(50).toMillis());
+
+    assertThat(requests).hasSize(1);
+    requests.get(0).complete("read");
+    assertThat(result.get(10, TimeUnit.SECONDS)).isEqualTo("read");
+  }
+
+  @Test
+  public void shouldNotHedgeWithoutBudget() throws Exception {
+    when(configuration.getHedgedReadsBudget()).thenReturn(0);
+    HedgedReads hedgedReads = newHedgedReads();
+    warmUp(hedgedReads);
+
+    hedgedReads.read(this::pendingRequest);
+    Thread.sleep(MIN_DELAY.multipliedBy(50).toMillis());
+
+    assertThat(requests).hasSize(1);
+  }
+
+  @Test
+  public void shouldNotHedgeWhenNotAllowed() throws Exception {
+    HedgedReads hedgedReads = newHedgedReads();
+    warmUp(hedgedReads);
+
+    hedgedReads.read(this::pendingRequest, () -> false);
+    Thread.sleep(MIN_DELAY.multipliedBy(50).toMillis());
+
+    assertThat(requests).hasSize(1);
+  }
+
+  private HedgedReads newHedgedReads() {
+    return new HedgedReads(configuration, new DynamoDBMetrics(new DisabledMetricMaker()));
+  }
+
+  private static void warmUp(HedgedReads hedgedReads) {
+    for (int i = 0; i < HedgedReads.LATENCY_SAMPLES; i++) {
+      hedgedReads.read(() -> CompletableFuture.completedFuture("warm-up")).join();
+    }
+  }
+
+  private synchronized CompletableFuture<String> pendingRequest() {
+    CompletableFuture<String> request = new CompletableFuture<>();
+    requests.add(request);
+    return request;
+  }
+
+  private void waitForRequests(int count) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (sentRequests() < count && System.nanoTime() < deadline) {
+      Thread.sleep(1);
+    }
+    assertThat(sentRequests()).isEqualTo(count);
+  }
+
+  private synchronized int sentRequests() {
+    return requests.size();
+  }
+
+  private static DynamoDbException throttlingException() {
+    return (DynamoDbException)
+        DynamoDbException.builder()
+            .statusCode(400)
+            .awsErrorDetails(
+                AwsErrorDetails.builder()
+                    .errorCode("ProvisionedThroughputExceededException")
+                    .build())
+            .build();
+  }
+}
@@ -0,0 +1,198 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.gerrit.metrics.DisabledMetricMaker;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HotRefsTest {
+  private static final String REF_PATH = "/project/refs/meta/config";
+  private static final String OTHER_REF_PATH = "/project/refs/heads/feature";
+  private static final String REF_VALUE = "0123456789012345678901234567890123456789";
+  private static final int THRESHOLD = 3;
+  private static final int WINDOW = 10;
+
+  private final AtomicInteger reads = new AtomicInteger();
+  private Configuration configuration;
+
+  @Before
+  public void setUp() {
+    configuration = mock(Configuration.class);
+    when(configuration.isHotRefsEnabled()).thenReturn(true);
+    when(configuration.getHotRefsThreshold()).thenReturn(THRESHOLD);
+    when(configuration.getHotRefsWindow()).thenReturn(WINDOW);
+    when(configuration.getHotRefsCacheTtl()).thenReturn(Duration.ofMinutes(1));
+  }
+
+  @Test
+  public void shouldDetectRefsAccessedAtThreshold() {
+    HotRefs hotRefs = hotRefs();
+
+    access(hotRefs, REF_PATH, THRESHOLD - 1);
+    assertThat(hotRefs.isHot(REF_PATH)).isFalse();
+
+    access(hotRefs, REF_PATH, 1);
+    assertThat(hotRefs.isHot(REF_PATH)).isTrue();
+    assertThat(hotRefs.isHot(OTHER_REF_PATH)).isFalse();
+  }
+
+  @Test
+  public void shouldCoolDownRefsNoLongerAccessed() {
+    HotRefs hotRefs = hotRefs();
+    access(hotRefs, REF_PATH, THRESHOLD);
+
+    access(hotRefs, OTHER_REF_PATH, WINDOW - THRESHOLD);
+
+    assertThat(hotRefs.estimate(REF_PATH)).isEqualTo(THRESHOLD / 2);
+    assertThat(hotRefs.isHot(REF_PATH)).isFalse();
+  }
+
+  @Test
+  public void shouldHalveCountsOncePerElapsedWindow() {
+    HotRefs hotRefs = hotRefs();
+    access(hotRefs, REF_PATH, 2 * THRESHOLD);
+
+    access(hotRefs, OTHER_REF_PATH, 2 * WINDOW - 2 * THRESHOLD);
+
+    assertThat(hotRefs.estimate(REF_PATH)).isEqualTo(2 * THRESHOLD / 4);
+  }
+
+  @Test
+  public void shouldOnlyCacheHotRefs() {
+    HotRefs hotRefs = hotRefs();
+    access(hotRefs, REF_PATH, THRESHOLD);
+
+    hotRefs.put(REF_PATH, REF_VALUE);
+    hotRefs.put(OTHER_REF_PATH, REF_VALUE);
+
+    assertThat(hotRefs.get(REF_PATH)).isEqualTo(Optional.of(REF_VALUE));
+    assertThat(hotRefs.get(OTHER_REF_PATH)).isEqualTo(Optional.empty());
+
+    hotRefs.invalidate(REF_PATH);
+    assertThat(hotRefs.get(REF_PATH)).isEqualTo(Optional.empty());
+  }
+
+  @Test
+  public void shouldNotCacheHotRefsWhenRefValueCacheIsEnabled() {
+    when(configuration.isRefValueCacheEnabled()).thenReturn(true);
+    HotRefs hotRefs = hotRefs();
+    access(hotRefs, REF_PATH, THRESHOLD);
+
+    hotRefs.put(REF_PATH, REF_VALUE);
+
+    assertThat(hotRefs.isHot(REF_PATH)).isTrue();
+    assertThat(hotRefs.get(REF_PATH)).isEqualTo(Optional.empty());
+  }
+
+  @Test
+  public void shouldShareInFlightReadsOfHotRefs() throws Exception {
+    HotRefs hotRefs = hotRefs();
+    access(hotRefs, REF_PATH, THRESHOLD);
+    CompletableFuture<String> response = new CompletableFuture<>();
+
+    CompletableFuture<String> first = hotRefs.read(REF_PATH, true, reading(response));
+    CompletableFuture<String> second = hotRefs.read(REF_PATH, true, reading(response));
+    assertThat(reads.get()).isEqualTo(1);
+
+    response.complete(REF_VALUE);
+    assertThat(first.get()).isEqualTo(REF_VALUE);
+    assertThat(second.get()).isEqualTo(REF_VALUE);
+
+    hotRefs.read(REF_PATH, true, reading(response));
+    assertThat(reads.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldNotShareReadsSentBeforeWrites() {
+    HotRefs hotRefs = hotRefs();
+    access(hotRefs, REF_PATH, THRESHOLD);
+    CompletableFuture<String> staleResponse = new CompletableFuture<>();
+    CompletableFuture<String> first = hotRefs.read(REF_PATH, true, reading(staleResponse));
+
+    hotRefs.detachReads(REF_PATH);
+    CompletableFuture<String> response = new CompletableFuture<>();
+    CompletableFuture<String> second = hotRefs.read(REF_PATH, true, reading(response));
+    CompletableFuture<String> third = hotRefs.read(REF_PATH, true, reading(response));
+    staleResponse.complete("stale");
+    response.complete(REF_VALUE);
+
+    assertThat(reads.get()).isEqualTo(2);
+    assertThat(first.join()).isEqualTo("stale");
+    assertThat(second.join()).isEqualTo(REF_VALUE);
+    assertThat(third.join()).isEqualTo(REF_VALUE);
+  }
+
+  @Test
+  public void shouldNotShareReadsOfDifferentKinds() {
+    HotRefs hotRefs = hotRefs();
+    access(hotRefs, REF_PATH, THRESHOLD);
+    CompletableFuture<String> response = new CompletableFuture<>();
+
+    hotRefs.read(REF_PATH, true, reading(response));
+    hotRefs.read(REF_PATH, false, reading(response));
+
+    assertThat(reads.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldNotShareReadsOfColdRefs() {
+    HotRefs hotRefs = hotRefs();
+    CompletableFuture<String> response = new CompletableFuture<>();
+
+    hotRefs.read(REF_PATH, true, reading(response));
+    hotRefs.read(REF_PATH, true, reading(response));
+
+    assertThat(reads.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldNotDetectHotRefsWhenDisabled() {
+    when(configuration.isHotRefsEnabled()).thenReturn(false);
+    HotRefs hotRefs = hotRefs();
+
+    access(hotRefs, REF_PATH, THRESHOLD);
+    hotRefs.put(REF_PATH, REF_VALUE);
+
+    assertThat(hotRefs.isHot(REF_PATH)).isFalse();
+    assertThat(hotRefs.get(REF_PATH)).isEqualTo(Optional.empty());
+  }
+
+  private HotRefs hotRefs() {
+    return new HotRefs(configuration, new DynamoDBMetrics(new DisabledMetricMaker()));
+  }
+
+  private static void access(HotRefs hotRefs, String refPath, int times) {
+    for (int i = 0; i < times; i++) {
+      hotRefs.recordAccess(refPath);
+    }
+  }
+
+  private Supplier<CompletableFuture<String>> reading(CompletableFuture<String> response) {
+    return () -> {
+      reads.incrementAndGet();
+      return response;
+    };
+  }
+}
@@ -0,0 +1,162 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.metrics.DisabledMetricMaker;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import org.junit.Before;
+import org.junit.Test;
+
+public class KnownRefsTest {
+  private static final Project.NameKey PROJECT = Project.nameKey("project");
+  private static final String PARTITION = "/project";
+  private static final RefsDbKey STORED_REF = RefsDbKey.ref(PARTITION, "refs/heads/master");
+  private static final RefsDbKey NEW_REF = RefsDbKey.ref(PARTITION, "refs/changes/01/1/1");
+
+  private final DynamoDBRefDatabase refDb = mock(DynamoDBRefDatabase.class);
+  private Configuration configuration;
+  private CompletableFuture<Void> query;
+
+  @Before
+  public void setUp() {
+    configuration = mock(Configuration.class);
+    when(configuration.isKnownRefsEnabled()).thenReturn(true);
+    when(configuration.isChangeFeedEnabled()).thenReturn(true);
+    when(configuration.getRefsDbTableLayout()).thenReturn(RefsDbTableLayout.PARTITIONED);
+    when(configuration.getKnownRefsFalsePositiveRate()).thenReturn(1);
+    when(configuration.getKnownRefsProjects()).thenReturn(10);
+    query = new CompletableFuture<>();
+    when(refDb.readRefNamesAsync(eq(PROJECT), eq(PARTITION), any()))
+        .thenAnswer(
+            invocation -> {
+              Consumer<String> consumer = invocation.getArgument(2);
+              return query.thenRun(() -> consumer.accept(STORED_REF.sortKey()));
+            });
+  }
+
+  @Test
+  public void shouldNotTellAbsentRefsBeforeTheFilterIsBuilt() {
+    KnownRefs knownRefs = knownRefs();
+
+    assertThat(knownRefs.isAbsent(PROJECT, NEW_REF)).isFalse();
+    assertThat(knownRefs.isAbsent(PROJECT, NEW_REF)).isFalse();
+
+    verify(refDb, times(1)).readRefNamesAsync(eq(PROJECT), eq(PARTITION), any());
+  }
+
+  @Test
+  public void shouldTellAbsentRefsOnceTheFilterIsBuilt() {
+    KnownRefs knownRefs = builtKnownRefs();
+
+    assertThat(knownRefs.isAbsent(PROJECT, STORED_REF)).isFalse();
+    assertThat(knownRefs.isAbsent(PROJECT, NEW_REF)).isTrue();
+  }
+
+  @Test
+  public void shouldKnowRefsWrittenWhileTheFilterIsBuilt() {
+    KnownRefs knownRefs = knownRefs();
+    knownRefs.isAbsent(PROJECT, NEW_REF);
+
+    knownRefs.add(NEW_REF);
+    query.complete(null);
+
+    assertThat(knownRefs.isAbsent(PROJECT, NEW_REF)).isFalse();
+  }
+
+  @Test
+  public void shouldKnowRefsWrittenByThisNode() {
+    KnownRefs knownRefs = builtKnownRefs();
+
+    knownRefs.add(NEW_REF);
+
+    assertThat(knownRefs.isAbsent(PROJECT, NEW_REF)).isFalse();
+  }
+
+  @Test
+  public void shouldKnowRefsReportedByTheChangeFeed() {
+    KnownRefs knownRefs = builtKnownRefs();
+
+    knownRefs.onChange(RefsDbTableLayout.PARTITIONED.key(NEW_REF));
+
+    assertThat(knownRefs.isAbsent(PROJECT, NEW_REF)).isFalse();
+  }
+
+  @Test
+  public void shouldDropFiltersWhenTheChangeFeedStartsOver() {
+    KnownRefs knownRefs = builtKnownRefs();
+
+    knownRefs.onReset();
+
+    assertThat(knownRefs.isAbsent(PROJECT, NEW_REF)).isFalse();
+    verify(refDb, times(2)).readRefNamesAsync(eq(PROJECT), eq(PARTITION), any());
+  }
+
+  @Test
+  public void shouldBuildTheFilterAgainWhenTheQueryFails() {
+    KnownRefs knownRefs = knownRefs();
+    knownRefs.isAbsent(PROJECT, NEW_REF);
+
+    query.completeExceptionally(new IllegalStateException("test"));
+    query = new CompletableFuture<>();
+    knownRefs.isAbsent(PROJECT, NEW_REF);
+
+    verify(refDb, times(2)).readRefNamesAsync(eq(PROJECT), eq(PARTITION), any());
+  }
+
+  @Test
+  public void shouldBuildTheFilterAgainWhenFull() {
+    KnownRefs knownRefs = builtKnownRefs();
+
+    for (int i = 0; i <= KnownRefs.MIN_EXPECTED_REFS; i++) {
+      knownRefs.add(RefsDbKey.ref(PARTITION, "refs/changes/" + i));
+    }
+
+    assertThat(knownRefs.isAbsent(PROJECT, NEW_REF)).isFalse();
+    verify(refDb, times(2)).readRefNamesAsync(eq(PROJECT), eq(PARTITION), any());
+  }
+
+  @Test
+  public void shouldBeDisabledWithoutChangeFeed() {
+    when(configuration.isChangeFeedEnabled()).thenReturn(false);
+    KnownRefs knownRefs = knownRefs();
+
+    assertThat(knownRefs.isAbsent(PROJECT, NEW_REF)).isFalse();
+
+    verify(refDb, never()).readRefNamesAsync(any(), any(), any());
+  }
+
+  private KnownRefs builtKnownRefs() {
+    KnownRefs knownRefs = knownRefs();
+    knownRefs.isAbsent(PROJECT, NEW_REF);
+    query.complete(null);
+    return knownRefs;
+  }
+
+  private KnownRefs knownRefs() {
+    return new KnownRefs(
+        configuration, () -> refDb, new DynamoDBMetrics(new DisabledMetricMaker()));
+  }
+}
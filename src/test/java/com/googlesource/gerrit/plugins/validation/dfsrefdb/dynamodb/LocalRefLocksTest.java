@@ -0,0 +1,75 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.Test;
+
+public class LocalRefLocksTest {
+  private static final String REF_PATH = "/project/refs/heads/master";
+  private static final Duration TIMEOUT = Duration.ofMillis(50);
+
+  private final LocalRefLocks localRefLocks = new LocalRefLocks();
+
+  @Test
+  public void shouldNotGrantTheSameRefTwice() throws Exception {
+    try (LocalRefLocks.LocalLock lock = localRefLocks.lock(REF_PATH, TIMEOUT)) {
+      assertThrows(TimeoutException.class, () -> localRefLocks.lock(REF_PATH, TIMEOUT));
+    }
+  }
+
+  @Test
+  public void shouldGrantDifferentRefsConcurrently() throws Exception {
+    try (LocalRefLocks.LocalLock lock = localRefLocks.lock(REF_PATH, TIMEOUT);
+        LocalRefLocks.LocalLock otherLock = localRefLocks.lock(REF_PATH + "-other", TIMEOUT)) {
+      assertThat(otherLock).isNotNull();
+    }
+  }
+
+  @Test
+  public void shouldGrantRefToWaitingThreadOnceReleased() throws Exception {
+    LocalRefLocks.LocalLock lock = localRefLocks.lock(REF_PATH, TIMEOUT);
+    CompletableFuture<LocalRefLocks.LocalLock> waiting =
+        CompletableFuture.supplyAsync(
+            () -> {
+              try {
+                return localRefLocks.lock(REF_PATH, Duration.ofSeconds(10));
+              } catch (Exception e) {
+                throw new IllegalStateException(e);
+              }
+            });
+
+    lock.close();
+
+    waiting.get(10, TimeUnit.SECONDS).close();
+  }
+
+  @Test
+  public void shouldIgnoreRepeatedRelease() throws Exception {
+    LocalRefLocks.LocalLock lock = localRefLocks.lock(REF_PATH, TIMEOUT);
+    lock.close();
+    lock.close();
+
+    try (LocalRefLocks.LocalLock relocked = localRefLocks.lock(REF_PATH, TIMEOUT)) {
+      assertThrows(TimeoutException.class, () -> localRefLocks.lock(REF_PATH, TIMEOUT));
+    }
+  }
+}
@@ -0,0 +1,42 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+
+public class LocalRefWritesTest {
+  private static final String REF_PATH = "/project/refs/heads/master";
+
+  private final LocalRefWrites localRefWrites = new LocalRefWrites();
+
+  @Test
+  public void shouldReportRefUnchangedWithoutWrites() {
+    long stamp = localRefWrites.stamp(REF_PATH);
+
+    assertThat(localRefWrites.isUnchangedSince(REF_PATH, stamp)).isTrue();
+  }
+
+  @Test
+  public void shouldReportRefChangedAfterWrite() {
+    long stamp = localRefWrites.stamp(REF_PATH);
+
+    localRefWrites.record(REF_PATH);
+
+    assertThat(localRefWrites.isUnchangedSince(REF_PATH, stamp)).isFalse();
+    assertThat(localRefWrites.isUnchangedSince(REF_PATH, localRefWrites.stamp(REF_PATH))).isTrue();
+  }
+}
@@ -0,0 +1,148 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.util.stream.Collectors.toList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.metrics.DisabledMetricMaker;
+import com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.CapacityLimiter.Capacity;
+import com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.ProjectUsageTracker.ProjectUsage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ProjectUsageTrackerTest {
+  private static final Project.NameKey PROJECT = Project.nameKey("project");
+  private static final Project.NameKey OTHER_PROJECT = Project.nameKey("other-project");
+  private static final Project.NameKey NEW_PROJECT = Project.nameKey("new-project");
+  private static final long LATENCY_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+  private Configuration configuration;
+
+  @Before
+  public void setUp() {
+    configuration = mock(Configuration.class);
+    when(configuration.isProjectUsageEnabled()).thenReturn(true);
+    when(configuration.getProjectUsageProjects()).thenReturn(2);
+  }
+
+  @Test
+  public void shouldAccountForUsageByProject() {
+    ProjectUsageTracker tracker = tracker();
+
+    tracker.record(PROJECT, Capacity.READ, 2, LATENCY_NANOS);
+    tracker.record(PROJECT, Capacity.WRITE, 1, LATENCY_NANOS);
+    tracker.record(OTHER_PROJECT, Capacity.READ, 0.5, LATENCY_NANOS);
+
+    List<ProjectUsage> usages = tracker.top(10);
+    assertThat(projects(usages)).containsExactly(PROJECT.get(), OTHER_PROJECT.get()).inOrder();
+    ProjectUsage usage = usages.get(0);
+    assertThat(usage.readUnits).isEqualTo(2);
+    assertThat(usage.writeUnits).isEqualTo(1);
+    assertThat(usage.overestimatedUnits).isEqualTo(0);
+    assertThat(usage.requests).isEqualTo(2);
+    assertThat(usage.latencyMillis).isEqualTo(10);
+  }
+
+  @Test
+  public void shouldReplaceTheLeastConsumingProjectOnceFull() {
+    ProjectUsageTracker tracker = tracker();
+    tracker.record(PROJECT, Capacity.READ, 5, LATENCY_NANOS);
+    tracker.record(OTHER_PROJECT, Capacity.WRITE, 1, LATENCY_NANOS);
+
+    tracker.record(NEW_PROJECT, Capacity.READ, 2, LATENCY_NANOS);
+
+    List<ProjectUsage> usages = tracker.top(10);
+    assertThat(projects(usages)).containsExactly(PROJECT.get(), NEW_PROJECT.get()).inOrder();
+    ProjectUsage usage = usages.get(1);
+    assertThat(usage.units()).isEqualTo(3);
+    assertThat(usage.overestimatedUnits).isEqualTo(1);
+    assertThat(usage.requests).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldListTheMostConsumingProjectsFirst() {
+    ProjectUsageTracker tracker = tracker();
+    tracker.record(PROJECT, Capacity.READ, 1, LATENCY_NANOS);
+    tracker.record(OTHER_PROJECT, Capacity.READ, 2, LATENCY_NANOS);
+
+    assertThat(projects(tracker.top(1))).containsExactly(OTHER_PROJECT.get());
+  }
+
+  @Test
+  public void shouldAccountForConcurrentRequests() throws Exception {
+    ProjectUsageTracker tracker = tracker();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> callers = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        callers.add(
+            executor.submit(
+                () -> {
+                  for (int j = 0; j < 1000; j++) {
+                    tracker.record(
+                        j % 2 == 0 ? PROJECT : OTHER_PROJECT, Capacity.READ, 1, LATENCY_NANOS);
+                  }
+                }));
+      }
+      for (Future<?> caller : callers) {
+        caller.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    List<ProjectUsage> usages = tracker.top(10);
+    assertThat(projects(usages)).containsExactly(PROJECT.get(), OTHER_PROJECT.get());
+    assertThat(usages.get(0).requests).isEqualTo(2000);
+    assertThat(usages.get(1).units()).isEqualTo(2000);
+  }
+
+  @Test
+  public void shouldNotAccountForRequestsWithoutProject() {
+    ProjectUsageTracker tracker = tracker();
+
+    tracker.record(null, Capacity.READ, 1, LATENCY_NANOS);
+
+    assertThat(tracker.top(10)).isEmpty();
+  }
+
+  @Test
+  public void shouldNotAccountForUsageWhenDisabled() {
+    when(configuration.isProjectUsageEnabled()).thenReturn(false);
+    ProjectUsageTracker tracker = tracker();
+
+    tracker.record(PROJECT, Capacity.READ, 1, LATENCY_NANOS);
+
+    assertThat(tracker.top(10)).isEmpty();
+  }
+
+  private ProjectUsageTracker tracker() {
+    return new ProjectUsageTracker(configuration, new DisabledMetricMaker());
+  }
+
+  private static List<String> projects(List<ProjectUsage> usages) {
+    return usages.stream().map(usage -> usage.project).collect(toList());
+  }
+}
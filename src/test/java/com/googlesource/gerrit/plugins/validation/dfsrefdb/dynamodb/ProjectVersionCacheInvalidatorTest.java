@@ -0,0 +1,195 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.server.git.WorkQueue;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ScheduledExecutorService;
+import org.junit.Before;
+import org.junit.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+public class ProjectVersionCacheInvalidatorTest {
+  private static final Project.NameKey PROJECT = Project.nameKey("some project");
+  private static final Project.NameKey OTHER_PROJECT = Project.nameKey("other");
+
+  private final LocalChangeFeed changeFeed = new LocalChangeFeed();
+  private final ProjectVersionCacheWarmer projectVersionCacheWarmer =
+      mock(ProjectVersionCacheWarmer.class);
+  private final ProjectVersionCacheValidator projectVersionCacheValidator =
+      mock(ProjectVersionCacheValidator.class);
+  private final DynamoDBRefDatabase.ProjectVersionCacheLoader projectVersionCacheLoader =
+      mock(DynamoDBRefDatabase.ProjectVersionCacheLoader.class);
+  private final Configuration configuration = mock(Configuration.class);
+  private WorkQueue workQueue;
+  private LoadingCache<String, Optional<Integer>> projectVersionCache;
+  private ProjectVersionCacheInvalidator invalidator;
+
+  @Before
+  public void setUp() {
+    when(configuration.getRefsDbTableLayout()).thenReturn(RefsDbTableLayout.FLAT);
+    when(configuration.getChangeFeedPollInterval()).thenReturn(Duration.ofMillis(500));
+    workQueue = mock(WorkQueue.class);
+    when(workQueue.createQueue(anyInt(), any())).thenReturn(mock(ScheduledExecutorService.class));
+    projectVersionCache =
+        CacheBuilder.newBuilder().build(CacheLoader.from(project -> Optional.of(project.length())));
+    invalidator = newInvalidator();
+  }
+
+  @Test
+  public void shouldWarmUpVersionsOnceFeedStarted() {
+    when(configuration.isProjectVersionWarmUpEnabled()).thenReturn(true);
+    doAnswer(
+            invocation -> {
+              projectVersionCache.getUnchecked(PROJECT.get());
+              return null;
+            })
+        .when(projectVersionCacheWarmer)
+        .warmUp();
+
+    newInvalidator().start();
+    invalidator.poll();
+
+    assertThat(projectVersionCache.asMap()).containsKey(PROJECT.get());
+  }
+
+  @Test
+  public void shouldValidateRestoredVersionsWhenFeedFirstStarts() {
+    projectVersionCache.getUnchecked(PROJECT.get());
+
+    invalidator.poll();
+
+    verify(projectVersionCacheValidator).validate();
+    assertThat(projectVersionCache.asMap()).containsKey(PROJECT.get());
+  }
+
+  @Test
+  public void shouldEvictAllVersionsWhenFeedFirstStartsBeforeWarmUp() {
+    when(configuration.isProjectVersionWarmUpEnabled()).thenReturn(true);
+    invalidator = newInvalidator();
+    projectVersionCache.getUnchecked(PROJECT.get());
+
+    invalidator.poll();
+
+    verify(projectVersionCacheValidator, never()).validate();
+    assertThat(projectVersionCache.asMap()).isEmpty();
+  }
+
+  @Test
+  public void shouldEvictAllVersionsWhenFeedStartsOver() {
+    invalidator.poll();
+    changeFeed.failing = true;
+    invalidator.poll();
+    changeFeed.failing = false;
+    projectVersionCache.getUnchecked(PROJECT.get());
+
+    invalidator.poll();
+
+    verify(projectVersionCacheValidator).validate();
+    assertThat(projectVersionCache.asMap()).isEmpty();
+  }
+
+  @Test
+  public void shouldEvictOnlyTheVersionOfTheChangedProject() {
+    invalidator.poll();
+    projectVersionCache.getUnchecked(PROJECT.get());
+    projectVersionCache.getUnchecked(OTHER_PROJECT.get());
+
+    changeFeed.changed(DynamoDBRefDatabase.currentVersionKey(PROJECT));
+    changeFeed.changed(RefsDbKey.ref("/" + OTHER_PROJECT, "refs/heads/master"));
+    invalidator.poll();
+
+    assertThat(projectVersionCache.asMap()).containsKey(OTHER_PROJECT.get());
+    assertThat(projectVersionCache.asMap()).doesNotContainKey(PROJECT.get());
+  }
+
+  @Test
+  public void shouldNotEvictVersionsOnChangesOfRefsOfRecreatedProjects() {
+    invalidator.poll();
+    projectVersionCache.getUnchecked(PROJECT.get());
+
+    changeFeed.changed(RefsDbKey.ref("|1/" + PROJECT, "refs/heads/master"));
+    invalidator.poll();
+
+    verify(projectVersionCacheLoader, never()).invalidate(any());
+    assertThat(projectVersionCache.asMap()).containsKey(PROJECT.get());
+  }
+
+  @Test
+  public void shouldEvictAllVersionsWhenFeedFails() {
+    invalidator.poll();
+    projectVersionCache.getUnchecked(PROJECT.get());
+
+    changeFeed.failing = true;
+    invalidator.poll();
+
+    assertThat(projectVersionCache.asMap()).isEmpty();
+  }
+
+  private ProjectVersionCacheInvalidator newInvalidator() {
+    return new ProjectVersionCacheInvalidator(
+        workQueue,
+        changeFeed,
+        projectVersionCache,
+        projectVersionCacheLoader,
+        projectVersionCacheWarmer,
+        projectVersionCacheValidator,
+        mock(KnownRefs.class),
+        configuration);
+  }
+
+  /** Stand-in for the DynamoDB stream, fed by the tests. */
+  private static class LocalChangeFeed implements RefsDbChangeFeed {
+    private final Queue<Map<String, AttributeValue>> changes = new ArrayDeque<>();
+    private boolean started;
+    private boolean failing;
+
+    void changed(RefsDbKey key) {
+      changes.add(RefsDbTableLayout.FLAT.key(key));
+    }
+
+    @Override
+    public void poll(Listener listener) {
+      if (failing) {
+        started = false;
+        throw new IllegalStateException("Stream not available");
+      }
+      if (!started) {
+        started = true;
+        listener.onReset();
+      }
+      while (!changes.isEmpty()) {
+        listener.onChange(changes.remove());
+      }
+    }
+  }
+}
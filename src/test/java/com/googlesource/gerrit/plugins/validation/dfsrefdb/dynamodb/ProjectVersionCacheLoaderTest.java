@@ -0,0 +1,204 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.DynamoDBRefDatabase.REF_DB_VALUE_KEY;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.LoadingCache;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Before;
+import org.junit.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+
+public class ProjectVersionCacheLoaderTest {
+  private static final String PROJECT = "project";
+  private static final Duration REFRESH_AFTER_WRITE = Duration.ofSeconds(30);
+
+  private final AtomicLong nanos = new AtomicLong();
+  private DynamoDBRefDatabase refDb;
+  private DynamoDBMetrics metrics;
+  private Configuration configuration;
+  private DynamoDBRefDatabase.ProjectVersionCacheLoader loader;
+  private LoadingCache<String, Optional<Integer>> projectVersionCache;
+
+  @Before
+  public void setUp() {
+    refDb = mock(DynamoDBRefDatabase.class);
+    when(refDb.exists(any())).thenCallRealMethod();
+    metrics = mock(DynamoDBMetrics.class);
+    configuration = mock(Configuration.class);
+    when(configuration.isChangeFeedEnabled()).thenReturn(true);
+    loader = new DynamoDBRefDatabase.ProjectVersionCacheLoader(() -> refDb, metrics, configuration);
+    projectVersionCache =
+        CacheBuilder.newBuilder()
+            .ticker(
+                new Ticker() {
+                  @Override
+                  public long read() {
+                    return nanos.get();
+                  }
+                })
+            .refreshAfterWrite(REFRESH_AFTER_WRITE)
+            .build(loader);
+  }
+
+  @Test
+  public void shouldServeCachedVersionWhileRefreshing() {
+    respondWith(CompletableFuture.completedFuture(versionItem(1)));
+    assertThat(projectVersionCache.getUnchecked(PROJECT)).hasValue(1);
+
+    CompletableFuture<GetItemResponse> refresh = respondWith(new CompletableFuture<>());
+    nanos.addAndGet(REFRESH_AFTER_WRITE.plusSeconds(1).toNanos());
+    assertThat(projectVersionCache.getUnchecked(PROJECT)).hasValue(1);
+
+    refresh.complete(versionItem(2));
+    assertThat(projectVersionCache.getUnchecked(PROJECT)).hasValue(2);
+    verify(metrics).recordProjectVersionCacheRefresh(true);
+  }
+
+  @Test
+  public void shouldKeepCachedVersionWhenRefreshFails() {
+    respondWith(CompletableFuture.completedFuture(versionItem(1)));
+    projectVersionCache.getUnchecked(PROJECT);
+
+    respondWith(CompletableFuture.failedFuture(new IllegalStateException("DynamoDB unavailable")));
+    nanos.addAndGet(REFRESH_AFTER_WRITE.plusSeconds(1).toNanos());
+
+    assertThat(projectVersionCache.getUnchecked(PROJECT)).hasValue(1);
+    verify(metrics).recordProjectVersionCacheRefresh(false);
+  }
+
+  @Test
+  public void shouldReadVersionAgainWhenEvictedWhileLoading() throws Exception {
+    CompletableFuture<GetItemResponse> staleRead = respondWith(new CompletableFuture<>());
+    CompletableFuture<Optional<Integer>> loaded =
+        CompletableFuture.supplyAsync(() -> projectVersionCache.getUnchecked(PROJECT));
+    verify(refDb, timeout(10_000)).getItemFromDynamoDBAsync(any(), any(), eq(true), any());
+
+    respondWith(CompletableFuture.completedFuture(versionItem(2)));
+    loader.invalidate(PROJECT);
+    projectVersionCache.invalidate(PROJECT);
+    staleRead.complete(versionItem(1));
+
+    assertThat(loaded.get(10, TimeUnit.SECONDS)).hasValue(2);
+    assertThat(projectVersionCache.getUnchecked(PROJECT)).hasValue(2);
+  }
+
+  @Test
+  public void shouldStopReadingVersionAgainAfterMaxAttempts() {
+    when(refDb.getItemFromDynamoDBAsync(any(), any(), any(), any()))
+        .thenAnswer(
+            invocation -> {
+              loader.invalidate(PROJECT);
+              return CompletableFuture.completedFuture(versionItem(1));
+            });
+
+    assertThat(projectVersionCache.getUnchecked(PROJECT)).hasValue(1);
+    verify(refDb, times(3)).getItemFromDynamoDBAsync(any(), any(), eq(true), any());
+  }
+
+  @Test
+  public void shouldLoadMissingVersionAsEmpty() {
+    respondWith(CompletableFuture.completedFuture(GetItemResponse.builder().build()));
+
+    assertThat(projectVersionCache.getUnchecked(PROJECT)).isEmpty();
+  }
+
+  @Test
+  public void shouldCacheVersionLoadedAsynchronously() throws Exception {
+    CompletableFuture<GetItemResponse> read = respondWith(new CompletableFuture<>());
+    CompletableFuture<Optional<Integer>> loaded = loader.loadAsync(PROJECT, projectVersionCache);
+    assertThat(loaded.isDone()).isFalse();
+
+    read.complete(versionItem(1));
+
+    assertThat(loaded.get(10, TimeUnit.SECONDS)).hasValue(1);
+    assertThat(projectVersionCache.getIfPresent(PROJECT)).hasValue(1);
+  }
+
+  @Test
+  public void shouldShareConcurrentAsynchronousLoads() throws Exception {
+    CompletableFuture<GetItemResponse> read = respondWith(new CompletableFuture<>());
+    CompletableFuture<Optional<Integer>> first = loader.loadAsync(PROJECT, projectVersionCache);
+    CompletableFuture<Optional<Integer>> second = loader.loadAsync(PROJECT, projectVersionCache);
+
+    read.complete(versionItem(1));
+
+    assertThat(second).isSameInstanceAs(first);
+    assertThat(first.get(10, TimeUnit.SECONDS)).hasValue(1);
+    verify(refDb).getItemFromDynamoDBAsync(any(), any(), eq(true), any());
+  }
+
+  @Test
+  public void shouldNotCacheVersionLoadedAsynchronouslyWhenEvictedWhileLoading() throws Exception {
+    CompletableFuture<GetItemResponse> read = respondWith(new CompletableFuture<>());
+    CompletableFuture<Optional<Integer>> loaded = loader.loadAsync(PROJECT, projectVersionCache);
+
+    respondWith(CompletableFuture.completedFuture(versionItem(2)));
+    loader.invalidate(PROJECT);
+    read.complete(versionItem(1));
+
+    assertThat(loaded.get(10, TimeUnit.SECONDS)).hasValue(2);
+    assertThat(projectVersionCache.getIfPresent(PROJECT)).isNull();
+  }
+
+  @Test
+  public void shouldReadVersionsConsistentlyWithChangeFeed() throws Exception {
+    respondWith(CompletableFuture.completedFuture(versionItem(1)));
+
+    loader.load(PROJECT);
+
+    verify(refDb).getItemFromDynamoDBAsync(any(), any(), eq(true), any());
+  }
+
+  @Test
+  public void shouldReadVersionsEventuallyConsistentlyWithoutChangeFeed() throws Exception {
+    when(configuration.isChangeFeedEnabled()).thenReturn(false);
+    loader = new DynamoDBRefDatabase.ProjectVersionCacheLoader(() -> refDb, metrics, configuration);
+    respondWith(CompletableFuture.completedFuture(versionItem(1)));
+
+    loader.load(PROJECT);
+
+    verify(refDb).getItemFromDynamoDBAsync(any(), any(), eq(false), any());
+  }
+
+  private CompletableFuture<GetItemResponse> respondWith(
+      CompletableFuture<GetItemResponse> response) {
+    when(refDb.getItemFromDynamoDBAsync(any(), any(), any(), any())).thenReturn(response);
+    return response;
+  }
+
+  private static GetItemResponse versionItem(int version) {
+    return GetItemResponse.builder()
+        .item(Map.of(REF_DB_VALUE_KEY, AttributeValue.fromS(Integer.toString(version))))
+        .build();
+  }
+}
@@ -0,0 +1,95 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.server.git.WorkQueue;
+import com.google.gerrit.server.project.ProjectCache;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ProjectVersionCacheValidatorTest {
+  private static final String UP_TO_DATE_PROJECT = "up-to-date";
+  private static final String STALE_PROJECT = "stale";
+  private static final String NOT_CACHED_PROJECT = "not-cached";
+
+  private final DynamoDBRefDatabase refDb = mock(DynamoDBRefDatabase.class);
+  private final Map<String, Optional<Integer>> storedVersions = new HashMap<>();
+  private final LoadingCache<String, Optional<Integer>> projectVersionCache =
+      CacheBuilder.newBuilder().build(CacheLoader.from(project -> Optional.of(-1)));
+  private ProjectVersionCacheValidator validator;
+
+  @Before
+  public void setUp() {
+    ProjectCache projectCache = mock(ProjectCache.class);
+    when(projectCache.all())
+        .thenReturn(
+            ImmutableSortedSet.of(
+                Project.nameKey(UP_TO_DATE_PROJECT),
+                Project.nameKey(STALE_PROJECT),
+                Project.nameKey(NOT_CACHED_PROJECT)));
+    when(refDb.readCurrentVersions(any()))
+        .thenAnswer(
+            invocation -> {
+              Map<String, Optional<Integer>> versions = new HashMap<>();
+              for (String project : invocation.<Collection<String>>getArgument(0)) {
+                versions.put(project, storedVersions.getOrDefault(project, Optional.empty()));
+              }
+              return versions;
+            });
+    validator =
+        new ProjectVersionCacheValidator(
+            mock(WorkQueue.class), projectCache, refDb, projectVersionCache);
+  }
+
+  @Test
+  public void shouldUpdateStaleVersionsOnly() {
+    projectVersionCache.put(UP_TO_DATE_PROJECT, Optional.empty());
+    projectVersionCache.put(STALE_PROJECT, Optional.of(1));
+    storedVersions.put(STALE_PROJECT, Optional.of(2));
+    storedVersions.put(NOT_CACHED_PROJECT, Optional.of(3));
+
+    validator.validate();
+
+    assertThat(projectVersionCache.asMap())
+        .containsExactly(UP_TO_DATE_PROJECT, Optional.empty(), STALE_PROJECT, Optional.of(2));
+  }
+
+  @Test
+  public void shouldEvictAllVersionsWhenValidationFails() {
+    projectVersionCache.put(STALE_PROJECT, Optional.of(1));
+    doThrow(new IllegalStateException("DynamoDB unavailable"))
+        .when(refDb)
+        .readCurrentVersions(any());
+
+    validator.validate();
+
+    assertThat(projectVersionCache.asMap()).isEmpty();
+  }
+}
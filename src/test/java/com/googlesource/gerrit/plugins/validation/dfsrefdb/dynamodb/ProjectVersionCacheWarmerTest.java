@@ -0,0 +1,157 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.DynamoDBRefDatabase.REF_DB_PRIMARY_KEY;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.DynamoDBRefDatabase.REF_DB_VALUE_KEY;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.server.git.WorkQueue;
+import com.google.gerrit.server.project.ProjectCache;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import org.junit.Before;
+import org.junit.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+
+public class ProjectVersionCacheWarmerTest {
+  private static final Project.NameKey VERSIONED_PROJECT = Project.nameKey("versioned project");
+  private static final Project.NameKey UNVERSIONED_PROJECT = Project.nameKey("unversioned");
+
+  private final DynamoDbClient dynamoDbClient = mock(DynamoDbClient.class);
+  private final Configuration configuration = mock(Configuration.class);
+  private final LoadingCache<String, Optional<Integer>> projectVersionCache =
+      CacheBuilder.newBuilder().build(CacheLoader.from(project -> Optional.of(-1)));
+  private ProjectVersionCacheWarmer warmer;
+
+  @Before
+  public void setUp() {
+    when(configuration.getRefsDbTableName()).thenReturn("refsDb");
+    when(configuration.getRefsDbTableLayout()).thenReturn(RefsDbTableLayout.FLAT);
+    when(configuration.getProjectVersionWarmUpSegments()).thenReturn(2);
+    when(configuration.getProjectVersionWarmUpReadCapacity()).thenReturn(1000);
+    when(configuration.getProjectVersionWarmUpTimeout()).thenReturn(Duration.ofSeconds(10));
+    WorkQueue workQueue = mock(WorkQueue.class);
+    when(workQueue.createQueue(anyInt(), any()))
+        .thenAnswer(invocation -> Executors.newScheduledThreadPool(invocation.getArgument(0)));
+    ProjectCache projectCache = mock(ProjectCache.class);
+    when(projectCache.all())
+        .thenReturn(ImmutableSortedSet.of(VERSIONED_PROJECT, UNVERSIONED_PROJECT));
+    warmer =
+        new ProjectVersionCacheWarmer(
+            workQueue,
+            dynamoDbClient,
+            new CapacityLimiter(configuration),
+            projectCache,
+            projectVersionCache,
+            configuration);
+  }
+
+  @Test
+  public void shouldCacheVersionsOfEverySegmentAndUnversionedProjects() {
+    Map<String, AttributeValue> lastKeyOfFirstPage = item("|other", "1");
+    when(dynamoDbClient.scan(any(ScanRequest.class)))
+        .thenAnswer(
+            invocation -> {
+              ScanRequest request = invocation.getArgument(0);
+              if (request.segment() == 1) {
+                return page(item("|" + VERSIONED_PROJECT, "2"));
+              }
+              return request.hasExclusiveStartKey()
+                  ? page(item("|removed", "3"))
+                  : page(item("|other", "1"))
+                      .toBuilder()
+                      .lastEvaluatedKey(lastKeyOfFirstPage)
+                      .build();
+            });
+
+    warmer.warmUp();
+
+    assertThat(projectVersionCache.asMap())
+        .containsExactly(
+            "other",
+            Optional.of(1),
+            "removed",
+            Optional.of(3),
+            VERSIONED_PROJECT.get(),
+            Optional.of(2),
+            UNVERSIONED_PROJECT.get(),
+            Optional.empty());
+  }
+
+  @Test
+  public void shouldIgnoreRefsOfRemovedProjects() {
+    when(dynamoDbClient.scan(any(ScanRequest.class)))
+        .thenReturn(page(item("|1/project/refs/heads/master", "0".repeat(40))));
+
+    warmer.warmUp();
+
+    assertThat(projectVersionCache.asMap()).doesNotContainKey("1/project/refs/heads/master");
+  }
+
+  @Test
+  public void shouldIgnoreRefsOfRemovedProjectsWithIntegerValues() {
+    when(dynamoDbClient.scan(any(ScanRequest.class)))
+        .thenReturn(page(item("|1/project/refs/multi-site/version/value", "1760000000")));
+
+    warmer.warmUp();
+
+    assertThat(projectVersionCache.asMap())
+        .doesNotContainKey("1/project/refs/multi-site/version/value");
+  }
+
+  @Test
+  public void shouldNotCacheUnversionedProjectsWhenScanFails() {
+    when(dynamoDbClient.scan(any(ScanRequest.class)))
+        .thenAnswer(
+            invocation -> {
+              if (invocation.<ScanRequest>getArgument(0).segment() == 1) {
+                throw new IllegalStateException("DynamoDB unavailable");
+              }
+              return page(item("|" + VERSIONED_PROJECT, "2"));
+            });
+
+    warmer.warmUp();
+
+    assertThat(projectVersionCache.asMap())
+        .containsExactly(VERSIONED_PROJECT.get(), Optional.of(2));
+  }
+
+  private static ScanResponse page(Map<String, AttributeValue> item) {
+    return ScanResponse.builder().items(item).build();
+  }
+
+  private static Map<String, AttributeValue> item(String refPath, String refValue) {
+    return Map.of(
+        REF_DB_PRIMARY_KEY,
+        AttributeValue.fromS(refPath),
+        REF_DB_VALUE_KEY,
+        AttributeValue.fromS(refValue));
+  }
+}
@@ -0,0 +1,43 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.ProjectVersionCacheModule.ProjectVersionSerializer;
+import java.util.Optional;
+import org.junit.Test;
+
+public class ProjectVersionSerializerTest {
+
+  @Test
+  public void shouldRoundTripVersions() {
+    for (int version : new int[] {0, 1, 127, 128, Integer.MAX_VALUE}) {
+      Optional<Integer> projectVersion = Optional.of(version);
+      assertThat(
+              ProjectVersionSerializer.INSTANCE.deserialize(
+                  ProjectVersionSerializer.INSTANCE.serialize(projectVersion)))
+          .isEqualTo(projectVersion);
+    }
+  }
+
+  @Test
+  public void shouldRoundTripUnversionedProjects() {
+    assertThat(
+            ProjectVersionSerializer.INSTANCE.deserialize(
+                ProjectVersionSerializer.INSTANCE.serialize(Optional.empty())))
+        .isEmpty();
+  }
+}
@@ -0,0 +1,55 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+public class RefValueFormatTest {
+  private static final ObjectId OBJECT_ID =
+      ObjectId.fromString("533d3ccf8a650fb26380faa732921a2c74924d5c");
+
+  @Test
+  public void shouldEncodeStringAsHexadecimalName() {
+    assertThat(RefValueFormat.STRING.encode(OBJECT_ID))
+        .isEqualTo(AttributeValue.fromS(OBJECT_ID.name()));
+  }
+
+  @Test
+  public void shouldEncodeBinaryAsRawBytes() {
+    AttributeValue value = RefValueFormat.BINARY.encode(OBJECT_ID);
+
+    assertThat(value.s()).isNull();
+    assertThat(value.b().asByteArray()).hasLength(20);
+  }
+
+  @Test
+  public void shouldDecodeBothFormats() {
+    for (RefValueFormat format : RefValueFormat.values()) {
+      AttributeValue value = format.encode(OBJECT_ID);
+
+      assertThat(RefValueFormat.decode(value)).isEqualTo(OBJECT_ID.name());
+      assertThat(RefValueFormat.decodeObjectId(value)).isEqualTo(OBJECT_ID);
+    }
+  }
+
+  @Test
+  public void shouldDecodeNonObjectIdStrings() {
+    assertThat(RefValueFormat.decode(AttributeValue.fromS("1"))).isEqualTo("1");
+  }
+}
@@ -0,0 +1,234 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.DynamoDBRefDatabase.REF_DB_PRIMARY_KEY;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.DynamoDBRefDatabase.REF_DB_VALUE_KEY;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.gerrit.metrics.DisabledMetricMaker;
+import com.google.gerrit.server.git.WorkQueue;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTimeToLiveRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTimeToLiveResponse;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.model.TimeToLiveDescription;
+import software.amazon.awssdk.services.dynamodb.model.TimeToLiveStatus;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+public class RefsDbSweeperTest {
+  private static final String TABLE = "refsDb";
+  private static final String OBJECT_ID = "0123456789012345678901234567890123456789";
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final DynamoDbClient dynamoDbClient = mock(DynamoDbClient.class);
+  private final DynamoDBRefDatabase refDb = mock(DynamoDBRefDatabase.class);
+  private final Configuration configuration = mock(Configuration.class);
+  private final Map<String, Optional<Integer>> currentVersions = new HashMap<>();
+  private final List<Map<String, AttributeValue>> table = new ArrayList<>();
+  private final List<WriteRequest> writes = new ArrayList<>();
+
+  @Before
+  public void setUp() {
+    when(configuration.getRefsDbTableName()).thenReturn(TABLE);
+    when(configuration.getRefsDbTableLayout()).thenReturn(RefsDbTableLayout.FLAT);
+    when(configuration.getSweeperInterval()).thenReturn(Duration.ofDays(1));
+    when(configuration.getSweeperSegments()).thenReturn(1);
+    when(configuration.getSweeperCapacity()).thenReturn(1000);
+    when(configuration.getSweeperExpiry()).thenReturn(Optional.empty());
+    when(refDb.readCurrentVersions(any()))
+        .thenAnswer(
+            invocation -> {
+              Map<String, Optional<Integer>> versions = new HashMap<>();
+              for (String project : invocation.<Collection<String>>getArgument(0)) {
+                versions.put(project, currentVersions.getOrDefault(project, Optional.empty()));
+              }
+              return versions;
+            });
+    // One item per page, so that the sweep can be interrupted between any two items.
+    when(dynamoDbClient.scan(any(ScanRequest.class)))
+        .thenAnswer(
+            invocation -> {
+              ScanRequest request = invocation.getArgument(0);
+              int next =
+                  request.hasExclusiveStartKey()
+                      ? indexOf(request.exclusiveStartKey().get(REF_DB_PRIMARY_KEY).s()) + 1
+                      : 0;
+              ScanResponse.Builder page = ScanResponse.builder().items(table.get(next));
+              if (next + 1 < table.size()) {
+                page.lastEvaluatedKey(
+                    Map.of(REF_DB_PRIMARY_KEY, table.get(next).get(REF_DB_PRIMARY_KEY)));
+              }
+              return page.build();
+            });
+    when(dynamoDbClient.batchWriteItem(any(BatchWriteItemRequest.class)))
+        .thenAnswer(
+            invocation -> {
+              writes.addAll(
+                  invocation.<BatchWriteItemRequest>getArgument(0).requestItems().get(TABLE));
+              return BatchWriteItemResponse.builder().build();
+            });
+    when(dynamoDbClient.describeTimeToLive(any(DescribeTimeToLiveRequest.class)))
+        .thenReturn(
+            DescribeTimeToLiveResponse.builder()
+                .timeToLiveDescription(
+                    TimeToLiveDescription.builder()
+                        .timeToLiveStatus(TimeToLiveStatus.ENABLED)
+                        .build())
+                .build());
+  }
+
+  @Test
+  public void shouldDeleteRefsOfSupersededVersionsOnly() throws Exception {
+    currentVersions.put("project", Optional.of(2));
+    currentVersions.put("a/refs/b", Optional.of(1));
+    currentVersions.put("a", Optional.of(1));
+    store("/project/refs/heads/master", OBJECT_ID);
+    store("|1/project/refs/heads/master", OBJECT_ID);
+    store("|2/project/refs/heads/master", OBJECT_ID);
+    store("|2/project", "3");
+    store("|project", "2");
+    store("/unversioned/refs/heads/master", OBJECT_ID);
+    store("|1/a/refs/b/refs/heads/master", OBJECT_ID);
+
+    newStartedSweeper().sweep();
+
+    assertThat(deletedPaths())
+        .containsExactly("/project/refs/heads/master", "|1/project/refs/heads/master");
+  }
+
+  @Test
+  public void shouldDeleteRefsWithNumericValuesOfSupersededVersions() throws Exception {
+    currentVersions.put("project", Optional.of(2));
+    store("|1/project/refs/multi-site/version/value", "1760000000");
+    store("|2/project/refs/multi-site/version/value", "1760000060");
+    store("|project", "2");
+
+    newStartedSweeper().sweep();
+
+    assertThat(deletedPaths()).containsExactly("|1/project/refs/multi-site/version/value");
+  }
+
+  @Test
+  public void shouldSetExpiryOfSupersededRefsWhenConfigured() throws Exception {
+    when(configuration.getSweeperExpiry()).thenReturn(Optional.of(Duration.ofDays(7)));
+    currentVersions.put("project", Optional.of(1));
+    store("/project/refs/heads/master", OBJECT_ID);
+
+    newStartedSweeper().sweep();
+
+    assertThat(writes).hasSize(1);
+    Map<String, AttributeValue> expiringItem = writes.get(0).putRequest().item();
+    assertThat(expiringItem.get(REF_DB_VALUE_KEY).s()).isEqualTo(OBJECT_ID);
+    assertThat(expiringItem).containsKey(RefsDbSweeper.EXPIRES_AT);
+  }
+
+  @Test
+  public void shouldResumeInterruptedSweep() throws Exception {
+    currentVersions.put("project", Optional.of(1));
+    store("/project/refs/heads/master", OBJECT_ID);
+    store("/project/refs/heads/stable", OBJECT_ID);
+    when(dynamoDbClient.batchWriteItem(any(BatchWriteItemRequest.class)))
+        .thenThrow(new IllegalStateException("DynamoDB unavailable"))
+        .thenAnswer(
+            invocation -> {
+              writes.addAll(
+                  invocation.<BatchWriteItemRequest>getArgument(0).requestItems().get(TABLE));
+              return BatchWriteItemResponse.builder().build();
+            });
+
+    newStartedSweeper().sweep();
+    newStartedSweeper().sweep();
+
+    assertThat(deletedPaths())
+        .containsExactly("/project/refs/heads/master", "/project/refs/heads/stable");
+  }
+
+  private RefsDbSweeper newStartedSweeper() {
+    ScheduledExecutorService executor = mock(ScheduledExecutorService.class);
+    when(executor.submit(any(Callable.class)))
+        .thenAnswer(
+            invocation -> {
+              try {
+                return CompletableFuture.completedFuture(
+                    invocation.<Callable<?>>getArgument(0).call());
+              } catch (Exception e) {
+                return CompletableFuture.failedFuture(e);
+              }
+            });
+    WorkQueue workQueue = mock(WorkQueue.class);
+    when(workQueue.createQueue(anyInt(), any())).thenReturn(executor);
+    RefsDbSweeper sweeper =
+        new RefsDbSweeper(
+            workQueue,
+            dynamoDbClient,
+            refDb,
+            new DynamoDBMetrics(new DisabledMetricMaker()),
+            new CapacityLimiter(configuration),
+            temporaryFolder.getRoot().toPath(),
+            configuration);
+    sweeper.start();
+    return sweeper;
+  }
+
+  private void store(String refPath, String refValue) {
+    table.add(
+        Map.of(
+            REF_DB_PRIMARY_KEY,
+            AttributeValue.fromS(refPath),
+            REF_DB_VALUE_KEY,
+            AttributeValue.fromS(refValue)));
+  }
+
+  private int indexOf(String refPath) {
+    for (int i = 0; i < table.size(); i++) {
+      if (table.get(i).get(REF_DB_PRIMARY_KEY).s().equals(refPath)) {
+        return i;
+      }
+    }
+    throw new IllegalArgumentException(refPath);
+  }
+
+  private List<String> deletedPaths() {
+    List<String> paths = new ArrayList<>();
+    for (WriteRequest write : writes) {
+      paths.add(write.deleteRequest().key().get(REF_DB_PRIMARY_KEY).s());
+    }
+    return paths;
+  }
+}
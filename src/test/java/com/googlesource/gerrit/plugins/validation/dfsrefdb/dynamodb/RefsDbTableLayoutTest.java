@@ -0,0 +1,132 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.DynamoDBRefDatabase.REF_DB_PARTITION_KEY;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.DynamoDBRefDatabase.REF_DB_PRIMARY_KEY;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.DynamoDBRefDatabase.REF_DB_SORT_KEY;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.DynamoDBRefDatabase.REF_DB_VALUE_KEY;
+import static org.junit.Assert.assertThrows;
+
+import com.google.gerrit.entities.Project;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+public class RefsDbTableLayoutTest {
+  private static final RefsDbKey REF_KEY = RefsDbKey.ref("|1/project", "refs/heads/master");
+
+  @Test
+  public void flatLayoutShouldKeyItemsByPath() {
+    assertThat(RefsDbTableLayout.FLAT.key(REF_KEY))
+        .containsExactly(REF_DB_PRIMARY_KEY, AttributeValue.fromS("|1/project/refs/heads/master"));
+  }
+
+  @Test
+  public void partitionedLayoutShouldKeyItemsByProjectAndRefName() {
+    assertThat(RefsDbTableLayout.PARTITIONED.key(REF_KEY))
+        .containsExactly(
+            REF_DB_PARTITION_KEY,
+            AttributeValue.fromS("|1/project"),
+            REF_DB_SORT_KEY,
+            AttributeValue.fromS("refs/heads/master"));
+  }
+
+  @Test
+  public void shouldReadRefPathBackFromItems() {
+    for (RefsDbTableLayout layout : RefsDbTableLayout.values()) {
+      assertThat(layout.refPath(layout.key(REF_KEY))).isEqualTo(REF_KEY.path());
+    }
+  }
+
+  @Test
+  public void versionShouldNotSharePartitionWithRefs() {
+    RefsDbKey versionKey = RefsDbKey.version(Project.nameKey("1/project"));
+
+    assertThat(versionKey.path()).isEqualTo("|1/project");
+    assertThat(versionKey.partition()).isNotEqualTo(REF_KEY.partition());
+  }
+
+  @Test
+  public void shouldRecognizeVersionItemsFromTheirKey() {
+    Project.NameKey project = Project.nameKey("some project");
+    RefsDbKey refKey = RefsDbKey.ref("/" + project, "refs/heads/master");
+
+    for (RefsDbTableLayout layout : RefsDbTableLayout.values()) {
+      assertThat(layout.versionedProject(layout.key(RefsDbKey.version(project))))
+          .hasValue(project.get());
+      assertThat(layout.versionedProject(layout.key(refKey))).isEmpty();
+    }
+    assertThat(
+            RefsDbTableLayout.PARTITIONED.versionedProject(
+                RefsDbTableLayout.PARTITIONED.key(REF_KEY)))
+        .isEmpty();
+  }
+
+  @Test
+  public void shouldReadPartitionOfRefItems() {
+    for (RefsDbTableLayout layout : RefsDbTableLayout.values()) {
+      assertThat(layout.partitions(refItem(layout, REF_KEY, "0".repeat(40))))
+          .containsExactly("|1/project");
+      assertThat(layout.partitions(refItem(layout, RefsDbKey.version(Project.nameKey("p")), "1")))
+          .isEmpty();
+    }
+  }
+
+  @Test
+  public void flatLayoutShouldReadEveryPossiblePartitionOfAmbiguousPaths() {
+    RefsDbKey ambiguousKey = RefsDbKey.ref("/a/refs/b", "refs/heads/master");
+
+    assertThat(
+            RefsDbTableLayout.FLAT.partitions(refItem(RefsDbTableLayout.FLAT, ambiguousKey, "1")))
+        .containsExactly("/a", "/a/refs/b");
+  }
+
+  @Test
+  public void flatLayoutShouldTellVersionItemsFromRefsByTheirPathOnly() {
+    assertThat(RefsDbTableLayout.FLAT.partitions(refItem(RefsDbTableLayout.FLAT, REF_KEY, "1")))
+        .containsExactly("|1/project");
+    assertThat(RefsDbTableLayout.FLAT.isVersion(RefsDbTableLayout.FLAT.key(REF_KEY))).isFalse();
+    assertThat(
+            RefsDbTableLayout.FLAT.isVersion(
+                RefsDbTableLayout.FLAT.key(RefsDbKey.version(Project.nameKey("1/project")))))
+        .isTrue();
+  }
+
+  @Test
+  public void shouldParseKeysBackFromTheirPath() {
+    RefsDbKey versionKey = RefsDbKey.version(Project.nameKey("1/project"));
+
+    for (RefsDbTableLayout layout : RefsDbTableLayout.values()) {
+      assertThat(layout.key(RefsDbKey.fromPath(REF_KEY.path()))).isEqualTo(layout.key(REF_KEY));
+      assertThat(layout.key(RefsDbKey.fromPath(versionKey.path())))
+          .isEqualTo(layout.key(versionKey));
+    }
+  }
+
+  @Test
+  public void shouldRejectPathsOfNoRefNorVersion() {
+    assertThrows(IllegalArgumentException.class, () -> RefsDbKey.fromPath("/project/HEAD"));
+  }
+
+  private static Map<String, AttributeValue> refItem(
+      RefsDbTableLayout layout, RefsDbKey key, String value) {
+    Map<String, AttributeValue> item = new HashMap<>(layout.key(key));
+    item.put(REF_DB_VALUE_KEY, AttributeValue.fromS(value));
+    return item;
+  }
+}
@@ -0,0 +1,83 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.DynamoDBRefDatabase.REF_DB_PARTITION_KEY;
+import static com.googlesource.gerrit.plugins.validation.dfsrefdb.dynamodb.DynamoDBRefDatabase.REF_DB_SORT_KEY;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+public class SweeperCheckpointTest {
+  private static final List<String> KEY_ATTRIBUTES = List.of(REF_DB_PARTITION_KEY, REF_DB_SORT_KEY);
+  private static final Map<String, AttributeValue> KEY =
+      Map.of(
+          REF_DB_PARTITION_KEY,
+          AttributeValue.fromS("|1/some \"project\""),
+          REF_DB_SORT_KEY,
+          AttributeValue.fromS("refs/heads/master"));
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Path file;
+
+  @Before
+  public void setUp() {
+    file = temporaryFolder.getRoot().toPath().resolve("sweeper.checkpoint");
+  }
+
+  @Test
+  public void shouldResumeFromSavedProgress() throws Exception {
+    SweeperCheckpoint checkpoint = new SweeperCheckpoint(file, 2, KEY_ATTRIBUTES);
+    checkpoint.save(0, KEY);
+    checkpoint.save(1, null);
+
+    SweeperCheckpoint resumed = new SweeperCheckpoint(file, 2, KEY_ATTRIBUTES);
+    assertThat(resumed.exclusiveStartKey(0)).isEqualTo(KEY);
+    assertThat(resumed.isDone(0)).isFalse();
+    assertThat(resumed.isDone(1)).isTrue();
+    assertThat(resumed.completedAt()).isEmpty();
+  }
+
+  @Test
+  public void shouldStartOverWhenSegmentsChange() throws Exception {
+    new SweeperCheckpoint(file, 2, KEY_ATTRIBUTES).save(0, KEY);
+
+    SweeperCheckpoint checkpoint = new SweeperCheckpoint(file, 4, KEY_ATTRIBUTES);
+    assertThat(checkpoint.exclusiveStartKey(0)).isNull();
+  }
+
+  @Test
+  public void shouldStartOverOnceCompleted() throws Exception {
+    Instant completedAt = Instant.ofEpochMilli(1_000_000);
+    SweeperCheckpoint checkpoint = new SweeperCheckpoint(file, 2, KEY_ATTRIBUTES);
+    checkpoint.save(0, KEY);
+    checkpoint.save(1, null);
+    checkpoint.complete(completedAt);
+
+    SweeperCheckpoint next = new SweeperCheckpoint(file, 2, KEY_ATTRIBUTES);
+    assertThat(next.exclusiveStartKey(0)).isNull();
+    assertThat(next.isDone(1)).isFalse();
+    assertThat(next.completedAt()).hasValue(completedAt);
+  }
+}